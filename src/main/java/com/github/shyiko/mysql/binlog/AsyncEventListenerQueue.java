@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.jmx.AsyncEventListenerStatisticsMXBean;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded set of events handed over to {@link BinaryLogClient.AsyncEventListener} but not yet completed.
+ */
+class AsyncEventListenerQueue implements AsyncEventListenerStatisticsMXBean {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final BinaryLogClient.AsyncEventListener eventListener;
+    private final int capacity;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    // sequence number -> time it was handed over to the listener (oldest first)
+    private final Map<Long, Long> inFlight = new LinkedHashMap<Long, Long>();
+    private final AtomicLong totalNumberOfEventsDelivered = new AtomicLong();
+    private final AtomicLong numberOfFailures = new AtomicLong();
+
+    AsyncEventListenerQueue(BinaryLogClient.AsyncEventListener eventListener, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        this.eventListener = eventListener;
+        this.capacity = capacity;
+    }
+
+    BinaryLogClient.AsyncEventListener getEventListener() {
+        return eventListener;
+    }
+
+    /**
+     * @return true if there is room for another event, false if timeout elapsed before any of the events in flight
+     * completed
+     * @throws InterruptedException if thread was interrupted while waiting (interrupted status is cleared)
+     */
+    boolean awaitCapacity(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (inFlight.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if all the events handed over to the listener have been completed, false if timeout elapsed
+     * before that
+     * @throws InterruptedException if thread was interrupted while waiting (interrupted status is cleared)
+     */
+    boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (!inFlight.isEmpty()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = drained.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be preceded by successful {@link #awaitCapacity(long, TimeUnit)} (only one thread is expected to
+     * dispatch events).
+     */
+    void dispatch(final Event event) {
+        final long sequence = totalNumberOfEventsDelivered.getAndIncrement();
+        lock.lock();
+        try {
+            inFlight.put(sequence, System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+        CompletionStage<Void> stage;
+        try {
+            stage = eventListener.onEvent(event);
+        } catch (Exception e) {
+            fail(event, e);
+            complete(sequence);
+            return;
+        }
+        if (stage == null) {
+            complete(sequence);
+            return;
+        }
+        stage.whenComplete(new BiConsumer<Void, Throwable>() {
+
+            @Override
+            public void accept(Void result, Throwable throwable) {
+                if (throwable != null) {
+                    fail(event, throwable);
+                }
+                complete(sequence);
+            }
+        });
+    }
+
+    private void fail(Event event, Throwable throwable) {
+        numberOfFailures.getAndIncrement();
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.log(Level.WARNING, eventListener + " choked on " + event, throwable);
+        }
+    }
+
+    private void complete(long sequence) {
+        lock.lock();
+        try {
+            inFlight.remove(sequence);
+            notFull.signal();
+            if (inFlight.isEmpty()) {
+                drained.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return inFlight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getMillisecondsBehind() {
+        lock.lock();
+        try {
+            Iterator<Long> iterator = inFlight.values().iterator();
+            return iterator.hasNext() ? System.currentTimeMillis() - iterator.next() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getTotalNumberOfEventsDelivered() {
+        return totalNumberOfEventsDelivered.get();
+    }
+
+    @Override
+    public long getNumberOfFailures() {
+        return numberOfFailures.get();
+    }
+
+}
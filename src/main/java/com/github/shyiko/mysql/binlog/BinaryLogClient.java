@@ -17,6 +17,7 @@ package com.github.shyiko.mysql.binlog;
 
 import com.github.shyiko.mysql.binlog.event.AnnotateRowsEventData;
 import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventData;
 import com.github.shyiko.mysql.binlog.event.EventHeader;
 import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
 import com.github.shyiko.mysql.binlog.event.EventType;
@@ -37,6 +38,8 @@ import com.github.shyiko.mysql.binlog.event.deserialization.MariadbGtidListEvent
 import com.github.shyiko.mysql.binlog.event.deserialization.QueryEventDataDeserializer;
 import com.github.shyiko.mysql.binlog.event.deserialization.RotateEventDataDeserializer;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import com.github.shyiko.mysql.binlog.io.ChunkedInputStream;
+import com.github.shyiko.mysql.binlog.jmx.AsyncEventListenerStatisticsMXBean;
 import com.github.shyiko.mysql.binlog.jmx.BinaryLogClientMXBean;
 import com.github.shyiko.mysql.binlog.network.AuthenticationException;
 import com.github.shyiko.mysql.binlog.network.Authenticator;
@@ -70,15 +73,21 @@ import java.net.SocketException;
 import java.security.GeneralSecurityException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -123,6 +132,9 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
     // https://dev.mysql.com/doc/internals/en/sending-more-than-16mbyte.html
     private static final int MAX_PACKET_LENGTH = 16777215;
 
+    // marks the end of packet/event queue (in pipelined mode)
+    private static final ByteArrayInputStream END_OF_STREAM = new ByteArrayInputStream(new byte[0]);
+
     private final Logger logger = Logger.getLogger(getClass().getName());
 
     private final String hostname;
@@ -146,10 +158,16 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
     private boolean useBinlogFilenamePositionInGtidMode;
     protected Object gtid;
     private boolean tx;
+    private boolean txInProgress; // same as tx but tracked regardless of GTID mode
+    private volatile BinaryLogPosition position; // as of the last commit boundary
 
     private EventDeserializer eventDeserializer = new EventDeserializer();
 
     private final List<EventListener> eventListeners = new CopyOnWriteArrayList<EventListener>();
+    private final List<AsyncEventListenerQueue> asyncEventListeners =
+        new CopyOnWriteArrayList<AsyncEventListenerQueue>();
+    private final List<EventBatch> batchEventListeners = new CopyOnWriteArrayList<EventBatch>();
+    private ScheduledExecutorService batchFlushExecutor; // guarded by batchEventListeners
     private final List<LifecycleListener> lifecycleListeners = new CopyOnWriteArrayList<LifecycleListener>();
 
     private SocketFactory socketFactory;
@@ -166,6 +184,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
 
     private long heartbeatInterval;
     private volatile long eventLastSeen;
+    private volatile boolean backpressured; // true while waiting for AsyncEventListener(s) to catch up
 
     private long connectTimeout = TimeUnit.SECONDS.toMillis(3);
 
@@ -179,6 +198,11 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
     private Boolean isMariaDB;
     private int mariaDbSlaveCapability = 4;
 
+    private boolean pipelined;
+    private int pipelineCapacity = 1024;
+    private volatile BlockingQueue<ByteArrayInputStream> packetQueue;
+    private volatile BlockingQueue<Object> eventQueue;
+
     /**
      * Alias for BinaryLogClient("localhost", 3306, &lt;no schema&gt; = null, username, password).
      * @see BinaryLogClient#BinaryLogClient(String, int, String, String, String)
@@ -226,6 +250,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
         this.schema = schema;
         this.username = username;
         this.password = password;
+        publishPosition();
     }
 
     public boolean isBlocking() {
@@ -298,6 +323,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
      */
     public void setBinlogFilename(String binlogFilename) {
         this.binlogFilename = binlogFilename;
+        publishPosition();
     }
 
     /**
@@ -315,6 +341,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
      */
     public void setBinlogPosition(long binlogPosition) {
         this.binlogPosition = binlogPosition;
+        publishPosition();
     }
 
     /**
@@ -327,6 +354,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
     /**
      * @return GTID set. Note that this value changes with each received GTID event (provided client is in GTID mode).
      * @see #setGtidSet(String)
+     * @see #getPosition()
      */
     public String getGtidSet() {
         synchronized (gtidSetAccessLock) {
@@ -363,6 +391,33 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
                 }
             }
         }
+        publishPosition();
+    }
+
+    /**
+     * Unlike {@link #getBinlogFilename()}, {@link #getBinlogPosition()} and {@link #getGtidSet()} (which change with
+     * each event), returned position is updated only at transaction boundaries (XID, COMMIT/ROLLBACK, XA_PREPARE,
+     * TRANSACTION_PAYLOAD, DDL and ROTATE outside of a transaction), so that all of its components are consistent
+     * with each other, and only after batch / asynchronous event listeners are done with the events preceding the
+     * boundary. Position gets published (through a volatile reference) by the thread processing events, meaning that
+     * this method neither blocks nor competes with event processing, and doesn't allocate (GTID set included) until
+     * the next boundary.
+     * @return position as of the last commit boundary
+     */
+    public BinaryLogPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Called on construction, by each of the position setters, on connect and at transaction boundaries.
+     */
+    private void publishPosition() {
+        GtidSet gtidSetSnapshot;
+        synchronized (gtidSetAccessLock) {
+            gtidSetSnapshot = gtidSet != null ? gtidSet.snapshot() : null;
+        }
+        position = new BinaryLogPosition(binlogFilename, binlogPosition, gtidSetSnapshot,
+            gtidSetSnapshot != null ? gtid : null);
     }
 
     /**
@@ -559,6 +614,67 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
         this.mariaDbSlaveCapability = mariaDbSlaveCapability;
     }
 
+    /**
+     * @return true if client is running in a pipelined mode, false otherwise (default).
+     * @see #setPipelined(boolean)
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * @param pipelined true if packets should be read off the socket, deserialized and dispatched to the event
+     * listeners by three different threads (connected with bounded queues, see {@link #setPipelineCapacity(int)}),
+     * false otherwise (default). This way neither a slow listener nor deserialization stalls the socket reads.
+     * Events are still delivered one at a time and in order, and binlog filename/position and GTID set are
+     * maintained exactly as in a non-pipelined mode. Note that {@link EventDeserializer} is then called from
+     * a different thread than the one which invoked {@link #connect()}. Takes effect on the next connect.
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * @return capacity of each of the pipeline queues, 1024 by default.
+     * @see #setPipelineCapacity(int)
+     */
+    public int getPipelineCapacity() {
+        return pipelineCapacity;
+    }
+
+    /**
+     * @param pipelineCapacity maximum number of packets (awaiting deserialization) / events (awaiting dispatch)
+     * that can be buffered in between pipeline stages. Once full, the preceding stage blocks (which, in case of
+     * the reader, means that the server is no longer being read from).
+     * @see #setPipelined(boolean)
+     */
+    public void setPipelineCapacity(int pipelineCapacity) {
+        if (pipelineCapacity < 1) {
+            throw new IllegalArgumentException("Pipeline capacity must be greater than 0");
+        }
+        this.pipelineCapacity = pipelineCapacity;
+    }
+
+    /**
+     * @return number of packets that were read off the socket but not yet deserialized (always 0 unless client is
+     * connected in a pipelined mode).
+     * @see #setPipelined(boolean)
+     */
+    public int getPipelinePacketQueueSize() {
+        BlockingQueue<ByteArrayInputStream> queue = packetQueue;
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * @return number of events that were deserialized but not yet dispatched to the event listeners (always 0
+     * unless client is connected in a pipelined mode).
+     * @see #setPipelined(boolean)
+     */
+    public int getPipelineEventQueueSize() {
+        BlockingQueue<Object> queue = eventQueue;
+        return queue != null ? queue.size() : 0;
+    }
+
     /**
      * Connect to the replication stream. Note that this method blocks until disconnected.
      * @throws AuthenticationException if authentication fails
@@ -612,6 +728,8 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
                 setupConnection();
                 gtid = null;
                 tx = false;
+                txInProgress = false;
+                publishPosition();
                 requestBinaryLogStream();
             } catch (IOException e) {
                 disconnectChannel();
@@ -653,6 +771,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
             listenForEventPackets();
         } finally {
             connectLock.unlock();
+            flushBatchEventListeners();
             if (notifyWhenDisconnected) {
                 for (LifecycleListener lifecycleListener : lifecycleListeners) {
                     lifecycleListener.onDisconnect(this);
@@ -885,7 +1004,9 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
                         }
                         boolean connectionLost = false;
                         if (heartbeatInterval > 0) {
-                            connectionLost = System.currentTimeMillis() - eventLastSeen > keepAliveInterval;
+                            // nothing is read from the socket while client is back-pressured
+                            connectionLost = !backpressured &&
+                                System.currentTimeMillis() - eventLastSeen > keepAliveInterval;
                         } else {
                             try {
                                 channel.write(new PingCommand());
@@ -1052,6 +1173,10 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
     }
 
     private void listenForEventPackets() throws IOException {
+        if (pipelined) {
+            listenForEventPacketsInPipeline();
+            return;
+        }
         ByteArrayInputStream inputStream = channel.getInputStream();
         boolean completeShutdown = false;
         try {
@@ -1070,9 +1195,10 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
                 }
                 Event event;
                 try {
+                    // unless split into chunks, packet is deserialized in place (straight from the socket buffer)
                     event = eventDeserializer.nextEvent(packetLength == MAX_PACKET_LENGTH ?
-                        new ByteArrayInputStream(readPacketSplitInChunks(inputStream, packetLength - 1)) :
-                        inputStream);
+                        readPacketSplitInChunks(inputStream, packetLength - 1) :
+                        inputStream.slice(packetLength - 1));
                     if (event == null) {
                         throw new EOFException();
                     }
@@ -1093,6 +1219,7 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
                     updateGtidSet(event);
                     notifyEventListeners(event);
                     updateClientBinlogFilenameAndPosition(event);
+                    updatePosition(event);
                 }
             }
         } catch (Exception e) {
@@ -1112,16 +1239,201 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
         }
     }
 
-    private byte[] readPacketSplitInChunks(ByteArrayInputStream inputStream, int packetLength) throws IOException {
-        byte[] result = inputStream.read(packetLength);
+    /**
+     * Pipelined version of {@link #listenForEventPackets()}. Current thread only reads packets off the socket,
+     * deserialization and dispatching are delegated to "blc-decoder" and "blc-dispatcher" threads respectively.
+     */
+    private void listenForEventPacketsInPipeline() throws IOException {
+        ByteArrayInputStream inputStream = channel.getInputStream();
+        final BlockingQueue<ByteArrayInputStream> packetQueue = new ArrayBlockingQueue<ByteArrayInputStream>(pipelineCapacity);
+        final BlockingQueue<Object> eventQueue = new ArrayBlockingQueue<Object>(pipelineCapacity);
+        Thread decoder = newNamedThread(new Runnable() {
+            @Override
+            public void run() {
+                deserializeEventPackets(packetQueue, eventQueue);
+            }
+        }, "blc-decoder-" + hostname + ":" + port);
+        Thread dispatcher = newNamedThread(new Runnable() {
+            @Override
+            public void run() {
+                dispatchEvents(eventQueue);
+            }
+        }, "blc-dispatcher-" + hostname + ":" + port);
+        this.packetQueue = packetQueue;
+        this.eventQueue = eventQueue;
+        decoder.start();
+        dispatcher.start();
+        boolean completeShutdown = false;
+        Exception failure = null;
+        try {
+            while (inputStream.peek() != -1) {
+                int packetLength = inputStream.readInteger(3);
+                inputStream.skip(1); // 1 byte for sequence
+                int marker = inputStream.read();
+                if (marker == 0xFF) {
+                    ErrorPacket errorPacket = new ErrorPacket(inputStream.read(packetLength - 1));
+                    throw new ServerException(errorPacket.getErrorMessage(), errorPacket.getErrorCode(),
+                        errorPacket.getSqlState());
+                }
+                if (marker == 0xFE && !blocking) {
+                    completeShutdown = true;
+                    break;
+                }
+                ByteArrayInputStream packet = packetLength == MAX_PACKET_LENGTH ?
+                    readPacketSplitInChunks(inputStream, packetLength - 1) :
+                    new ByteArrayInputStream(inputStream.read(packetLength - 1));
+                eventLastSeen = System.currentTimeMillis();
+                putUninterruptibly(packetQueue, packet);
+            }
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            // let decoder & dispatcher drain whatever has been read so far (in order to deliver events that preceded
+            // failure (if any) before listeners are notified about it)
+            putUninterruptibly(packetQueue, END_OF_STREAM);
+            joinUninterruptibly(decoder);
+            joinUninterruptibly(dispatcher);
+            this.packetQueue = null;
+            this.eventQueue = null;
+            if (failure != null && isConnected()) {
+                for (LifecycleListener lifecycleListener : lifecycleListeners) {
+                    lifecycleListener.onCommunicationFailure(this, failure);
+                }
+            }
+            if (isConnected()) {
+                if (completeShutdown) {
+                    disconnect(); // initiate complete shutdown sequence (which includes keep alive thread)
+                } else {
+                    disconnectChannel();
+                }
+            }
+        }
+    }
+
+    private void deserializeEventPackets(BlockingQueue<ByteArrayInputStream> packetQueue, BlockingQueue<Object> eventQueue) {
+        try {
+            for (ByteArrayInputStream packet; (packet = takeUninterruptibly(packetQueue)) != END_OF_STREAM; ) {
+                Object result;
+                try {
+                    Event event = eventDeserializer.nextEvent(packet);
+                    result = event != null ? event : new EOFException();
+                } catch (Exception e) {
+                    result = e;
+                }
+                putUninterruptibly(eventQueue, result);
+            }
+        } finally {
+            putUninterruptibly(eventQueue, END_OF_STREAM);
+        }
+    }
+
+    private void dispatchEvents(BlockingQueue<Object> eventQueue) {
+        for (Object element; (element = takeUninterruptibly(eventQueue)) != END_OF_STREAM; ) {
+            if (!isConnected()) {
+                continue; // draining
+            }
+            try {
+                if (element instanceof Exception) {
+                    Exception e = (Exception) element;
+                    Throwable cause = e instanceof EventDataDeserializationException ? e.getCause() : e;
+                    if (cause instanceof EOFException || cause instanceof SocketException) {
+                        throw e;
+                    }
+                    for (LifecycleListener lifecycleListener : lifecycleListeners) {
+                        lifecycleListener.onEventDeserializationFailure(this, e);
+                    }
+                    continue;
+                }
+                Event event = (Event) element;
+                updateGtidSet(event);
+                notifyEventListeners(event);
+                updateClientBinlogFilenameAndPosition(event);
+                updatePosition(event);
+            } catch (Exception e) {
+                if (isConnected()) {
+                    for (LifecycleListener lifecycleListener : lifecycleListeners) {
+                        lifecycleListener.onCommunicationFailure(this, e);
+                    }
+                }
+                try {
+                    disconnectChannel();
+                } catch (IOException ex) {
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.log(Level.WARNING, ex.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    queue.put(element);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    thread.join();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Chunks are collected as is (instead of being copied into a single array) and then exposed as one
+     * (logical) stream, so that reassembling the packet takes no more than packet size of heap.
+     */
+    private ByteArrayInputStream readPacketSplitInChunks(ByteArrayInputStream inputStream, int packetLength)
+            throws IOException {
+        List<byte[]> chunks = new ArrayList<byte[]>();
+        chunks.add(inputStream.read(packetLength));
         int chunkLength;
         do {
             chunkLength = inputStream.readInteger(3);
             inputStream.skip(1); // 1 byte for sequence
-            result = Arrays.copyOf(result, result.length + chunkLength);
-            inputStream.fill(result, result.length - chunkLength, chunkLength);
+            chunks.add(inputStream.read(chunkLength));
         } while (chunkLength == Packet.MAX_LENGTH);
-        return result;
+        return new ByteArrayInputStream(new ChunkedInputStream(chunks));
     }
 
     private void updateClientBinlogFilenameAndPosition(Event event) {
@@ -1143,6 +1455,56 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
         }
     }
 
+    /**
+     * Publishes position (see {@link #getPosition()}) if event is a transaction boundary.
+     */
+    private void updatePosition(Event event) {
+        boolean boundary;
+        EventData eventData = EventDataWrapper.internal(event.getData());
+        switch (event.getHeader().getEventType()) {
+            case XID:
+            case XA_PREPARE:
+            case TRANSACTION_PAYLOAD: // compressed transaction (XID included)
+                boundary = true;
+                txInProgress = false;
+                break;
+            case MARIADB_GTID:
+                // MariaDB doesn't log BEGIN, event group is opened by the GTID itself (unless it's standalone,
+                // e.g. DDL)
+                boundary = false;
+                txInProgress = eventData instanceof MariadbGtidEventData &&
+                    (((MariadbGtidEventData) eventData).getFlags() & MariadbGtidEventData.FL_STANDALONE) == 0;
+                break;
+            case QUERY:
+                String sql = eventData instanceof QueryEventData ? ((QueryEventData) eventData).getSql() : null;
+                if (sql == null) {
+                    boundary = false;
+                } else if ("BEGIN".equals(sql) || sql.startsWith("XA START")) {
+                    boundary = false;
+                    txInProgress = true;
+                } else if ("COMMIT".equals(sql) || "ROLLBACK".equals(sql)) {
+                    boundary = true;
+                    txInProgress = false;
+                } else {
+                    boundary = !txInProgress; // auto-commit query (likely DDL) or XA COMMIT/ROLLBACK
+                }
+                break;
+            case ROTATE:
+                boundary = !txInProgress;
+                break;
+            default:
+                boundary = false;
+        }
+        if (boundary) {
+            // before publishing, so that position never runs ahead of delivered batches / completed async events
+            flushBatchEventListeners();
+            for (AsyncEventListenerQueue queue : asyncEventListeners) {
+                awaitAsyncEventListener(queue, true);
+            }
+            publishPosition();
+        }
+    }
+
     protected void updateGtidSet(Event event) {
         synchronized (gtidSetAccessLock) {
             if (gtidSet == null) {
@@ -1259,6 +1621,126 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
         eventListeners.remove(eventListener);
     }
 
+    /**
+     * Register asynchronous event listener. Client stops reading from the server (without disconnecting) as long
+     * as listener has maxEventsInFlight events whose {@link CompletionStage}s are not yet complete. Keep in mind
+     * that server-side net_write_timeout still applies (meaning listener shouldn't stall for longer than that).
+     * Asynchronous event listeners are called (in order they where registered) after all the
+     * {@link EventListener}s.
+     * Position (see {@link #getPosition()}) is published only after all the events preceding transaction boundary
+     * have been completed, meaning that at each boundary client waits for the events in flight (which limits
+     * pipelining to a single transaction). Events of the transaction the client got disconnected in the middle of
+     * are redelivered on reconnect (at-least-once).
+     * @param eventListener event listener
+     * @param maxEventsInFlight maximum number of events listener is allowed to lag behind
+     */
+    public void registerAsyncEventListener(AsyncEventListener eventListener, int maxEventsInFlight) {
+        asyncEventListeners.add(new AsyncEventListenerQueue(eventListener, maxEventsInFlight));
+    }
+
+    /**
+     * Unregister single asynchronous event listener.
+     * @param eventListener event listener to unregister
+     */
+    public void unregisterAsyncEventListener(AsyncEventListener eventListener) {
+        for (AsyncEventListenerQueue queue : asyncEventListeners) {
+            if (queue.getEventListener() == eventListener) {
+                asyncEventListeners.remove(queue);
+            }
+        }
+    }
+
+    /**
+     * @return registered asynchronous event listeners
+     */
+    public List<AsyncEventListener> getAsyncEventListeners() {
+        List<AsyncEventListener> result = new ArrayList<AsyncEventListener>();
+        for (AsyncEventListenerQueue queue : asyncEventListeners) {
+            result.add(queue.getEventListener());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @param eventListener asynchronous event listener
+     * @return queue depth, lag, etc. of the given listener (suitable for registration with MBeanServer) or null if
+     * listener is not registered
+     */
+    public AsyncEventListenerStatisticsMXBean getAsyncEventListenerStatistics(AsyncEventListener eventListener) {
+        for (AsyncEventListenerQueue queue : asyncEventListeners) {
+            if (queue.getEventListener() == eventListener) {
+                return queue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Register batch event listener. Events are accumulated and handed over to the listener once there are
+     * maxEvents of them, maxBytes (as in {@link EventHeaderV4#getEventLength()}) is reached, maxLingerMillis
+     * elapsed since the first event in the batch, or, regardless of size, at every transaction boundary
+     * (XID, COMMIT/ROLLBACK and DDL), so that a batch never ends in the middle of a transaction unless
+     * maxEvents/maxBytes/maxLingerMillis forced it to. Batch event listeners are called after
+     * {@link EventListener}s and {@link AsyncEventListener}s.
+     * @param eventListener event listener
+     * @param maxEvents maximum number of events in a batch
+     * @param maxBytes maximum (binlog) size of a batch, 0 for no limit
+     * @param maxLingerMillis maximum time (in milliseconds) first event of a batch is allowed to wait for delivery,
+     * 0 for no limit
+     */
+    public void registerBatchEventListener(BatchEventListener eventListener, int maxEvents, long maxBytes,
+            long maxLingerMillis) {
+        synchronized (batchEventListeners) {
+            if (maxLingerMillis > 0 && batchFlushExecutor == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = newNamedThread(runnable, "blc-batch-" + hostname + ":" + port);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+                executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+                executor.allowCoreThreadTimeOut(true); // so that thread doesn't outlive client
+                executor.setRemoveOnCancelPolicy(true);
+                batchFlushExecutor = executor;
+            }
+            batchEventListeners.add(new EventBatch(eventListener, maxEvents, maxBytes, maxLingerMillis,
+                batchFlushExecutor));
+        }
+    }
+
+    /**
+     * Unregister single batch event listener (events accumulated so far are delivered before this method returns).
+     * @param eventListener event listener to unregister
+     */
+    public void unregisterBatchEventListener(BatchEventListener eventListener) {
+        for (EventBatch batch : batchEventListeners) {
+            if (batch.getEventListener() == eventListener) {
+                batchEventListeners.remove(batch);
+                batch.flush();
+            }
+        }
+    }
+
+    /**
+     * @return registered batch event listeners
+     */
+    public List<BatchEventListener> getBatchEventListeners() {
+        List<BatchEventListener> result = new ArrayList<BatchEventListener>();
+        for (EventBatch batch : batchEventListeners) {
+            result.add(batch.getEventListener());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private void flushBatchEventListeners() {
+        for (EventBatch batch : batchEventListeners) {
+            batch.flush();
+        }
+    }
+
     private void notifyEventListeners(Event event) {
         if (event.getData() instanceof EventDataWrapper) {
             event = new Event(event.getHeader(), ((EventDataWrapper) event.getData()).getExternal());
@@ -1266,12 +1748,56 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
         for (EventListener eventListener : eventListeners) {
             try {
                 eventListener.onEvent(event);
+            } catch (StreamAbortedException e) {
+                throw e;
             } catch (Exception e) {
                 if (logger.isLoggable(Level.WARNING)) {
                     logger.log(Level.WARNING, eventListener + " choked on " + event, e);
                 }
             }
         }
+        for (AsyncEventListenerQueue queue : asyncEventListeners) {
+            awaitAsyncEventListener(queue, false);
+            queue.dispatch(event);
+        }
+        for (EventBatch batch : batchEventListeners) {
+            batch.add(event);
+        }
+    }
+
+    /**
+     * Waits for the listener to have room for another event (or, if {@code drain} is true, to complete all the events
+     * handed over to it so far).
+     * @throws StreamAbortedException if client got disconnected (or thread was interrupted) while waiting, so that
+     * event is neither dispatched nor considered processed (position is not published)
+     */
+    private void awaitAsyncEventListener(AsyncEventListenerQueue queue, boolean drain) {
+        try {
+            if (await(queue, drain, 0)) {
+                return;
+            }
+            backpressured = true;
+            try {
+                while (!await(queue, drain, 100)) {
+                    if (!isConnected()) {
+                        throw new StreamAbortedException("Disconnected while waiting for " +
+                            queue.getEventListener(), null);
+                    }
+                }
+            } finally {
+                eventLastSeen = System.currentTimeMillis();
+                backpressured = false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StreamAbortedException("Interrupted while waiting for " + queue.getEventListener(), e);
+        }
+    }
+
+    private static boolean await(AsyncEventListenerQueue queue, boolean drain, long timeoutInMilliseconds)
+            throws InterruptedException {
+        return drain ? queue.awaitDrained(timeoutInMilliseconds, TimeUnit.MILLISECONDS) :
+            queue.awaitCapacity(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -1377,13 +1903,43 @@ public class BinaryLogClient implements BinaryLogClientMXBean {
     }
 
     /**
-     * {@link BinaryLogClient}'s event listener.
+     * {@link BinaryLogClient}'s event listener. Exceptions thrown by the listener are logged and ignored
+     * (unless it's {@link StreamAbortedException}).
      */
     public interface EventListener {
 
         void onEvent(Event event);
     }
 
+    /**
+     * {@link BinaryLogClient}'s asynchronous event listener
+     * (see {@link #registerAsyncEventListener(AsyncEventListener, int)}).
+     */
+    public interface AsyncEventListener {
+
+        /**
+         * @param event event
+         * @return stage that completes once event has been processed (null if it already has been). Exceptional
+         * completion is logged and otherwise ignored (same as exception thrown by {@link EventListener}).
+         */
+        CompletionStage<Void> onEvent(Event event);
+    }
+
+    /**
+     * {@link BinaryLogClient}'s batch event listener
+     * (see {@link #registerBatchEventListener(BatchEventListener, int, long, long)}).
+     */
+    public interface BatchEventListener {
+
+        /**
+         * Note that list is reused (cleared and filled up with the next batch once this method returns) and so
+         * must not be retained. Might be called from "blc-batch-*" thread (when maxLingerMillis elapses), though
+         * never concurrently.
+         * @param events events in the order they were received
+         */
+        void onEvents(List<Event> events);
+    }
+
     /**
      * {@link BinaryLogClient}'s lifecycle listener.
      */
@@ -36,6 +36,9 @@ public class BinaryLogFileReader implements Closeable {
 
     public static final byte[] MAGIC_HEADER = new byte[]{(byte) 0xfe, (byte) 0x62, (byte) 0x69, (byte) 0x6e};
 
+    private static final int EVENT_HEADER_LENGTH = 19;
+    private static final int EVENT_LENGTH_OFFSET = 9;
+
     private final ByteArrayInputStream inputStream;
     private final EventDeserializer eventDeserializer;
 
@@ -80,7 +83,22 @@ public class BinaryLogFileReader implements Closeable {
 	 * @throws IOException if reading the event fails
      */
     public Event readEvent() throws IOException {
-        return eventDeserializer.nextEvent(inputStream);
+        if (inputStream.peek() == -1) {
+            return null;
+        }
+        // event is read into memory as a whole so that deserialization could be done straight from the array
+        byte[] eventHeader = inputStream.read(EVENT_HEADER_LENGTH);
+        long eventLength = 0;
+        for (int i = 0; i < 4; i++) {
+            eventLength |= (long) (eventHeader[EVENT_LENGTH_OFFSET + i] & 0xFF) << (i << 3);
+        }
+        if (eventLength < EVENT_HEADER_LENGTH || eventLength > Integer.MAX_VALUE) {
+            throw new IOException("Invalid event length " + eventLength + " at position " +
+                (inputStream.getPosition() - EVENT_HEADER_LENGTH + MAGIC_HEADER.length));
+        }
+        byte[] event = Arrays.copyOf(eventHeader, (int) eventLength);
+        inputStream.fill(event, EVENT_HEADER_LENGTH, event.length - EVENT_HEADER_LENGTH);
+        return eventDeserializer.nextEvent(new ByteArrayInputStream(event));
     }
 
     @Override
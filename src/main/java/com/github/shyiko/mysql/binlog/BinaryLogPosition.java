@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+/**
+ * Immutable position of {@link BinaryLogClient} as of the last commit boundary (see
+ * {@link BinaryLogClient#getPosition()}), i.e. the one that could be used to resume replication without replaying
+ * or skipping part of a transaction.
+ */
+public final class BinaryLogPosition {
+
+    private final String binlogFilename;
+    private final long binlogPosition;
+    private final GtidSet gtidSet;
+    private final Object lastCommittedGtid;
+
+    BinaryLogPosition(String binlogFilename, long binlogPosition, GtidSet gtidSet, Object lastCommittedGtid) {
+        this.binlogFilename = binlogFilename;
+        this.binlogPosition = binlogPosition;
+        this.gtidSet = gtidSet;
+        this.lastCommittedGtid = lastCommittedGtid;
+    }
+
+    public String getBinlogFilename() {
+        return binlogFilename;
+    }
+
+    /**
+     * @return binary log position of the event following the last commit boundary
+     */
+    public long getBinlogPosition() {
+        return binlogPosition;
+    }
+
+    /**
+     * @return immutable GTID set (all the transactions up to and including the last committed one), null if client
+     * is not in GTID mode
+     */
+    public GtidSet getGtidSet() {
+        return gtidSet;
+    }
+
+    /**
+     * @return GTID of the last committed transaction ("source_id:transaction_id" in case of MySQL,
+     * "domain_id-server_id-sequence" in case of MariaDB), null if client is not in GTID mode or no transaction has
+     * been committed yet
+     */
+    public String getLastCommittedGtid() {
+        return lastCommittedGtid != null ? lastCommittedGtid.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("BinaryLogPosition");
+        sb.append("{binlogFilename='").append(binlogFilename).append('\'');
+        sb.append(", binlogPosition=").append(binlogPosition);
+        sb.append(", gtidSet=").append(gtidSet);
+        sb.append(", lastCommittedGtid=").append(getLastCommittedGtid());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeader;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Events accumulated for a single {@link BinaryLogClient.BatchEventListener}.
+ */
+class EventBatch {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final BinaryLogClient.BatchEventListener eventListener;
+    private final int maxEvents;
+    private final long maxBytes;
+    private final long maxLingerMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final List<Event> events;
+    private long bytes;
+    private long generation; // incremented on every flush
+
+    /**
+     * @param scheduler executor used to flush batch once maxLingerMillis elapses (ignored if maxLingerMillis is 0)
+     */
+    EventBatch(BinaryLogClient.BatchEventListener eventListener, int maxEvents, long maxBytes, long maxLingerMillis,
+               ScheduledExecutorService scheduler) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be greater than 0");
+        }
+        this.eventListener = eventListener;
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+        this.maxLingerMillis = maxLingerMillis;
+        this.scheduler = maxLingerMillis > 0 ? scheduler : null;
+        this.events = new ArrayList<Event>(Math.min(maxEvents, 1024));
+    }
+
+    BinaryLogClient.BatchEventListener getEventListener() {
+        return eventListener;
+    }
+
+    synchronized void add(Event event) {
+        if (events.isEmpty() && scheduler != null) {
+            final long generation = this.generation;
+            scheduler.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    flush(generation);
+                }
+            }, maxLingerMillis, TimeUnit.MILLISECONDS);
+        }
+        events.add(event);
+        EventHeader eventHeader = event.getHeader();
+        bytes += eventHeader instanceof EventHeaderV4 ? ((EventHeaderV4) eventHeader).getEventLength() :
+            eventHeader.getHeaderLength() + eventHeader.getDataLength();
+        if (events.size() >= maxEvents || (maxBytes > 0 && bytes >= maxBytes)) {
+            flush();
+        }
+    }
+
+    private synchronized void flush(long generation) {
+        if (this.generation == generation) {
+            flush();
+        }
+    }
+
+    synchronized void flush() {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            eventListener.onEvents(events);
+        } catch (Exception e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, eventListener + " choked on " + events.size() + " event(s)", e);
+            }
+        } finally {
+            events.clear();
+            bytes = 0;
+            generation++;
+        }
+    }
+
+}
@@ -35,6 +35,9 @@ import java.util.*;
 public class GtidSet {
 
     private final Map<UUID, UUIDSet> map = new LinkedHashMap<UUID, UUIDSet>();
+    private final boolean immutable;
+    private String string; // cached toString()
+    private GtidSet snapshot; // (cached) snapshot of the current state
 
     public static GtidSet parse(String gtidStr) {
         if ( MariadbGtidSet.isMariaGtidSet(gtidStr) ) {
@@ -47,25 +50,51 @@ public class GtidSet {
      * @param gtidSet gtid set comprised of closed intervals (like MySQL's executed_gtid_set).
      */
     public GtidSet(String gtidSet) {
+        this.immutable = false;
         String[] uuidSets = (gtidSet == null || gtidSet.isEmpty()) ? new String[0] :
             gtidSet.replace("\n", "").split(",");
         for (String uuidSet : uuidSets) {
             int uuidSeparatorIndex = uuidSet.indexOf(":");
-            UUID sourceId = UUID.fromString(uuidSet.substring(0, uuidSeparatorIndex));
-            List<Interval> intervals = new ArrayList<Interval>();
+            UUID sourceId = UUID.fromString(uuidSet.substring(0, uuidSeparatorIndex).trim());
             String[] rawIntervals = uuidSet.substring(uuidSeparatorIndex + 1).split(":");
+            UUIDSet result = new UUIDSet(sourceId, rawIntervals.length);
             for (String interval : rawIntervals) {
-                String[] is = interval.split("-");
-                long[] split = new long[is.length];
-                for (int i = 0, e = is.length; i < e; i++) {
-                    split[i] = Long.parseLong(is[i]);
-                }
-                if (split.length == 1) {
-                    split = new long[] {split[0], split[0]};
-                }
-                intervals.add(new Interval(split[0], split[1]));
+                int dashIndex = interval.indexOf('-');
+                long start = Long.parseLong((dashIndex == -1 ? interval : interval.substring(0, dashIndex)).trim());
+                long end = dashIndex == -1 ? start : Long.parseLong(interval.substring(dashIndex + 1).trim());
+                result.addInterval(start, end);
             }
-            map.put(sourceId, new UUIDSet(sourceId, intervals));
+            map.put(sourceId, result);
+        }
+    }
+
+    private GtidSet(GtidSet gtidSet) {
+        this.immutable = true;
+        for (UUIDSet uuidSet : gtidSet.map.values()) {
+            map.put(uuidSet.getServerId(), uuidSet.snapshot());
+        }
+        this.string = gtidSet.string;
+    }
+
+    /**
+     * @return immutable copy of this set (modification methods of which throw
+     * {@link UnsupportedOperationException}). Interval arrays are shared with this set for as long as GTIDs are added
+     * in order, meaning that the cost is proportional to the number of servers (UUIDs) and not the number of intervals.
+     */
+    GtidSet snapshot() {
+        if (immutable) {
+            return this;
+        }
+        GtidSet result = snapshot;
+        if (result == null) {
+            snapshot = result = new GtidSet(this);
+        }
+        return result;
+    }
+
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("GtidSet is immutable");
         }
     }
 
@@ -93,6 +122,9 @@ public class GtidSet {
      *         or {@code null} if there are no UUIDSet for the given server.
      */
     public UUIDSet putUUIDSet(UUIDSet uuidSet) {
+        checkMutable();
+        string = null;
+        snapshot = null;
         return map.put(uuidSet.getServerId(), uuidSet);
     }
 
@@ -115,11 +147,80 @@ public class GtidSet {
     }
 
     private boolean add(MySqlGtid mySqlGtid) {
-        UUIDSet uuidSet = map.get(mySqlGtid.getServerId());
+        return add(mySqlGtid.getServerId(), mySqlGtid.getTransactionId());
+    }
+
+    /**
+     * Same as {@link #add(String)} but without parsing/allocation (unless set has no GTIDs of the server yet or
+     * transaction id starts a new interval which doesn't fit into already allocated space).
+     * @return whether or not gtid was added to the set (false if it was already there)
+     */
+    public boolean add(UUID serverId, long transactionId) {
+        checkMutable();
+        UUIDSet uuidSet = map.get(serverId);
         if (uuidSet == null) {
-            map.put(mySqlGtid.getServerId(), uuidSet = new UUIDSet(mySqlGtid.getServerId(), new ArrayList<Interval>()));
+            map.put(serverId, uuidSet = new UUIDSet(serverId, 4));
         }
-        return uuidSet.add(mySqlGtid.getTransactionId());
+        if (uuidSet.add(transactionId)) {
+            string = null;
+            snapshot = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param other the other set of GTIDs; may be null
+     * @return new set of GTIDs present in this set, the other set or both
+     */
+    public GtidSet union(GtidSet other) {
+        GtidSet result = new GtidSet((String) null);
+        for (UUIDSet uuidSet : map.values()) {
+            UUIDSet thatSet = other != null ? other.map.get(uuidSet.getServerId()) : null;
+            result.map.put(uuidSet.getServerId(), UUIDSet.merge(uuidSet, thatSet, UUIDSet.UNION));
+        }
+        if (other != null) {
+            for (UUIDSet uuidSet : other.map.values()) {
+                if (!result.map.containsKey(uuidSet.getServerId())) {
+                    result.map.put(uuidSet.getServerId(), UUIDSet.merge(uuidSet, null, UUIDSet.UNION));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param other the other set of GTIDs; may be null
+     * @return new set of GTIDs present in both this and the other set
+     */
+    public GtidSet intersect(GtidSet other) {
+        GtidSet result = new GtidSet((String) null);
+        for (UUIDSet uuidSet : map.values()) {
+            UUIDSet thatSet = other != null ? other.map.get(uuidSet.getServerId()) : null;
+            if (thatSet != null) {
+                UUIDSet intersection = UUIDSet.merge(uuidSet, thatSet, UUIDSet.INTERSECTION);
+                if (intersection.size != 0) {
+                    result.map.put(uuidSet.getServerId(), intersection);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param other the other set of GTIDs; may be null
+     * @return new set of GTIDs present in this set but not in the other one
+     */
+    public GtidSet subtract(GtidSet other) {
+        GtidSet result = new GtidSet((String) null);
+        for (UUIDSet uuidSet : map.values()) {
+            UUIDSet thatSet = other != null ? other.map.get(uuidSet.getServerId()) : null;
+            UUIDSet difference = UUIDSet.merge(uuidSet, thatSet, UUIDSet.DIFFERENCE);
+            if (difference.size != 0) {
+                result.map.put(uuidSet.getServerId(), difference);
+            }
+        }
+        return result;
     }
 
     /**
@@ -167,109 +268,240 @@ public class GtidSet {
 
     @Override
     public String toString() {
-        List<String> gtids = new ArrayList<String>();
-        for (UUIDSet uuidSet : map.values()) {
-            gtids.add(uuidSet.getServerId() + ":" + join(uuidSet.intervals, ":"));
+        String result = string;
+        if (result == null) {
+            StringBuilder sb = new StringBuilder();
+            for (UUIDSet uuidSet : map.values()) {
+                if (sb.length() != 0) {
+                    sb.append(',');
+                }
+                uuidSet.appendTo(sb);
+            }
+            string = result = sb.toString();
         }
-        return join(gtids, ",");
+        return result;
     }
 
     public String toSeenString() {
         return this.toString();
     }
 
-    private static String join(Collection<?> o, String delimiter) {
-        if (o.isEmpty()) {
-            return "";
-        }
-        StringBuilder sb = new StringBuilder();
-        for (Object o1 : o) {
-            sb.append(o1).append(delimiter);
-        }
-        return sb.substring(0, sb.length() - delimiter.length());
-    }
-
     /**
      * A range of GTIDs for a single server with a specific UUID.
+     * Intervals are kept sorted (and non-adjacent) in two parallel arrays of primitive longs.
      * @see GtidSet
      */
     public static final class UUIDSet {
 
+        private static final int UNION = 0;
+        private static final int INTERSECTION = 1;
+        private static final int DIFFERENCE = 2;
+
         private final UUID uuid;
-        private final List<Interval> intervals;
+        private long[] starts;
+        private long[] ends; // ends[size - 1] is not kept up to date (see lastEnd)
+        private int size;
+        private long lastEnd;
+        // arrays are referenced by snapshot(s) (and so only the tail (past size - 1) can be modified in place)
+        private boolean shared;
+        // arrays are referenced by the UUIDSet which took the snapshot (and so even the tail can't be modified)
+        private boolean tailShared;
+        private UUIDSet snapshot; // (cached) snapshot of the current state
 
         public UUIDSet(String uuid, List<Interval> intervals) {
             this(UUID.fromString(uuid), intervals);
         }
 
         public UUIDSet(UUID uuid, List<Interval> intervals) {
+            this(uuid, intervals.size());
+            List<Interval> sorted = new ArrayList<Interval>(intervals);
+            Collections.sort(sorted);
+            for (Interval interval : sorted) {
+                addInterval(interval.getStart(), interval.getEnd());
+            }
+        }
+
+        private UUIDSet(UUID uuid, int capacity) {
             this.uuid = uuid;
-            this.intervals = intervals;
-            if (intervals.size() > 1) {
-                joinAdjacentIntervals(0);
+            this.starts = new long[Math.max(capacity, 1)];
+            this.ends = new long[starts.length];
+        }
+
+        private UUIDSet(UUIDSet uuidSet) {
+            this.uuid = uuidSet.uuid;
+            this.starts = uuidSet.starts;
+            this.ends = uuidSet.ends;
+            this.size = uuidSet.size;
+            this.lastEnd = uuidSet.lastEnd;
+            this.shared = true;
+            this.tailShared = true;
+        }
+
+        /**
+         * @return UUIDSet which is not affected by the subsequent modifications of this one. Arrays are shared
+         * (until either of UUIDSets needs to change anything but the last interval or append a new one), which makes
+         * it O(1).
+         */
+        private UUIDSet snapshot() {
+            UUIDSet result = snapshot;
+            if (result == null) {
+                shared = true;
+                snapshot = result = new UUIDSet(this);
             }
+            return result;
         }
 
-        private boolean add(long transactionId) {
-            int index = findInterval(transactionId);
-            boolean addedToExisting = false;
-            if (index < intervals.size()) {
-                Interval interval = intervals.get(index);
-                if (interval.start == transactionId + 1) {
-                    interval.start = transactionId;
-                    addedToExisting = true;
-                } else
-                if (interval.end + 1 == transactionId) {
-                    interval.end = transactionId;
-                    addedToExisting = true;
-                } else
-                if (interval.start <= transactionId && transactionId <= interval.end) {
-                    return false;
+        private long end(int interval) {
+            return interval == size - 1 ? lastEnd : ends[interval];
+        }
+
+        /**
+         * Appends interval (which must not start before the last one does), joining it with the last one if they
+         * overlap or are adjacent.
+         */
+        private void addInterval(long start, long end) {
+            if (size != 0 && start <= lastEnd + 1) {
+                if (end > lastEnd) {
+                    lastEnd = end;
                 }
+                return;
             }
-            if (!addedToExisting) {
-                intervals.add(index, new Interval(transactionId, transactionId));
+            if (tailShared) {
+                unshare();
             }
-            if (intervals.size() > 1) {
-                joinAdjacentIntervals(index);
+            ensureCapacity(size + 1);
+            if (size != 0) {
+                ends[size - 1] = lastEnd;
+            }
+            starts[size] = start;
+            ends[size] = end;
+            lastEnd = end;
+            size++;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > starts.length) {
+                int newCapacity = Math.max(capacity, starts.length + (starts.length >> 1) + 1);
+                starts = Arrays.copyOf(starts, newCapacity);
+                ends = Arrays.copyOf(ends, newCapacity);
+                shared = tailShared = false;
             }
-            return true;
         }
 
-        /**
-         * Collapses intervals like a-(b-1):b-c into a-c (only in index+-1 range).
-         */
-        private void joinAdjacentIntervals(int index) {
-            for (int i = Math.min(index + 1, intervals.size() - 1), e = Math.max(index - 1, 0); i > e; i--) {
-                Interval a = intervals.get(i - 1), b = intervals.get(i);
-                if (a.end + 1 == b.start) {
-                    a.end = b.end;
-                    intervals.remove(i);
+        private void unshare() {
+            starts = starts.clone();
+            ends = ends.clone();
+            shared = tailShared = false;
+        }
+
+        private boolean add(long transactionId) {
+            if (size != 0 && transactionId > lastEnd) { // transaction ids are usually monotonic
+                if (transactionId == lastEnd + 1) {
+                    lastEnd = transactionId;
+                } else {
+                    addInterval(transactionId, transactionId);
                 }
+                snapshot = null;
+                return true;
+            }
+            int index = findInterval(transactionId);
+            if (index < size && starts[index] <= transactionId) {
+                return false;
+            }
+            if (shared) {
+                unshare();
             }
+            if (size != 0) {
+                ends[size - 1] = lastEnd;
+            }
+            boolean joinsPrevious = index > 0 && ends[index - 1] + 1 == transactionId;
+            boolean joinsNext = index < size && starts[index] == transactionId + 1;
+            if (joinsPrevious && joinsNext) {
+                ends[index - 1] = ends[index];
+                System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+                System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+                size--;
+            } else if (joinsPrevious) {
+                ends[index - 1] = transactionId;
+            } else if (joinsNext) {
+                starts[index] = transactionId;
+            } else {
+                ensureCapacity(size + 1);
+                System.arraycopy(starts, index, starts, index + 1, size - index);
+                System.arraycopy(ends, index, ends, index + 1, size - index);
+                starts[index] = transactionId;
+                ends[index] = transactionId;
+                size++;
+            }
+            lastEnd = ends[size - 1];
+            snapshot = null;
+            return true;
         }
 
         /**
          * @return index which is either a pointer to the interval containing v or a position at which v can be added
          */
         private int findInterval(long v) {
-            int l = 0, p = 0, r = intervals.size();
+            int l = 0, r = size;
             while (l < r) {
-                p = (l + r) / 2;
-                Interval i = intervals.get(p);
-                if (i.end < v) {
+                int p = (l + r) >>> 1;
+                if (end(p) < v) {
                     l = p + 1;
-                } else
-                if (v < i.start) {
-                    r = p;
                 } else {
-                    return p;
+                    r = p;
                 }
             }
-            if (!intervals.isEmpty() && intervals.get(p).end < v) {
-                p++;
+            return l;
+        }
+
+        /**
+         * Linear merge of two sorted interval lists.
+         */
+        private static UUIDSet merge(UUIDSet a, UUIDSet b, int operation) {
+            UUIDSet result = new UUIDSet(a.uuid, a.size + (b != null ? b.size : 0));
+            int bSize = b != null ? b.size : 0;
+            if (operation == UNION) {
+                int i = 0, j = 0;
+                while (i < a.size || j < bSize) {
+                    if (j == bSize || i < a.size && a.starts[i] <= b.starts[j]) {
+                        result.addInterval(a.starts[i], a.end(i));
+                        i++;
+                    } else {
+                        result.addInterval(b.starts[j], b.end(j));
+                        j++;
+                    }
+                }
+            } else if (operation == INTERSECTION) {
+                for (int i = 0, j = 0; i < a.size && j < bSize;) {
+                    long start = Math.max(a.starts[i], b.starts[j]), end = Math.min(a.end(i), b.end(j));
+                    if (start <= end) {
+                        result.addInterval(start, end);
+                    }
+                    if (a.end(i) < b.end(j)) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+            } else {
+                int j = 0;
+                for (int i = 0; i < a.size; i++) {
+                    long start = a.starts[i], end = a.end(i);
+                    while (j < bSize && b.end(j) < start) {
+                        j++;
+                    }
+                    for (int k = j; k < bSize && b.starts[k] <= end && start <= end; k++) {
+                        if (b.starts[k] > start) {
+                            result.addInterval(start, b.starts[k] - 1);
+                        }
+                        start = b.end(k) + 1;
+                    }
+                    if (start <= end) {
+                        result.addInterval(start, end);
+                    }
+                }
             }
-            return p;
+            return result;
         }
 
         /**
@@ -291,7 +523,48 @@ public class GtidSet {
          * @return the immutable transaction intervals; never null
          */
         public List<Interval> getIntervals() {
-            return Collections.unmodifiableList(intervals);
+            List<Interval> result = new ArrayList<Interval>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(new Interval(starts[i], end(i)));
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        /**
+         * @return number of intervals
+         */
+        public int getIntervalCount() {
+            return size;
+        }
+
+        /**
+         * @return first transaction number of the interval (without allocating {@link Interval})
+         */
+        public long getStart(int interval) {
+            checkIndex(interval);
+            return starts[interval];
+        }
+
+        /**
+         * @return last transaction number of the interval (without allocating {@link Interval})
+         */
+        public long getEnd(int interval) {
+            checkIndex(interval);
+            return end(interval);
+        }
+
+        private void checkIndex(int interval) {
+            if (interval < 0 || interval >= size) {
+                throw new IndexOutOfBoundsException("Interval " + interval + " (out of " + size + ")");
+            }
+        }
+
+        /**
+         * @return whether or not transaction number is within one of the intervals
+         */
+        public boolean contains(long transactionId) {
+            int index = findInterval(transactionId);
+            return index < size && starts[index] <= transactionId;
         }
 
         /**
@@ -309,22 +582,12 @@ public class GtidSet {
                 // not even the same server ...
                 return false;
             }
-            if (this.intervals.isEmpty()) {
-                return true;
-            }
-            if (other.intervals.isEmpty()) {
-                return false;
-            }
             // every interval in this must be within an interval of the other ...
-            for (Interval thisInterval : this.intervals) {
-                boolean found = false;
-                for (Interval otherInterval : other.intervals) {
-                    if (thisInterval.isContainedWithin(otherInterval)) {
-                        found = true;
-                        break;
-                    }
+            for (int i = 0, j = 0; i < this.size; i++) {
+                while (j < other.size && other.end(j) < this.starts[i]) {
+                    j++;
                 }
-                if (!found) {
+                if (j == other.size || other.starts[j] > this.starts[i] || other.end(j) < this.end(i)) {
                     return false; // didn't find a match
                 }
             }
@@ -343,27 +606,33 @@ public class GtidSet {
             }
             if (obj instanceof UUIDSet) {
                 UUIDSet that = (UUIDSet) obj;
-                return this.uuid.equals(that.uuid) &&
-                    this.getIntervals().equals(that.getIntervals());
+                if (!this.uuid.equals(that.uuid) || this.size != that.size) {
+                    return false;
+                }
+                for (int i = 0; i < size; i++) {
+                    if (this.starts[i] != that.starts[i] || this.end(i) != that.end(i)) {
+                        return false;
+                    }
+                }
+                return true;
             }
             return super.equals(obj);
         }
 
+        private void appendTo(StringBuilder sb) {
+            sb.append(uuid).append(':');
+            for (int i = 0; i < size; i++) {
+                if (i != 0) {
+                    sb.append(':');
+                }
+                sb.append(starts[i]).append('-').append(end(i));
+            }
+        }
+
         @Override
         public String toString() {
             StringBuilder sb = new StringBuilder();
-            if (sb.length() != 0) {
-                sb.append(',');
-            }
-            sb.append(uuid).append(':');
-            Iterator<Interval> iter = intervals.iterator();
-            if (iter.hasNext()) {
-                sb.append(iter.next());
-            }
-            while (iter.hasNext()) {
-                sb.append(':');
-                sb.append(iter.next());
-            }
+            appendTo(sb);
             return sb.toString();
         }
     }
@@ -374,8 +643,8 @@ public class GtidSet {
      */
     public static final class Interval implements Comparable<Interval> {
 
-        private long start;
-        private long end;
+        private final long start;
+        private final long end;
 
         public Interval(long start, long end) {
             this.start = start;
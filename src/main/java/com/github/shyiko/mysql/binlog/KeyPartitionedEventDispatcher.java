@@ -0,0 +1,524 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.DeleteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventHeader;
+import com.github.shyiko.mysql.binlog.event.QueryEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+import com.github.shyiko.mysql.binlog.event.TransactionPayloadEventData;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer.EventDataWrapper;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link BinaryLogClient.EventListener} which splits rows events by primary key and passes them to the listener
+ * from N threads (partitions), so that changes of the same row are delivered in order (by the same thread) while
+ * changes of different rows are delivered in parallel. Usage:
+ * <pre>
+ * binaryLogClient.registerEventListener(new KeyPartitionedEventDispatcher(eventListener, 8));
+ * </pre>
+ * Primary key columns are taken from TABLE_MAP metadata (see {@link TableMapEventMetadata#getSimplePrimaryKeys()}
+ * and {@link TableMapEventMetadata#getPrimaryKeysWithPrefix()}), which requires binlog_row_metadata=FULL (MySQL
+ * 8.0.1+). Rows of the tables without primary key (or metadata) are routed by table (i.e. all to the same
+ * partition).
+ * <p>
+ * Each partition receives (EXT_)WRITE_ROWS/UPDATE_ROWS/DELETE_ROWS events carrying only the rows routed to it
+ * (header is shared with the original event), each preceded by the TABLE_MAP it refers to (unless that TABLE_MAP
+ * was already passed to the partition). UPDATE changing the key from one partition to another is delivered
+ * (once, by the partition of the new key) only after all the preceding changes of the old key have been, and
+ * before any of the subsequent ones are. DDL (QUERY other than BEGIN/COMMIT/ROLLBACK) is delivered once all the
+ * preceding events have been, and before any of the subsequent ones are. Other events are not passed on.
+ * Events inside TRANSACTION_PAYLOAD (binlog_transaction_compression=ON) are dispatched the same way.
+ * <p>
+ * Since transaction boundaries (XID, COMMIT) are not passed on, call {@link #flush()} before acting on them (e.g.
+ * before persisting {@link BinaryLogClient#getPosition()}).
+ */
+public class KeyPartitionedEventDispatcher implements BinaryLogClient.EventListener, Flushable, Closeable {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final BinaryLogClient.EventListener eventListener;
+    private final Partition[] partitions;
+
+    private final Map<Long, Event> tableMapEventByTableId = new HashMap<Long, Event>();
+    private final Map<Long, KeyColumns> keyColumnsByTableId = new HashMap<Long, KeyColumns>();
+
+    public KeyPartitionedEventDispatcher(BinaryLogClient.EventListener eventListener, int numberOfPartitions) {
+        this(eventListener, numberOfPartitions, 1024);
+    }
+
+    /**
+     * @param eventListener listener to pass events to (concurrently, from the partition threads)
+     * @param numberOfPartitions number of partitions (threads)
+     * @param queueCapacity maximum number of events waiting to be delivered (per partition).
+     * {@link #onEvent(Event)} blocks once the limit is reached.
+     */
+    public KeyPartitionedEventDispatcher(BinaryLogClient.EventListener eventListener, int numberOfPartitions,
+            int queueCapacity) {
+        if (eventListener == null) {
+            throw new IllegalArgumentException("Event listener cannot be NULL");
+        }
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be greater than 0");
+        }
+        this.eventListener = eventListener;
+        this.partitions = new Partition[numberOfPartitions];
+        for (int i = 0; i < numberOfPartitions; i++) {
+            partitions[i] = new Partition(i, queueCapacity);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        EventHeader eventHeader = event.getHeader();
+        EventData eventData = EventDataWrapper.internal(event.getData());
+        if (eventData instanceof TransactionPayloadEventData) {
+            TransactionPayloadEventData.EventIterator iterator = ((TransactionPayloadEventData) eventData).iterator();
+            try {
+                while (iterator.hasNext()) {
+                    onEvent(iterator.next());
+                }
+            } finally {
+                iterator.close();
+            }
+            return;
+        }
+        if (eventData instanceof TableMapEventData) {
+            tableMapEventByTableId.put(((TableMapEventData) eventData).getTableId(), event);
+            return;
+        }
+        try {
+            if (eventData instanceof WriteRowsEventData) {
+                dispatchWriteRows(eventHeader, (WriteRowsEventData) eventData);
+            } else
+            if (eventData instanceof UpdateRowsEventData) {
+                dispatchUpdateRows(eventHeader, (UpdateRowsEventData) eventData);
+            } else
+            if (eventData instanceof DeleteRowsEventData) {
+                dispatchDeleteRows(eventHeader, (DeleteRowsEventData) eventData);
+            } else
+            if (eventData instanceof QueryEventData && isDDL((QueryEventData) eventData)) {
+                fence(event, partitions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while dispatching " + event, e);
+        }
+    }
+
+    private static boolean isDDL(QueryEventData eventData) {
+        String sql = eventData == null ? null : eventData.getSql();
+        return sql != null && !"BEGIN".equals(sql) && !"COMMIT".equals(sql) && !"ROLLBACK".equals(sql);
+    }
+
+    private void dispatchWriteRows(EventHeader eventHeader, WriteRowsEventData eventData)
+            throws InterruptedException {
+        Event tableMapEvent = tableMapEventByTableId.get(eventData.getTableId());
+        Router router = router(eventData.getTableId(), tableMapEvent, eventData.getIncludedColumns());
+        List<List<Serializable[]>> rowsByPartition = new ArrayList<List<Serializable[]>>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            rowsByPartition.add(new ArrayList<Serializable[]>());
+        }
+        for (Serializable[] row : eventData.getRows()) {
+            rowsByPartition.get(router.partition(row)).add(row);
+        }
+        for (int i = 0; i < partitions.length; i++) {
+            List<Serializable[]> rows = rowsByPartition.get(i);
+            if (!rows.isEmpty()) {
+                WriteRowsEventData partitionEventData = new WriteRowsEventData();
+                partitionEventData.setTableId(eventData.getTableId());
+                partitionEventData.setIncludedColumns(eventData.getIncludedColumns());
+                partitionEventData.setRows(rows);
+                deliver(partitions[i], tableMapEvent, new Event(eventHeader, partitionEventData));
+            }
+        }
+    }
+
+    private void dispatchDeleteRows(EventHeader eventHeader, DeleteRowsEventData eventData)
+            throws InterruptedException {
+        Event tableMapEvent = tableMapEventByTableId.get(eventData.getTableId());
+        Router router = router(eventData.getTableId(), tableMapEvent, eventData.getIncludedColumns());
+        List<List<Serializable[]>> rowsByPartition = new ArrayList<List<Serializable[]>>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            rowsByPartition.add(new ArrayList<Serializable[]>());
+        }
+        for (Serializable[] row : eventData.getRows()) {
+            rowsByPartition.get(router.partition(row)).add(row);
+        }
+        for (int i = 0; i < partitions.length; i++) {
+            List<Serializable[]> rows = rowsByPartition.get(i);
+            if (!rows.isEmpty()) {
+                DeleteRowsEventData partitionEventData = new DeleteRowsEventData();
+                partitionEventData.setTableId(eventData.getTableId());
+                partitionEventData.setIncludedColumns(eventData.getIncludedColumns());
+                partitionEventData.setRows(rows);
+                deliver(partitions[i], tableMapEvent, new Event(eventHeader, partitionEventData));
+            }
+        }
+    }
+
+    private void dispatchUpdateRows(EventHeader eventHeader, UpdateRowsEventData eventData)
+            throws InterruptedException {
+        long tableId = eventData.getTableId();
+        Event tableMapEvent = tableMapEventByTableId.get(tableId);
+        Router beforeRouter = router(tableId, tableMapEvent, eventData.getIncludedColumnsBeforeUpdate());
+        Router afterRouter = router(tableId, tableMapEvent, eventData.getIncludedColumns());
+        List<List<Map.Entry<Serializable[], Serializable[]>>> rowsByPartition =
+            new ArrayList<List<Map.Entry<Serializable[], Serializable[]>>>(partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            rowsByPartition.add(new ArrayList<Map.Entry<Serializable[], Serializable[]>>());
+        }
+        for (Map.Entry<Serializable[], Serializable[]> row : eventData.getRows()) {
+            int before = beforeRouter.partition(row.getKey());
+            Integer after = afterRouter.cells != null ? afterRouter.partition(row.getValue()) : null;
+            if (after == null || after == before) {
+                rowsByPartition.get(before).add(row);
+                continue;
+            }
+            // key moved to another partition. rows collected so far have to be delivered first
+            deliverUpdateRows(eventHeader, eventData, tableMapEvent, rowsByPartition);
+            List<Map.Entry<Serializable[], Serializable[]>> rows =
+                new ArrayList<Map.Entry<Serializable[], Serializable[]>>();
+            rows.add(row);
+            Partition target = partitions[after];
+            sendTableMap(target, tableMapEvent);
+            fence(new Event(eventHeader, updateRowsEventData(eventData, rows)), target, partitions[before]);
+        }
+        deliverUpdateRows(eventHeader, eventData, tableMapEvent, rowsByPartition);
+    }
+
+    private void deliverUpdateRows(EventHeader eventHeader, UpdateRowsEventData eventData,
+            Event tableMapEvent, List<List<Map.Entry<Serializable[], Serializable[]>>> rowsByPartition)
+            throws InterruptedException {
+        for (int i = 0; i < partitions.length; i++) {
+            List<Map.Entry<Serializable[], Serializable[]>> rows = rowsByPartition.get(i);
+            if (!rows.isEmpty()) {
+                deliver(partitions[i], tableMapEvent,
+                    new Event(eventHeader, updateRowsEventData(eventData, new ArrayList<Map.Entry<Serializable[],
+                        Serializable[]>>(rows))));
+                rows.clear();
+            }
+        }
+    }
+
+    private static UpdateRowsEventData updateRowsEventData(UpdateRowsEventData eventData,
+            List<Map.Entry<Serializable[], Serializable[]>> rows) {
+        UpdateRowsEventData result = new UpdateRowsEventData();
+        result.setTableId(eventData.getTableId());
+        result.setIncludedColumnsBeforeUpdate(eventData.getIncludedColumnsBeforeUpdate());
+        result.setIncludedColumns(eventData.getIncludedColumns());
+        result.setRows(rows);
+        return result;
+    }
+
+    private void deliver(Partition partition, Event tableMapEvent, final Event event)
+            throws InterruptedException {
+        sendTableMap(partition, tableMapEvent);
+        partition.queue.put(new Runnable() {
+
+            @Override
+            public void run() {
+                notifyEventListener(event);
+            }
+        });
+    }
+
+    private void sendTableMap(Partition partition, final Event tableMapEvent) throws InterruptedException {
+        if (tableMapEvent == null) {
+            return;
+        }
+        long tableId = tableMapEventData(tableMapEvent).getTableId();
+        if (partition.tableMapEventByTableId.get(tableId) == tableMapEvent) {
+            return;
+        }
+        partition.tableMapEventByTableId.put(tableId, tableMapEvent);
+        partition.queue.put(new Runnable() {
+
+            @Override
+            public void run() {
+                notifyEventListener(tableMapEvent);
+            }
+        });
+    }
+
+    /**
+     * Delivers event from the first of the given partitions once all of them have processed what was queued
+     * before it. Other partitions are held until the event is delivered.
+     */
+    private void fence(final Event event, Partition... participants) throws InterruptedException {
+        final CountDownLatch reached = new CountDownLatch(participants.length - 1);
+        final CountDownLatch delivered = new CountDownLatch(1);
+        for (int i = 1; i < participants.length; i++) {
+            participants[i].queue.put(new Runnable() {
+
+                @Override
+                public void run() {
+                    reached.countDown();
+                    await(delivered);
+                }
+            });
+        }
+        participants[0].queue.put(new Runnable() {
+
+            @Override
+            public void run() {
+                await(reached);
+                try {
+                    notifyEventListener(event);
+                } finally {
+                    delivered.countDown();
+                }
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static TableMapEventData tableMapEventData(Event tableMapEvent) {
+        return (TableMapEventData) EventDataWrapper.internal(tableMapEvent.getData());
+    }
+
+    private Router router(long tableId, Event tableMapEvent, BitSet includedColumns) {
+        TableMapEventData tableMapEventData = tableMapEvent != null ? tableMapEventData(tableMapEvent) : null;
+        if (tableMapEventData == null) {
+            return new Router(Long.valueOf(tableId).hashCode(), null, null);
+        }
+        KeyColumns keyColumns = keyColumnsByTableId.get(tableId);
+        if (keyColumns == null || keyColumns.tableMapEvent != tableMapEventData) {
+            keyColumns = new KeyColumns(tableMapEventData);
+            keyColumnsByTableId.put(tableId, keyColumns);
+        }
+        return new Router((tableMapEventData.getDatabase() + "." + tableMapEventData.getTable()).hashCode(),
+            keyColumns, keyColumns.cells(includedColumns));
+    }
+
+    private void notifyEventListener(Event event) {
+        try {
+            eventListener.onEvent(event);
+        } catch (Exception e) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, eventListener + " choked on " + event, e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the events passed to {@link #onEvent(Event)} so far to be delivered.
+     */
+    @Override
+    public void flush() throws IOException {
+        final CountDownLatch drained = new CountDownLatch(partitions.length);
+        try {
+            for (Partition partition : partitions) {
+                partition.queue.put(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        drained.countDown();
+                    }
+                });
+            }
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for events to be delivered");
+        }
+    }
+
+    /**
+     * Waits for the queued events to be delivered and stops partition threads.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (Partition partition : partitions) {
+                partition.queue.put(Partition.STOP);
+            }
+            for (Partition partition : partitions) {
+                partition.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for events to be delivered");
+        }
+    }
+
+    private static final class KeyColumns {
+
+        private final TableMapEventData tableMapEvent;
+        private final int[] columns; // null if unknown
+        private final int[] prefixLengths; // 0 means the whole value
+
+        private KeyColumns(TableMapEventData tableMapEvent) {
+            this.tableMapEvent = tableMapEvent;
+            TableMapEventMetadata eventMetadata = tableMapEvent.getEventMetadata();
+            Map<Integer, Integer> prefixLengthByColumn = new TreeMap<Integer, Integer>();
+            if (eventMetadata != null && eventMetadata.getSimplePrimaryKeys() != null) {
+                for (Integer column : eventMetadata.getSimplePrimaryKeys()) {
+                    prefixLengthByColumn.put(column, 0);
+                }
+            }
+            if (eventMetadata != null && eventMetadata.getPrimaryKeysWithPrefix() != null) {
+                prefixLengthByColumn.putAll(eventMetadata.getPrimaryKeysWithPrefix());
+            }
+            if (prefixLengthByColumn.isEmpty()) {
+                this.columns = null;
+                this.prefixLengths = null;
+                return;
+            }
+            this.columns = new int[prefixLengthByColumn.size()];
+            this.prefixLengths = new int[columns.length];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : prefixLengthByColumn.entrySet()) {
+                columns[i] = entry.getKey();
+                prefixLengths[i++] = entry.getValue();
+            }
+        }
+
+        /**
+         * @return positions of the key columns within the row image, null if key is unknown or image doesn't
+         * contain all of its columns
+         */
+        private int[] cells(BitSet includedColumns) {
+            if (columns == null) {
+                return null;
+            }
+            int[] result = new int[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (!includedColumns.get(columns[i])) {
+                    return null;
+                }
+                int index = 0;
+                for (int column = includedColumns.nextSetBit(0); column < columns[i];
+                     column = includedColumns.nextSetBit(column + 1)) {
+                    index++;
+                }
+                result[i] = index;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Maps rows of a particular rows event to partitions (key cells are located once per event).
+     */
+    private final class Router {
+
+        private final int tableHash;
+        private final KeyColumns keyColumns;
+        private final int[] cells; // null if rows are routed by table
+
+        private Router(int tableHash, KeyColumns keyColumns, int[] cells) {
+            this.tableHash = tableHash;
+            this.keyColumns = keyColumns;
+            this.cells = cells;
+        }
+
+        /**
+         * @return values of the primary key columns, null if table has no (known) primary key or image doesn't
+         * contain all of its columns
+         */
+        private Object[] key(Serializable[] row) {
+            if (cells == null) {
+                return null;
+            }
+            Object[] result = new Object[cells.length];
+            for (int i = 0; i < result.length; i++) {
+                int index = cells[i];
+                Serializable value = index < row.length ? row[index] : null;
+                int prefixLength = keyColumns.prefixLengths[i];
+                if (prefixLength > 0 && value instanceof byte[] && ((byte[]) value).length > prefixLength) {
+                    value = Arrays.copyOf((byte[]) value, prefixLength);
+                } else
+                if (prefixLength > 0 && value instanceof String && ((String) value).length() > prefixLength) {
+                    value = ((String) value).substring(0, prefixLength);
+                }
+                result[i] = value;
+            }
+            return result;
+        }
+
+        private int partition(Serializable[] row) {
+            Object[] key = key(row);
+            int hash = key == null ? tableHash : Arrays.deepHashCode(key);
+            hash *= 0x9E3779B9; // spreading bits
+            return (hash >>> 1) % partitions.length;
+        }
+    }
+
+    private static final class Partition implements Runnable {
+
+        private static final Runnable STOP = new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        };
+
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+        // TABLE_MAPs passed to the partition (accessed by dispatching thread only)
+        private final Map<Long, Event> tableMapEventByTableId = new HashMap<Long, Event>();
+
+        private Partition(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<Runnable>(queueCapacity);
+            this.thread = new Thread(this, "blc-partition-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (Runnable task; (task = queue.take()) != STOP; ) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
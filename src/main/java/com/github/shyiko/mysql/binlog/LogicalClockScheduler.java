@@ -0,0 +1,241 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TransactionAssembler.TransactionListener} which applies transactions concurrently (using given
+ * applier and a pool of worker threads) while respecting dependencies recorded by the source server (in the same
+ * way multi-threaded replica does with replica_parallel_type=LOGICAL_CLOCK): transaction is started only after
+ * every transaction its {@link Transaction#getLastCommitted() lastCommitted} refers to has been applied. Usage:
+ * <pre>
+ * LogicalClockScheduler scheduler = new LogicalClockScheduler(applier, 8);
+ * scheduler.setGtidSet(binaryLogClient.getGtidSet());
+ * transactionAssembler.registerTransactionListener(scheduler);
+ * ...
+ * scheduler.getCheckpoint(); // GTID set it's safe to resume from
+ * </pre>
+ * With GTID mode off logical clock comes with ANONYMOUS_GTID events, data of which is not deserialized by default:
+ * <pre>
+ * eventDeserializer.setEventDataDeserializer(EventType.ANONYMOUS_GTID, new GtidEventDataDeserializer());
+ * </pre>
+ * Transactions without logical clock (MySQL prior to 5.7.6, MariaDB) as well as the first transaction of each
+ * binary log file (sequence numbers restart with every file) are applied once all the preceding transactions
+ * are. Same goes for spilled transactions (see {@link Transaction#isSpilled()}), which are also applied
+ * before {@link #onTransaction(Transaction)} returns (as their events cannot be accessed afterwards).
+ * <p>
+ * If applier throws, scheduler stops accepting transactions ({@link #onTransaction(Transaction)} throws
+ * {@link IllegalStateException}) and checkpoint stays at the last transaction preceding the failed one.
+ */
+public class LogicalClockScheduler implements TransactionAssembler.TransactionListener, Closeable {
+
+    private final TransactionAssembler.TransactionListener applier;
+    private final ExecutorService executor;
+    private int maxTransactionsInFlight;
+
+    private final Object lock = new Object();
+    private final Deque<Task> tasks = new ArrayDeque<Task>(); // dispatched but not yet checkpointed (in order)
+    private long lastDispatchedSequenceNumber;
+    private long lastAppliedSequenceNumber; // all transactions up to (and including) this one have been applied
+    private GtidSet gtidSet;
+    private Throwable failure;
+
+    /**
+     * @param applier listener to pass transactions to (concurrently, from the worker threads)
+     * @param numberOfThreads number of worker threads
+     */
+    public LogicalClockScheduler(TransactionAssembler.TransactionListener applier, int numberOfThreads) {
+        if (applier == null) {
+            throw new IllegalArgumentException("Applier cannot be NULL");
+        }
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than 0");
+        }
+        this.applier = applier;
+        this.executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "blc-applier-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.maxTransactionsInFlight = numberOfThreads * 4;
+    }
+
+    /**
+     * @param maxTransactionsInFlight maximum number of transactions dispatched but not yet checkpointed (i.e. either
+     * being applied or waiting for the preceding ones to be), 4 x numberOfThreads by default.
+     * {@link #onTransaction(Transaction)} blocks once the limit is reached.
+     */
+    public void setMaxTransactionsInFlight(int maxTransactionsInFlight) {
+        if (maxTransactionsInFlight < 1) {
+            throw new IllegalArgumentException("Maximum number of transactions in flight must be greater than 0");
+        }
+        synchronized (lock) {
+            this.maxTransactionsInFlight = maxTransactionsInFlight;
+        }
+    }
+
+    /**
+     * @param gtidSet GTID set to start checkpointing from (e.g. the one {@link BinaryLogClient} was started with),
+     * null/empty by default
+     */
+    public void setGtidSet(String gtidSet) {
+        synchronized (lock) {
+            this.gtidSet = gtidSet == null || gtidSet.isEmpty() ? null : GtidSet.parse(gtidSet);
+        }
+    }
+
+    /**
+     * @return (immutable) GTID set of the transactions that have been applied along with every transaction
+     * preceding them (i.e. GTID set it's safe to resume replication from), null if there were no GTIDs so far
+     */
+    public GtidSet getCheckpoint() {
+        synchronized (lock) {
+            return gtidSet == null ? null : gtidSet.snapshot();
+        }
+    }
+
+    /**
+     * Blocks until transaction can be dispatched (that is, until all the transactions it depends on have been
+     * applied).
+     */
+    @Override
+    public void onTransaction(Transaction transaction) {
+        long lastCommitted = transaction.getLastCommitted(), sequenceNumber = transaction.getSequenceNumber();
+        // sequenceNumber 0 - no logical clock, sequenceNumber going back - binary log file has changed
+        boolean barrier = sequenceNumber == 0 || sequenceNumber <= lastDispatchedSequenceNumber ||
+            transaction.isSpilled();
+        Task task = new Task(transaction);
+        synchronized (lock) {
+            if (barrier) {
+                while (!tasks.isEmpty()) {
+                    await();
+                }
+                lastAppliedSequenceNumber = 0;
+            }
+            while (tasks.size() >= maxTransactionsInFlight ||
+                    (!tasks.isEmpty() && lastCommitted > lastAppliedSequenceNumber)) {
+                await();
+            }
+            checkFailure();
+            tasks.add(task);
+        }
+        lastDispatchedSequenceNumber = sequenceNumber == 0 || transaction.isSpilled() ?
+            Long.MAX_VALUE : sequenceNumber;
+        executor.execute(task);
+        if (transaction.isSpilled()) {
+            synchronized (lock) {
+                while (!tasks.isEmpty()) {
+                    await();
+                }
+                checkFailure();
+            }
+        }
+    }
+
+    // must be called while holding the lock
+    private void await() {
+        checkFailure();
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transactions to be applied", e);
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Failed to apply transaction", failure);
+        }
+    }
+
+    /**
+     * Waits for the dispatched transactions to be applied (unless one of them fails) and shuts down worker threads.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            while (!tasks.isEmpty() && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for transactions to be applied");
+                }
+            }
+        }
+        executor.shutdown();
+    }
+
+    private final class Task implements Runnable {
+
+        private final Transaction transaction;
+        private boolean applied;
+
+        private Task(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void run() {
+            try {
+                applier.onTransaction(transaction);
+            } catch (Throwable e) {
+                synchronized (lock) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                applied = true;
+                while (!tasks.isEmpty() && tasks.peek().applied) {
+                    Task task = tasks.poll();
+                    String gtid = task.transaction.getGtid();
+                    if (gtid != null) {
+                        if (gtidSet == null) {
+                            gtidSet = GtidSet.parse(gtid);
+                        } else {
+                            gtidSet.addGtid(gtid);
+                        }
+                    }
+                    if (task.transaction.getSequenceNumber() != 0) {
+                        lastAppliedSequenceNumber = task.transaction.getSequenceNumber();
+                    }
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+}
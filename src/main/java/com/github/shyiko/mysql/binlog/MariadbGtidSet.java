@@ -130,6 +130,24 @@ public class MariadbGtidSet extends GtidSet {
         addToSeenSet(gtid);
     }
 
+    /**
+     * @return deep copy of this set (MariaDB GTID set is small, one GTID per domain/server)
+     */
+    @Override
+    GtidSet snapshot() {
+        MariadbGtidSet result = new MariadbGtidSet();
+        for (Map.Entry<Long, MariaGtid> entry : positionMap.entrySet()) {
+            MariaGtid gtid = entry.getValue();
+            result.positionMap.put(entry.getKey(), new MariaGtid(gtid.domainId, gtid.serverId, gtid.sequence));
+        }
+        for (LinkedHashMap<Long, MariaGtid> domainMap : seenMap.values()) {
+            for (MariaGtid gtid : domainMap.values()) {
+                result.addToSeenSet(new MariaGtid(gtid.domainId, gtid.serverId, gtid.sequence));
+            }
+        }
+        return result;
+    }
+
     /*
         we're trying to ask "is this position behind the other position?"
         - if we have a domain that the other doesn't, we're probably "ahead".
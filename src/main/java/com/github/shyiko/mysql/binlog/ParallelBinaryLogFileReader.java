@@ -0,0 +1,410 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded counterpart of {@link BinaryLogFileReader}, meant for (re)processing binary log files as fast as
+ * possible (e.g. backfills).
+ * <p>
+ * File is first scanned sequentially, reading event headers only, in order to split it into segments of (roughly)
+ * {@link #setSegmentSize(long) segmentSize} bytes, each starting at a transaction boundary (GTID/ANONYMOUS_GTID/
+ * MARIADB_GTID event or event following XID). Segments are then deserialized concurrently, each by its own
+ * {@link EventDeserializer} (primed with FORMAT_DESCRIPTION and the TABLE_MAPs in effect at the start of the
+ * segment).
+ */
+public class ParallelBinaryLogFileReader {
+
+    private static final int EVENT_HEADER_LENGTH = 19;
+    private static final int EVENT_TYPE_OFFSET = 4;
+    private static final int EVENT_LENGTH_OFFSET = 9;
+    private static final int TABLE_ID_LENGTH = 6;
+
+    private final File file;
+    private final int numberOfThreads;
+    private final EventDeserializerFactory eventDeserializerFactory;
+    private long segmentSize = 4 * 1024 * 1024;
+
+    public ParallelBinaryLogFileReader(File file, int numberOfThreads) {
+        this(file, numberOfThreads, new EventDeserializerFactory() {
+
+            @Override
+            public EventDeserializer createEventDeserializer() {
+                return new EventDeserializer();
+            }
+        });
+    }
+
+    /**
+     * @param eventDeserializerFactory factory used to create {@link EventDeserializer} for each segment
+     * (as {@link EventDeserializer}s are stateful and must not be shared between threads)
+     */
+    public ParallelBinaryLogFileReader(File file, int numberOfThreads,
+            EventDeserializerFactory eventDeserializerFactory) {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be NULL");
+        }
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be greater than 0");
+        }
+        if (eventDeserializerFactory == null) {
+            throw new IllegalArgumentException("Event deserializer factory cannot be NULL");
+        }
+        this.file = file;
+        this.numberOfThreads = numberOfThreads;
+        this.eventDeserializerFactory = eventDeserializerFactory;
+    }
+
+    /**
+     * @param segmentSize (approximate) number of bytes deserialized as a single unit of work (4MB by default).
+     * Note that up to 2 x numberOfThreads segments are kept in memory (as deserialized events) by
+     * {@link #read(BinaryLogClient.EventListener)}.
+     */
+    public void setSegmentSize(long segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("Segment size must be greater than 0");
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Reads the whole file, passing events to the listener (on the calling thread) in the order they appear in the
+     * file.
+     */
+    public void read(BinaryLogClient.EventListener eventListener) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ReaderThreadFactory());
+        Deque<Future<List<Event>>> futures = new ArrayDeque<Future<List<Event>>>();
+        try {
+            FileChannel channel = inputStream.getChannel();
+            Iterator<Segment> segments = split().iterator();
+            while (futures.size() < numberOfThreads << 1 && segments.hasNext()) {
+                futures.add(executor.submit(new SegmentTask(channel, segments.next(), null)));
+            }
+            while (!futures.isEmpty()) {
+                List<Event> events = await(futures.poll());
+                if (segments.hasNext()) {
+                    futures.add(executor.submit(new SegmentTask(channel, segments.next(), null)));
+                }
+                for (Event event : events) {
+                    eventListener.onEvent(event);
+                }
+            }
+        } finally {
+            for (Future<List<Event>> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Reads the whole file, passing events to the listener straight from the worker threads (meaning that listener
+     * must be thread-safe). Events of a segment (and so of a transaction) are delivered in order, by a single thread,
+     * but there are no guarantees as to the order of the segments themselves.
+     */
+    public void readUnordered(BinaryLogClient.EventListener eventListener) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ReaderThreadFactory());
+        List<Future<List<Event>>> futures = new ArrayList<Future<List<Event>>>();
+        try {
+            FileChannel channel = inputStream.getChannel();
+            for (Segment segment : split()) {
+                futures.add(executor.submit(new SegmentTask(channel, segment, eventListener)));
+            }
+            for (Future<List<Event>> future : futures) {
+                await(future);
+            }
+        } finally {
+            for (Future<List<Event>> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Scans event headers of the file (skipping event bodies (except for TABLE_MAP's table id)).
+     */
+    List<Segment> split() throws IOException {
+        List<Segment> result = new ArrayList<Segment>();
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        try {
+            byte[] header = new byte[EVENT_HEADER_LENGTH];
+            fill(inputStream, header, BinaryLogFileReader.MAGIC_HEADER.length);
+            if (!Arrays.equals(Arrays.copyOf(header, BinaryLogFileReader.MAGIC_HEADER.length),
+                    BinaryLogFileReader.MAGIC_HEADER)) {
+                throw new IOException("Not a valid binary log");
+            }
+            Map<Long, Long> tableMapPositionByTableId = new HashMap<Long, Long>();
+            long formatDescriptionPosition = -1;
+            long position = BinaryLogFileReader.MAGIC_HEADER.length, segmentStart = position;
+            long[] tableMapPositions = new long[0];
+            boolean transactionBoundary = true;
+            int firstByte;
+            while ((firstByte = inputStream.read()) != -1) {
+                header[0] = (byte) firstByte;
+                fill(inputStream, header, EVENT_HEADER_LENGTH - 1, 1);
+                EventType eventType = EventType.byEventNumber(header[EVENT_TYPE_OFFSET] & 0xFF);
+                long eventLength = littleEndianLong(header, EVENT_LENGTH_OFFSET, 4);
+                if (eventLength < EVENT_HEADER_LENGTH) {
+                    throw new IOException("Invalid event length " + eventLength + " at position " + position);
+                }
+                if (eventType == EventType.GTID || eventType == EventType.ANONYMOUS_GTID ||
+                        eventType == EventType.MARIADB_GTID) {
+                    transactionBoundary = true;
+                }
+                if (transactionBoundary && position - segmentStart >= segmentSize) {
+                    result.add(new Segment(segmentStart, position, formatDescriptionPosition, tableMapPositions));
+                    segmentStart = position;
+                    tableMapPositions = toArray(tableMapPositionByTableId.values());
+                }
+                long remaining = eventLength - EVENT_HEADER_LENGTH;
+                if (eventType == EventType.FORMAT_DESCRIPTION && formatDescriptionPosition == -1) {
+                    formatDescriptionPosition = position;
+                } else
+                if (eventType == EventType.TABLE_MAP && remaining >= TABLE_ID_LENGTH) {
+                    byte[] tableId = new byte[TABLE_ID_LENGTH];
+                    fill(inputStream, tableId, TABLE_ID_LENGTH);
+                    tableMapPositionByTableId.put(littleEndianLong(tableId, 0, TABLE_ID_LENGTH), position);
+                    remaining -= TABLE_ID_LENGTH;
+                }
+                skip(inputStream, remaining, position);
+                transactionBoundary = eventType == EventType.XID;
+                position += eventLength;
+            }
+            if (position > segmentStart) {
+                result.add(new Segment(segmentStart, position, formatDescriptionPosition, tableMapPositions));
+            }
+        } finally {
+            inputStream.close();
+        }
+        return result;
+    }
+
+    private static void fill(InputStream inputStream, byte[] bytes, int length) throws IOException {
+        fill(inputStream, bytes, length, 0);
+    }
+
+    private static void fill(InputStream inputStream, byte[] bytes, int length, int offset) throws IOException {
+        for (int read = 0; read < length; ) {
+            int n = inputStream.read(bytes, offset + read, length - read);
+            if (n == -1) {
+                throw new EOFException("Unexpected end of file");
+            }
+            read += n;
+        }
+    }
+
+    private static void skip(InputStream inputStream, long length, long position) throws IOException {
+        for (long remaining = length; remaining > 0; ) {
+            long skipped = inputStream.skip(remaining);
+            if (skipped <= 0) {
+                if (inputStream.read() == -1) {
+                    throw new EOFException("Event at position " + position + " exceeds the end of the file");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static long littleEndianLong(byte[] bytes, int offset, int length) {
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= ((long) (bytes[offset + i] & 0xFF)) << (i << 3);
+        }
+        return result;
+    }
+
+    private static long[] toArray(Iterable<Long> values) {
+        List<Long> list = new ArrayList<Long>();
+        for (Long value : values) {
+            list.add(value);
+        }
+        long[] result = new long[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        Arrays.sort(result); // so that TABLE_MAPs are replayed in the original order
+        return result;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for segment to be deserialized");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @see ParallelBinaryLogFileReader#ParallelBinaryLogFileReader(File, int, EventDeserializerFactory)
+     */
+    public interface EventDeserializerFactory {
+
+        EventDeserializer createEventDeserializer();
+    }
+
+    /**
+     * [from, to) range of the file which starts at a transaction boundary.
+     */
+    static final class Segment {
+
+        private final long from;
+        private final long to;
+        private final long formatDescriptionPosition; // -1 if there is none
+        private final long[] tableMapPositions; // TABLE_MAPs in effect at the start of the segment
+
+        private Segment(long from, long to, long formatDescriptionPosition, long[] tableMapPositions) {
+            this.from = from;
+            this.to = to;
+            this.formatDescriptionPosition = formatDescriptionPosition;
+            this.tableMapPositions = tableMapPositions;
+        }
+
+        long getFrom() {
+            return from;
+        }
+
+        long getTo() {
+            return to;
+        }
+    }
+
+    private final class SegmentTask implements Callable<List<Event>> {
+
+        private final FileChannel channel;
+        private final Segment segment;
+        private final BinaryLogClient.EventListener eventListener;
+
+        private SegmentTask(FileChannel channel, Segment segment, BinaryLogClient.EventListener eventListener) {
+            this.channel = channel;
+            this.segment = segment;
+            this.eventListener = eventListener;
+        }
+
+        /**
+         * @return events of the segment, null if they were passed to the event listener
+         */
+        @Override
+        public List<Event> call() throws IOException {
+            EventDeserializer eventDeserializer = eventDeserializerFactory.createEventDeserializer();
+            if (segment.formatDescriptionPosition != -1 && segment.formatDescriptionPosition < segment.from) {
+                eventDeserializer.nextEvent(new ByteArrayInputStream(readEvent(segment.formatDescriptionPosition)));
+            }
+            for (long tableMapPosition : segment.tableMapPositions) {
+                eventDeserializer.nextEvent(new ByteArrayInputStream(readEvent(tableMapPosition)));
+            }
+            if (segment.to - segment.from > Integer.MAX_VALUE) {
+                throw new IOException("Transaction starting at position " + segment.from + " is too large (" +
+                    (segment.to - segment.from) + " bytes)");
+            }
+            ByteArrayInputStream inputStream =
+                new ByteArrayInputStream(read(segment.from, (int) (segment.to - segment.from)));
+            List<Event> result = eventListener == null ? new ArrayList<Event>() : null;
+            for (Event event; (event = eventDeserializer.nextEvent(inputStream)) != null; ) {
+                if (result != null) {
+                    result.add(event);
+                } else {
+                    eventListener.onEvent(event);
+                }
+            }
+            return result;
+        }
+
+        private byte[] readEvent(long position) throws IOException {
+            byte[] header = read(position, EVENT_HEADER_LENGTH);
+            byte[] result = Arrays.copyOf(header, (int) littleEndianLong(header, EVENT_LENGTH_OFFSET, 4));
+            ByteBuffer buffer = ByteBuffer.wrap(result, EVENT_HEADER_LENGTH, result.length - EVENT_HEADER_LENGTH);
+            read(buffer, position + EVENT_HEADER_LENGTH);
+            return result;
+        }
+
+        private byte[] read(long position, int length) throws IOException {
+            byte[] result = new byte[length];
+            read(ByteBuffer.wrap(result), position);
+            return result;
+        }
+
+        private void read(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                // positional reads don't affect channel's position and so can be done concurrently
+                int read = channel.read(buffer, position);
+                if (read == -1) {
+                    throw new EOFException("Unexpected end of file");
+                }
+                position += read;
+            }
+        }
+    }
+
+    private static final class ReaderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "blc-file-reader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+/**
+ * Thrown by {@link BinaryLogClient.EventListener} which cannot go on processing the stream. Unlike any other
+ * exception (which is logged and otherwise ignored), it stops the client from reading further: the event is not
+ * considered processed (position is not advanced past it),
+ * {@link BinaryLogClient.LifecycleListener#onCommunicationFailure(BinaryLogClient, Exception)} is called and
+ * connection is closed (meaning that, with keepAlive on, client reconnects and resumes from the last position).
+ */
+public class StreamAbortedException extends RuntimeException {
+
+    public StreamAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeader;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Complete transaction, as assembled by {@link TransactionAssembler}.
+ * <p>
+ * Events of a transaction which exceeded spill threshold (see {@link TransactionAssembler#setSpillThreshold(long)})
+ * are kept in a temporary file (serialized, lazily deserialized rows get materialized in the process) and read back
+ * on each {@link #getEvents()} iteration. That file is
+ * removed as soon as {@link TransactionAssembler.TransactionListener#onTransaction(Transaction)} returns, meaning
+ * that events of such a transaction cannot be accessed afterwards.
+ */
+public class Transaction {
+
+    private final String gtid;
+    private final long lastCommitted;
+    private final long sequenceNumber;
+    private final Map<Long, TableMapEventData> tableMaps = new LinkedHashMap<Long, TableMapEventData>();
+    private List<Event> events = new ArrayList<Event>();
+    private int numberOfEvents;
+    private long size;
+    private long commitTimestamp;
+
+    private File spillFile;
+    private ObjectOutputStream spillStream;
+    private final List<ObjectInputStream> openStreams = new ArrayList<ObjectInputStream>();
+
+    Transaction(String gtid, long lastCommitted, long sequenceNumber) {
+        this.gtid = gtid;
+        this.lastCommitted = lastCommitted;
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * @return GTID of the transaction (in "server_uuid:transaction_id" form for MySQL, "domain-server-sequence" for
+     * MariaDB), null if GTID mode is off
+     */
+    public String getGtid() {
+        return gtid;
+    }
+
+    /**
+     * @return logical clock (MySQL 5.7.6+) of the last transaction this one depends on (see
+     * {@link com.github.shyiko.mysql.binlog.event.GtidEventData#getLastCommitted()}), 0 if unknown
+     */
+    public long getLastCommitted() {
+        return lastCommitted;
+    }
+
+    /**
+     * @return logical clock (MySQL 5.7.6+) of the transaction (see
+     * {@link com.github.shyiko.mysql.binlog.event.GtidEventData#getSequenceNumber()}), 0 if unknown
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * @return timestamp of the event which committed the transaction (XID, COMMIT, XA_PREPARE or the statement
+     * itself in case of DDL)
+     */
+    public long getCommitTimestamp() {
+        return commitTimestamp;
+    }
+
+    /**
+     * @return TABLE_MAPs of the transaction by table id
+     */
+    public Map<Long, TableMapEventData> getTableMaps() {
+        return Collections.unmodifiableMap(tableMaps);
+    }
+
+    /**
+     * @return all the events of the transaction (GTID (if any), BEGIN, TABLE_MAP, rows events, ..., terminating
+     * event) in the order they appeared in the binary log. Events of TRANSACTION_PAYLOAD events are inlined.
+     */
+    public Iterable<Event> getEvents() {
+        if (spillFile == null) {
+            return Collections.unmodifiableList(events);
+        }
+        return new Iterable<Event>() {
+
+            @Override
+            public Iterator<Event> iterator() {
+                return new SpilledEventIterator();
+            }
+        };
+    }
+
+    public int getNumberOfEvents() {
+        return numberOfEvents;
+    }
+
+    /**
+     * @return total size (in bytes) of the events as they appeared in the binary log
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return true if events were spilled to disk
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    void add(Event event, long spillThreshold, File spillDirectory) throws IOException {
+        EventHeader eventHeader = event.getHeader();
+        size += eventHeader.getHeaderLength() + eventHeader.getDataLength();
+        numberOfEvents++;
+        if (event.getData() instanceof TableMapEventData) {
+            TableMapEventData tableMapEventData = event.getData();
+            tableMaps.put(tableMapEventData.getTableId(), tableMapEventData);
+        }
+        if (spillStream == null) {
+            events.add(event);
+            if (size > spillThreshold) {
+                spill(spillDirectory);
+            }
+        } else {
+            write(event);
+        }
+    }
+
+    private void spill(File spillDirectory) throws IOException {
+        spillFile = File.createTempFile("blc-tx-", ".spill", spillDirectory);
+        spillStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+        for (Event event : events) {
+            write(event);
+        }
+        events = null;
+    }
+
+    private void write(Event event) throws IOException {
+        spillStream.writeObject(event);
+        spillStream.reset(); // otherwise stream holds on to every object written
+    }
+
+    void commit(long commitTimestamp) throws IOException {
+        this.commitTimestamp = commitTimestamp;
+        if (spillStream != null) {
+            spillStream.close();
+            spillStream = null;
+        }
+    }
+
+    /**
+     * Releases resources held by the transaction (removing spill file, if any).
+     */
+    void discard() {
+        for (ObjectInputStream inputStream : openStreams) {
+            closeQuietly(inputStream);
+        }
+        openStreams.clear();
+        if (spillStream != null) {
+            closeQuietly(spillStream);
+            spillStream = null;
+        }
+        if (spillFile != null) {
+            spillFile.delete();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private final class SpilledEventIterator implements Iterator<Event> {
+
+        private ObjectInputStream inputStream;
+        private int remaining = numberOfEvents;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Event next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            try {
+                if (inputStream == null) {
+                    inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+                    openStreams.add(inputStream);
+                }
+                Event event = (Event) inputStream.readObject();
+                if (--remaining == 0) {
+                    openStreams.remove(inputStream);
+                    inputStream.close();
+                }
+                return event;
+            } catch (EOFException e) {
+                throw new IllegalStateException("Spill file " + spillFile + " is truncated", e);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read spilled event from " + spillFile, e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.GtidEventData;
+import com.github.shyiko.mysql.binlog.event.MariadbGtidEventData;
+import com.github.shyiko.mysql.binlog.event.QueryEventData;
+import com.github.shyiko.mysql.binlog.event.TransactionPayloadEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer.EventDataWrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link BinaryLogClient.EventListener} which groups events into complete transactions (following the same
+ * GTID / BEGIN / COMMIT / XID rules {@link BinaryLogClient} uses to keep track of GTID set) and passes each of
+ * them to the {@link TransactionListener}s as a single {@link Transaction}. Usage:
+ * <pre>
+ * TransactionAssembler transactionAssembler = new TransactionAssembler();
+ * transactionAssembler.registerTransactionListener(...);
+ * binaryLogClient.registerEventListener(transactionAssembler);
+ * </pre>
+ * Transaction starts with GTID/ANONYMOUS_GTID/MARIADB_GTID (if any) and ends with XID, QUERY "COMMIT", XA_PREPARE
+ * or, in case of a statement executed outside of BEGIN ... COMMIT (e.g. DDL), with that statement. Rolled back
+ * transactions are dropped, as well as events which don't belong to any transaction (ROTATE, FORMAT_DESCRIPTION,
+ * HEARTBEAT, etc.).
+ * <p>
+ * Note that events are expected to come from a single thread (which is the case with {@link BinaryLogClient}).
+ * In case transaction cannot be spilled, {@link StreamAbortedException} is thrown (so that the client stops
+ * instead of skipping the rest of the transaction).
+ */
+public class TransactionAssembler implements BinaryLogClient.EventListener {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final List<TransactionListener> transactionListeners = new CopyOnWriteArrayList<TransactionListener>();
+
+    private long spillThreshold = 64 * 1024 * 1024;
+    private File spillDirectory;
+
+    private String gtid;
+    private long lastCommitted;
+    private long sequenceNumber;
+    private Transaction transaction;
+    private boolean inTransaction; // BEGIN (or XA START, or non-standalone MARIADB_GTID) received
+
+    /**
+     * @param spillThreshold size (in bytes, as measured by event length) of the transaction after which its events
+     * are spilled to disk (64MB by default)
+     */
+    public void setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * @param spillDirectory directory to keep spilled transactions in (null (default) means java.io.tmpdir)
+     */
+    public void setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * @return registered transaction listeners
+     */
+    public List<TransactionListener> getTransactionListeners() {
+        return Collections.unmodifiableList(transactionListeners);
+    }
+
+    /**
+     * Register transaction listener. Note that multiple transaction listeners will be called in order they
+     * where registered.
+     * @param transactionListener transaction listener
+     */
+    public void registerTransactionListener(TransactionListener transactionListener) {
+        transactionListeners.add(transactionListener);
+    }
+
+    /**
+     * Unregister all transaction listener of specific type.
+     * @param listenerClass transaction listener class to unregister
+     */
+    public void unregisterTransactionListener(Class<? extends TransactionListener> listenerClass) {
+        for (TransactionListener transactionListener : transactionListeners) {
+            if (listenerClass.isInstance(transactionListener)) {
+                transactionListeners.remove(transactionListener);
+            }
+        }
+    }
+
+    /**
+     * Unregister single transaction listener.
+     * @param transactionListener transaction listener to unregister
+     */
+    public void unregisterTransactionListener(TransactionListener transactionListener) {
+        transactionListeners.remove(transactionListener);
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        EventData eventData = EventDataWrapper.internal(event.getData());
+        EventType eventType = event.getHeader().getEventType();
+        switch (eventType) {
+            case TRANSACTION_PAYLOAD:
+                TransactionPayloadEventData.EventIterator iterator =
+                    ((TransactionPayloadEventData) eventData).iterator();
+                try {
+                    while (iterator.hasNext()) {
+                        onEvent(iterator.next());
+                    }
+                } finally {
+                    iterator.close();
+                }
+                break;
+            case GTID:
+            case ANONYMOUS_GTID:
+            case MARIADB_GTID:
+                if (transaction != null) {
+                    logger.warning("Discarding incomplete transaction " + transaction.getGtid());
+                    discard();
+                }
+                if (eventData instanceof GtidEventData) {
+                    GtidEventData gtidEventData = (GtidEventData) eventData;
+                    gtid = eventType == EventType.GTID ? gtidEventData.getMySqlGtid().toString() : null;
+                    lastCommitted = gtidEventData.getLastCommitted();
+                    sequenceNumber = gtidEventData.getSequenceNumber();
+                } else
+                if (eventData instanceof MariadbGtidEventData) {
+                    MariadbGtidEventData mariadbGtidEventData = (MariadbGtidEventData) eventData;
+                    gtid = mariadbGtidEventData.getDomainId() + "-" + event.getHeader().getServerId() + "-" +
+                        mariadbGtidEventData.getSequence();
+                    // MariaDB doesn't log BEGIN, event group is opened by the GTID itself (unless it's standalone,
+                    // e.g. DDL)
+                    inTransaction = (mariadbGtidEventData.getFlags() & MariadbGtidEventData.FL_STANDALONE) == 0;
+                } else {
+                    gtid = null;
+                }
+                add(event);
+                break;
+            case QUERY:
+                String sql = eventData instanceof QueryEventData ? ((QueryEventData) eventData).getSql() : null;
+                if (sql == null) {
+                    addIfInProgress(event);
+                } else
+                if ("BEGIN".equals(sql) || sql.startsWith("XA START")) {
+                    inTransaction = true;
+                    add(event);
+                } else
+                if ("ROLLBACK".equals(sql)) {
+                    discard();
+                } else
+                if ("COMMIT".equals(sql) || !inTransaction) {
+                    // !inTransaction - auto-commit query, likely DDL
+                    add(event);
+                    commit(event);
+                } else {
+                    add(event);
+                }
+                break;
+            case XID:
+            case XA_PREPARE:
+                if (transaction != null) {
+                    add(event);
+                    commit(event);
+                } else {
+                    discard();
+                }
+                break;
+            default:
+                addIfInProgress(event);
+        }
+    }
+
+    private void addIfInProgress(Event event) {
+        if (transaction != null) {
+            add(event);
+        }
+    }
+
+    private void add(Event event) {
+        if (transaction == null) {
+            transaction = new Transaction(gtid, lastCommitted, sequenceNumber);
+        }
+        try {
+            transaction.add(event, spillThreshold, spillDirectory);
+        } catch (IOException e) {
+            discard();
+            throw new StreamAbortedException("Failed to spill transaction to disk", e);
+        }
+    }
+
+    private void commit(Event event) {
+        Transaction transaction = this.transaction;
+        this.transaction = null;
+        this.gtid = null;
+        this.lastCommitted = this.sequenceNumber = 0;
+        this.inTransaction = false;
+        try {
+            transaction.commit(event.getHeader().getTimestamp());
+            notifyTransactionListeners(transaction);
+        } catch (IOException e) {
+            throw new StreamAbortedException("Failed to spill transaction to disk", e);
+        } finally {
+            transaction.discard();
+        }
+    }
+
+    private void discard() {
+        if (transaction != null) {
+            transaction.discard();
+        }
+        transaction = null;
+        gtid = null;
+        lastCommitted = sequenceNumber = 0;
+        inTransaction = false;
+    }
+
+    private void notifyTransactionListeners(Transaction transaction) {
+        for (TransactionListener transactionListener : transactionListeners) {
+            try {
+                transactionListener.onTransaction(transaction);
+            } catch (Exception e) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, transactionListener + " choked on " + transaction.getGtid(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link TransactionAssembler}'s transaction listener.
+     */
+    public interface TransactionListener {
+
+        void onTransaction(Transaction transaction);
+    }
+}
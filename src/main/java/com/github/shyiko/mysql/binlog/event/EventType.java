@@ -250,7 +250,8 @@ public enum EventType {
     public static boolean isUpdate(EventType eventType) {
         return eventType == PRE_GA_UPDATE_ROWS ||
             eventType == UPDATE_ROWS ||
-            eventType == EXT_UPDATE_ROWS;
+            eventType == EXT_UPDATE_ROWS ||
+            eventType == PARTIAL_UPDATE_ROWS_EVENT;
     }
 
     public static boolean isDelete(EventType eventType) {
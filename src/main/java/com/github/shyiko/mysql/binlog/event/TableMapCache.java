@@ -0,0 +1,309 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Bounded table id -&gt; {@link TableMapEventData} store used by
+ * {@link com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer} (10000 entries by default).
+ * <p>
+ * Entries are kept in an open-addressing (linear probing) table of primitive {@code long} keys, so that
+ * {@link #get(long)} neither boxes table id nor modifies anything but the "referenced" flag of the entry. Once full,
+ * entries are evicted according to CLOCK (second chance) policy, which approximates LRU. Table starts small and
+ * grows (up to what's needed to hold maxSize entries) as entries are added.
+ * <p>
+ * Not thread-safe (with the exception of concurrent {@link #get(long)}s, counters being approximate in that case).
+ */
+public class TableMapCache extends AbstractMap<Long, TableMapEventData> {
+
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private final int maxSize;
+    private final int maxCapacity;
+    private long[] keys;
+    private TableMapEventData[] values; // null if slot is empty
+    private boolean[] referenced;
+    private int mask;
+    private int shift;
+    private int size;
+    private int hand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public TableMapCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be greater than 0");
+        }
+        int maxCapacity = Integer.highestOneBit(Math.max(maxSize, 2) - 1) << 2; // load factor <= 0.5
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Maximum size is too large");
+        }
+        this.maxSize = maxSize;
+        this.maxCapacity = maxCapacity;
+        allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new TableMapEventData[capacity];
+        this.referenced = new boolean[capacity];
+        this.mask = capacity - 1;
+        this.shift = Long.numberOfLeadingZeros(capacity - 1);
+        this.hand = 0;
+    }
+
+    private void grow() {
+        long[] keys = this.keys;
+        TableMapEventData[] values = this.values;
+        boolean[] referenced = this.referenced;
+        allocate(values.length << 1);
+        for (int j = 0; j < values.length; j++) {
+            if (values[j] != null) {
+                int i = slot(keys[j]);
+                while (this.values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                this.keys[i] = keys[j];
+                this.values[i] = values[j];
+                this.referenced[i] = referenced[j];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) ((key * PHI) >>> shift) & mask;
+    }
+
+    private int indexOf(long key) {
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return TABLE_MAP event data of the table, null if there is none (in which case miss is recorded)
+     */
+    public TableMapEventData get(long tableId) {
+        int index = indexOf(tableId);
+        if (index == -1) {
+            misses++;
+            return null;
+        }
+        hits++;
+        referenced[index] = true;
+        return values[index];
+    }
+
+    public TableMapEventData put(long tableId, TableMapEventData tableMapEvent) {
+        if (tableMapEvent == null) {
+            throw new NullPointerException("TableMapEventData cannot be null");
+        }
+        int index = indexOf(tableId);
+        if (index != -1) {
+            TableMapEventData previous = values[index];
+            values[index] = tableMapEvent;
+            referenced[index] = true;
+            return previous;
+        }
+        if (size == maxSize) {
+            evict();
+        } else if ((size + 1) << 1 > values.length && values.length < maxCapacity) {
+            grow();
+        }
+        int i = slot(tableId);
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = tableId;
+        values[i] = tableMapEvent;
+        referenced[i] = false;
+        size++;
+        return null;
+    }
+
+    public TableMapEventData remove(long tableId) {
+        int index = indexOf(tableId);
+        if (index == -1) {
+            return null;
+        }
+        TableMapEventData previous = values[index];
+        delete(index);
+        return previous;
+    }
+
+    private void evict() {
+        while (true) {
+            int i = hand;
+            hand = (hand + 1) & mask;
+            if (values[i] == null) {
+                continue;
+            }
+            if (referenced[i]) {
+                referenced[i] = false;
+            } else {
+                delete(i);
+                evictions++;
+                return;
+            }
+        }
+    }
+
+    // backward shift deletion (no tombstones)
+    private void delete(int index) {
+        int gap = index;
+        for (int i = (index + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            // move entry into the gap unless its home slot lies (cyclically) within (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                referenced[gap] = referenced[i];
+                gap = i;
+            }
+        }
+        values[gap] = null;
+        referenced[gap] = false;
+        size--;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of {@link #get(long)}s which found TABLE_MAP event data
+     */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return number of {@link #get(long)}s which didn't find TABLE_MAP event data
+     */
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return number of entries removed to make room for the new ones
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TableMapEventData get(Object key) {
+        return key instanceof Long ? get(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && indexOf((Long) key) != -1;
+    }
+
+    @Override
+    public TableMapEventData put(Long key, TableMapEventData value) {
+        return put(key.longValue(), value);
+    }
+
+    @Override
+    public TableMapEventData remove(Object key) {
+        return key instanceof Long ? remove(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Long, TableMapEventData>> entrySet() {
+        return new AbstractSet<Entry<Long, TableMapEventData>>() {
+
+            @Override
+            public Iterator<Entry<Long, TableMapEventData>> iterator() {
+                return new Iterator<Entry<Long, TableMapEventData>>() {
+
+                    private int next = advance(0);
+
+                    private int advance(int i) {
+                        while (i < values.length && values[i] == null) {
+                            i++;
+                        }
+                        return i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<Long, TableMapEventData> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<Long, TableMapEventData> entry =
+                            new SimpleImmutableEntry<Long, TableMapEventData>(keys[next], values[next]);
+                        next = advance(next + 1);
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("TableMapCache");
+        sb.append("{size=").append(size);
+        sb.append(", maxSize=").append(maxSize);
+        sb.append(", hits=").append(hits);
+        sb.append(", misses=").append(misses);
+        sb.append(", evictions=").append(evictions);
+        sb.append('}');
+        return sb.toString();
+    }
+}
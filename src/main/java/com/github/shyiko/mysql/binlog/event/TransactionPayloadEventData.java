@@ -1,15 +1,42 @@
 package com.github.shyiko.mysql.binlog.event;
 
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Iterator;
 
 
-public class TransactionPayloadEventData implements EventData {
+public class TransactionPayloadEventData implements EventData, Iterable<Event> {
     private int payloadSize;
     private int uncompressedSize;
     private int compressionType;
     private byte[] payload;
     private ArrayList<Event> uncompressedEvents;
+    private transient Iterable<Event> uncompressedEventStream;
 
+    /**
+     * @return iterator over the uncompressed events. When uncompressed events were not materialized (see
+     * EventDeserializer#setStreamTransactionPayloads(boolean)) payload is decompressed and events are deserialized
+     * one at a time (on every call to this method). Decompression buffers are released as soon as iterator is
+     * exhausted, otherwise (e.g. if iteration is abandoned because of exception) iterator must be closed.
+     */
+    @Override
+    public EventIterator iterator() {
+        Iterator<Event> iterator = uncompressedEvents != null ? uncompressedEvents.iterator() :
+            uncompressedEventStream.iterator();
+        return iterator instanceof EventIterator ? (EventIterator) iterator : new NonCloseableEventIterator(iterator);
+    }
+
+    /**
+     * @param uncompressedEventStream events to iterate over (in place of materialized ones). Iterators implementing
+     * {@link EventIterator} get closed by the callers of {@link #iterator()}.
+     */
+    public void setUncompressedEventStream(Iterable<Event> uncompressedEventStream) {
+        this.uncompressedEventStream = uncompressedEventStream;
+    }
+
+    /**
+     * @return uncompressed events, null if payload is streamed (use {@link #iterator()} instead)
+     */
     public ArrayList<Event> getUncompressedEvents() {
         return uncompressedEvents;
     }
@@ -50,6 +77,46 @@ public class TransactionPayloadEventData implements EventData {
         this.payload = payload;
     }
 
+    /**
+     * Iterator over the uncompressed events.
+     */
+    public interface EventIterator extends Iterator<Event>, Closeable {
+
+        /**
+         * Releases resources held by the iterator (no-op if it has already been exhausted).
+         */
+        @Override
+        void close();
+    }
+
+    private static final class NonCloseableEventIterator implements EventIterator {
+
+        private final Iterator<Event> iterator;
+
+        private NonCloseableEventIterator(Iterator<Event> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Event next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -57,9 +124,11 @@ public class TransactionPayloadEventData implements EventData {
         sb.append("{compression_type=").append(compressionType).append(", payload_size=").append(payloadSize).append(", uncompressed_size='").append(uncompressedSize).append('\'');
         sb.append(", payload: ");
         sb.append("\n");
-        for (Event e : uncompressedEvents) {
-            sb.append(e.toString());
-            sb.append("\n");
+        if (uncompressedEvents != null) {
+            for (Event e : uncompressedEvents) {
+                sb.append(e.toString());
+                sb.append("\n");
+            }
         }
         sb.append("}");
         return sb.toString();
@@ -15,7 +15,13 @@
  */
 package com.github.shyiko.mysql.binlog.event;
 
+import com.github.shyiko.mysql.binlog.event.deserialization.LazyRow;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
@@ -33,6 +39,8 @@ public class UpdateRowsEventData implements EventData {
      * @see com.github.shyiko.mysql.binlog.event.deserialization.AbstractRowsEventDataDeserializer
      */
     private List<Map.Entry<Serializable[], Serializable[]>> rows;
+    // LazyRow is not Serializable (rows get materialized instead, see writeObject)
+    private transient List<Map.Entry<LazyRow, LazyRow>> lazyRows;
 
     public long getTableId() {
         return tableId;
@@ -59,6 +67,15 @@ public class UpdateRowsEventData implements EventData {
     }
 
     public List<Map.Entry<Serializable[], Serializable[]>> getRows() {
+        if (rows == null && lazyRows != null) {
+            List<Map.Entry<Serializable[], Serializable[]>> result =
+                new ArrayList<Map.Entry<Serializable[], Serializable[]>>(lazyRows.size());
+            for (Map.Entry<LazyRow, LazyRow> row : lazyRows) {
+                result.add(new AbstractMap.SimpleEntry<Serializable[], Serializable[]>(
+                    row.getKey().toArray(), row.getValue().toArray()));
+            }
+            rows = result;
+        }
         return rows;
     }
 
@@ -66,6 +83,36 @@ public class UpdateRowsEventData implements EventData {
         this.rows = rows;
     }
 
+    /**
+     * @return rows (before &amp; after update) which are deserialized on access, null unless
+     * {@link com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer#setDeserializeRowsLazily(boolean)}
+     * is on
+     */
+    public List<Map.Entry<LazyRow, LazyRow>> getLazyRows() {
+        return lazyRows;
+    }
+
+    public void setLazyRows(List<Map.Entry<LazyRow, LazyRow>> lazyRows) {
+        this.lazyRows = lazyRows;
+    }
+
+    /**
+     * @see #getLazyRows()
+     * @throws IllegalStateException if rows weren't deserialized lazily (use {@link #getRows()} instead)
+     */
+    public Map.Entry<LazyRow, LazyRow> row(int index) {
+        if (lazyRows == null) {
+            throw new IllegalStateException("Lazy rows are not available (see " +
+                "EventDeserializer#setDeserializeRowsLazily(boolean)), use getRows() instead");
+        }
+        return lazyRows.get(index);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getRows();
+        out.defaultWriteObject();
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -74,6 +121,7 @@ public class UpdateRowsEventData implements EventData {
         sb.append(", includedColumnsBeforeUpdate=").append(includedColumnsBeforeUpdate);
         sb.append(", includedColumns=").append(includedColumns);
         sb.append(", rows=[");
+        List<Map.Entry<Serializable[], Serializable[]>> rows = getRows();
         for (Map.Entry<Serializable[], Serializable[]> row : rows) {
             sb.append("\n    ").
                     append("{before=").append(Arrays.toString(row.getKey())).
@@ -15,7 +15,12 @@
  */
 package com.github.shyiko.mysql.binlog.event;
 
+import com.github.shyiko.mysql.binlog.event.deserialization.LazyRow;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
@@ -31,6 +36,8 @@ public class WriteRowsEventData implements EventData {
      * @see com.github.shyiko.mysql.binlog.event.deserialization.AbstractRowsEventDataDeserializer
      */
     private List<Serializable[]> rows;
+    // LazyRow is not Serializable (rows get materialized instead, see writeObject)
+    private transient List<LazyRow> lazyRows;
 
     public long getTableId() {
         return tableId;
@@ -49,6 +56,13 @@ public class WriteRowsEventData implements EventData {
     }
 
     public List<Serializable[]> getRows() {
+        if (rows == null && lazyRows != null) {
+            List<Serializable[]> result = new ArrayList<Serializable[]>(lazyRows.size());
+            for (LazyRow row : lazyRows) {
+                result.add(row.toArray());
+            }
+            rows = result;
+        }
         return rows;
     }
 
@@ -56,6 +70,36 @@ public class WriteRowsEventData implements EventData {
         this.rows = rows;
     }
 
+    /**
+     * @return rows which are deserialized on access, null unless
+     * {@link com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer#setDeserializeRowsLazily(boolean)}
+     * is on
+     */
+    public List<LazyRow> getLazyRows() {
+        return lazyRows;
+    }
+
+    public void setLazyRows(List<LazyRow> lazyRows) {
+        this.lazyRows = lazyRows;
+    }
+
+    /**
+     * @see #getLazyRows()
+     * @throws IllegalStateException if rows weren't deserialized lazily (use {@link #getRows()} instead)
+     */
+    public LazyRow row(int index) {
+        if (lazyRows == null) {
+            throw new IllegalStateException("Lazy rows are not available (see " +
+                "EventDeserializer#setDeserializeRowsLazily(boolean)), use getRows() instead");
+        }
+        return lazyRows.get(index);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getRows();
+        out.defaultWriteObject();
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
@@ -63,6 +107,7 @@ public class WriteRowsEventData implements EventData {
         sb.append("{tableId=").append(tableId);
         sb.append(", includedColumns=").append(includedColumns);
         sb.append(", rows=[");
+        List<Serializable[]> rows = getRows();
         for (Object[] row : rows) {
             sb.append("\n    ").append(Arrays.toString(row)).append(",");
         }
@@ -16,16 +16,29 @@
 package com.github.shyiko.mysql.binlog.event.deserialization;
 
 import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.TableMapCache;
 import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Whole class is basically a mix of <a href="https://code.google.com/p/open-replicator">open-replicator</a>'s
@@ -78,8 +91,19 @@ public abstract class AbstractRowsEventDataDeserializer<T extends EventData> imp
     private Long invalidDateAndTimeRepresentation;
     private boolean microsecondsPrecision;
     private boolean deserializeCharAndBinaryAsByteArray;
+    private boolean deserializeCharUsingColumnCharset;
     private boolean deserializeIntegerAsByteArray;
 
+    private ExecutorService rowsDeserializationExecutor;
+    private int rowsPerTask;
+    private boolean deserializeRowsLazily;
+    private ColumnProjection columnProjection;
+
+    private final Map<Long, ColumnCollations> columnCollationsByTableId =
+        new ConcurrentHashMap<Long, ColumnCollations>();
+    private final Map<Long, ProjectedColumns> projectedColumnsByTableId =
+        new ConcurrentHashMap<Long, ProjectedColumns>();
+
     public AbstractRowsEventDataDeserializer(Map<Long, TableMapEventData> tableMapEventByTableId) {
         this.tableMapEventByTableId = tableMapEventByTableId;
     }
@@ -101,22 +125,541 @@ public abstract class AbstractRowsEventDataDeserializer<T extends EventData> imp
         this.deserializeCharAndBinaryAsByteArray = value;
     }
 
+    void setDeserializeCharUsingColumnCharset(boolean value) {
+        this.deserializeCharUsingColumnCharset = value;
+    }
+
     void setDeserializeIntegerAsByteArray(boolean deserializeIntegerAsByteArray) {
         this.deserializeIntegerAsByteArray = deserializeIntegerAsByteArray;
     }
 
-    protected Serializable[] deserializeRow(long tableId, BitSet includedColumns, ByteArrayInputStream inputStream)
-            throws IOException {
-        TableMapEventData tableMapEvent = tableMapEventByTableId.get(tableId);
+    // null executor means that rows are deserialized by the calling thread
+    void setRowsDeserializationExecutor(ExecutorService executor, int rowsPerTask) {
+        this.rowsDeserializationExecutor = executor;
+        this.rowsPerTask = rowsPerTask;
+    }
+
+    void setDeserializeRowsLazily(boolean deserializeRowsLazily) {
+        this.deserializeRowsLazily = deserializeRowsLazily;
+    }
+
+    boolean isDeserializeRowsLazily() {
+        return deserializeRowsLazily;
+    }
+
+    // null means that all the columns are deserialized
+    void setColumnProjection(ColumnProjection columnProjection) {
+        if (this.columnProjection != columnProjection) {
+            this.projectedColumnsByTableId.clear();
+        }
+        this.columnProjection = columnProjection;
+    }
+
+    protected TableMapEventData getTableMapEvent(long tableId) throws MissingTableMapEventException {
+        TableMapEventData tableMapEvent = tableMapEventByTableId instanceof TableMapCache ?
+            ((TableMapCache) tableMapEventByTableId).get(tableId) : tableMapEventByTableId.get(tableId);
         if (tableMapEvent == null) {
             throw new MissingTableMapEventException("No TableMapEventData has been found for table id:" + tableId +
                 ". Usually that means that you have started reading binary log 'within the logical event group'" +
                 " (e.g. from WRITE_ROWS and not proceeding TABLE_MAP");
         }
+        return tableMapEvent;
+    }
+
+    /**
+     * Deserializes all the rows till the end of the stream (block). Each row consists of
+     * {@code includedColumns.length} images (one for WRITE_ROWS/DELETE_ROWS, two (before &amp; after) for
+     * UPDATE_ROWS) which are returned one after another.
+     */
+    List<Serializable[]> deserializeRowImages(long tableId, BitSet[] includedColumns,
+            ByteArrayInputStream inputStream) throws IOException {
+        List<Serializable[]> result = new ArrayList<Serializable[]>();
+        if (inputStream.available() <= 0) {
+            return result;
+        }
+        TableMapEventData tableMapEvent = getTableMapEvent(tableId);
+        if (rowsDeserializationExecutor == null) {
+            while (inputStream.available() > 0) {
+                for (BitSet columns : includedColumns) {
+                    result.add(deserializeRow(tableMapEvent, columns, inputStream));
+                }
+            }
+            return result;
+        }
+        byte[] rows = inputStream.read(inputStream.available());
+        int[] taskOffsets = splitIntoTasks(tableMapEvent, includedColumns, rows);
+        int numberOfTasks = taskOffsets.length - 1;
+        List<Future<List<Serializable[]>>> futures = new ArrayList<Future<List<Serializable[]>>>(numberOfTasks);
+        try {
+            for (int i = 1; i < numberOfTasks; i++) {
+                futures.add(rowsDeserializationExecutor.submit(
+                    new RowsDeserializationTask(tableMapEvent, includedColumns, rows, taskOffsets[i],
+                        taskOffsets[i + 1])));
+            }
+            // first range is deserialized by the calling thread (instead of just waiting for the executor)
+            result.addAll(new RowsDeserializationTask(tableMapEvent, includedColumns, rows, taskOffsets[0],
+                taskOffsets[1]).call());
+            for (Future<List<Serializable[]>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for rows to be deserialized");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<List<Serializable[]>> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lazy counterpart of {@link #deserializeRowImages(long, BitSet[], ByteArrayInputStream)}. Only row/cell
+     * boundaries are computed here, cells themselves are deserialized by {@link LazyRow} on access.
+     */
+    List<LazyRow> deserializeLazyRowImages(long tableId, BitSet[] includedColumns,
+            ByteArrayInputStream inputStream) throws IOException {
+        List<LazyRow> result = new ArrayList<LazyRow>();
+        if (inputStream.available() <= 0) {
+            return result;
+        }
+        TableMapEventData tableMapEvent = getTableMapEvent(tableId);
+        int[][] columns = new int[includedColumns.length][];
+        for (int i = 0; i < includedColumns.length; i++) {
+            BitSet bitSet = includedColumns[i];
+            columns[i] = new int[bitSet.cardinality()];
+            for (int j = bitSet.nextSetBit(0), k = 0; j >= 0 && k < columns[i].length; j = bitSet.nextSetBit(j + 1)) {
+                columns[i][k++] = j;
+            }
+        }
+        byte[] rows = inputStream.read(inputStream.available());
+        int offset = 0;
+        while (offset < rows.length) {
+            for (int i = 0; i < includedColumns.length; i++) {
+                result.add(new LazyRow(this, tableMapEvent, includedColumns[i], columns[i], rows, offset));
+                offset = skipRow(tableMapEvent, includedColumns[i], rows, offset, null);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Callback-style counterpart of {@link #deserializeRowImages(long, BitSet[], ByteArrayInputStream)}. Rows are
+     * neither materialized nor retained, cells are passed to the visitor straight from the event body.
+     */
+    void visitRowImages(long tableId, BitSet[] includedColumns, ByteArrayInputStream inputStream,
+            RowsVisitor visitor) throws IOException {
+        if (inputStream.available() <= 0) {
+            return;
+        }
+        TableMapEventData tableMapEvent = getTableMapEvent(tableId);
+        byte[] rows = inputStream.read(inputStream.available());
+        int offset = 0;
+        while (offset < rows.length) {
+            for (int i = 0; i < includedColumns.length; i++) {
+                visitor.onRowImage(i);
+                offset = visitRow(tableMapEvent, includedColumns[i], rows, offset, visitor);
+            }
+        }
+    }
+
+    /**
+     * @return offsets of the row ranges (rowsPerTask rows each), last element being equal to rows.length
+     */
+    private int[] splitIntoTasks(TableMapEventData tableMapEvent, BitSet[] includedColumns, byte[] rows)
+            throws IOException {
+        int[] result = new int[8];
+        int numberOfTasks = 0, offset = 0;
+        for (int numberOfRows = 0; offset < rows.length; numberOfRows++) {
+            if (numberOfRows % rowsPerTask == 0) {
+                if (numberOfTasks == result.length - 1) {
+                    result = Arrays.copyOf(result, result.length << 1);
+                }
+                result[numberOfTasks++] = offset;
+            }
+            for (BitSet columns : includedColumns) {
+                offset = skipRow(tableMapEvent, columns, rows, offset, null);
+            }
+        }
+        result[numberOfTasks] = rows.length;
+        return Arrays.copyOf(result, numberOfTasks + 1);
+    }
+
+    /**
+     * @param cellOffsets (optional) array to store offset of each (included) cell in (-1 in case of NULL)
+     * @return offset of the first byte following the row image that starts at {@code offset}
+     * @throws EOFException if row image exceeds the end of the buffer
+     */
+    static int skipRow(TableMapEventData tableMapEvent, BitSet includedColumns, byte[] buffer, int offset,
+            int[] cellOffsets) throws IOException {
+        byte[] types = tableMapEvent.getColumnTypes();
+        int[] metadata = tableMapEvent.getColumnMetadata();
+        int nullBitmapOffset = offset;
+        offset += checkBounds(buffer, offset, (includedColumns.cardinality() + 7) >> 3);
+        for (int i = 0, index = 0; i < types.length; i++) {
+            if (!includedColumns.get(i)) {
+                continue;
+            }
+            if ((buffer[nullBitmapOffset + (index >> 3)] & (1 << (index & 7))) == 0) {
+                if (cellOffsets != null) {
+                    cellOffsets[index] = offset;
+                }
+                int typeCode = types[i] & 0xFF, meta = metadata[i];
+                offset += checkBounds(buffer, offset,
+                    cellLength(realTypeCode(typeCode, meta), meta, realLength(typeCode, meta), buffer, offset));
+            } else
+            if (cellOffsets != null) {
+                cellOffsets[index] = -1;
+            }
+            index++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return number of bytes occupied by the (non-null) cell which starts at {@code offset}
+     * @see #deserializeCell(ColumnType, int, int, ByteArrayInputStream)
+     */
+    static int cellLength(int typeCode, int meta, int length, byte[] buffer, int offset) throws IOException {
+        ColumnType type = ColumnType.byCode(typeCode);
+        if (type == null) {
+            throw new IOException("Unsupported type " + typeCode);
+        }
+        switch (type) {
+            case BIT:
+                return ((meta >> 8) * 8 + (meta & 0xFF) + 7) >> 3;
+            case TINY:
+            case YEAR:
+                return 1;
+            case SHORT:
+                return 2;
+            case INT24:
+            case DATE:
+            case TIME:
+                return 3;
+            case LONG:
+            case FLOAT:
+            case TIMESTAMP:
+                return 4;
+            case LONGLONG:
+            case DOUBLE:
+            case DATETIME:
+                return 8;
+            case NEWDECIMAL:
+                int precision = meta & 0xFF, scale = meta >> 8, x = precision - scale;
+                int ipd = x / DIG_PER_DEC, fpd = scale / DIG_PER_DEC;
+                return (ipd << 2) + DIG_TO_BYTES[x - ipd * DIG_PER_DEC] +
+                    (fpd << 2) + DIG_TO_BYTES[scale - fpd * DIG_PER_DEC];
+            case TIME_V2:
+                return meta > 6 ? 3 : 3 + (meta + 1) / 2;
+            case TIMESTAMP_V2:
+                return 4 + (meta + 1) / 2;
+            case DATETIME_V2:
+                return 5 + (meta + 1) / 2;
+            case STRING:
+                return length < 256 ? 1 + littleEndianInteger(buffer, offset, checkBounds(buffer, offset, 1)) :
+                    2 + littleEndianInteger(buffer, offset, checkBounds(buffer, offset, 2));
+            case VARCHAR:
+            case VAR_STRING:
+                return meta < 256 ? 1 + littleEndianInteger(buffer, offset, checkBounds(buffer, offset, 1)) :
+                    2 + littleEndianInteger(buffer, offset, checkBounds(buffer, offset, 2));
+            case BLOB:
+            case GEOMETRY:
+            case JSON:
+                int dataLength = littleEndianInteger(buffer, offset, checkBounds(buffer, offset, meta));
+                return meta + checkBounds(buffer, offset + meta, dataLength); // 4-byte length may overflow int
+            case ENUM:
+            case SET:
+                return length;
+            default:
+                throw new IOException("Unsupported type " + type);
+        }
+    }
+
+    /**
+     * @return {@code length}
+     * @throws EOFException if {@code length} bytes starting at {@code offset} exceed the end of the buffer (or
+     * {@code length} is negative)
+     */
+    private static int checkBounds(byte[] buffer, int offset, int length) throws EOFException {
+        if (length < 0 || length > buffer.length - offset) {
+            throw new EOFException("Row image exceeds the end of the event");
+        }
+        return length;
+    }
+
+    /**
+     * @return number of bytes used to store the length of the (variable-length) value, 0 for fixed-length types
+     */
+    static int lengthPrefixSize(int typeCode, int meta, int length) {
+        ColumnType type = ColumnType.byCode(typeCode);
+        if (type == null) {
+            return 0;
+        }
+        switch (type) {
+            case STRING:
+                return length < 256 ? 1 : 2;
+            case VARCHAR:
+            case VAR_STRING:
+                return meta < 256 ? 1 : 2;
+            case BLOB:
+            case GEOMETRY:
+            case JSON:
+                return meta;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Skips the (non-null) cell without deserializing it.
+     * @see #cellLength(int, int, int, byte[], int)
+     */
+    static void skipCell(int typeCode, int meta, int length, ByteArrayInputStream inputStream) throws IOException {
+        int prefixLength = lengthPrefixSize(typeCode, meta, length);
+        int cellLength = prefixLength == 0 ? cellLength(typeCode, meta, length, null, 0) :
+            inputStream.readInteger(prefixLength);
+        if (inputStream.skip(cellLength) != cellLength) {
+            throw new EOFException("Cell exceeds the end of the event");
+        }
+    }
+
+    // mysql-5.6.24 sql/log_event.cc log_event_print_value (line 1980)
+    static int realTypeCode(int typeCode, int meta) {
+        if (typeCode == ColumnType.STRING.getCode() && meta >= 256) {
+            int meta0 = meta >> 8;
+            if ((meta0 & 0x30) != 0x30) {
+                return meta0 | 0x30;
+            }
+            // mysql-5.6.24 sql/rpl_utility.h enum_field_types (line 278)
+            if (meta0 == ColumnType.ENUM.getCode() || meta0 == ColumnType.SET.getCode()) {
+                return meta0;
+            }
+        }
+        return typeCode;
+    }
+
+    static int realLength(int typeCode, int meta) {
+        if (typeCode != ColumnType.STRING.getCode()) {
+            return 0;
+        }
+        if (meta >= 256) {
+            int meta0 = meta >> 8, meta1 = meta & 0xFF;
+            if ((meta0 & 0x30) != 0x30) {
+                return meta1 | (((meta0 & 0x30) ^ 0x30) << 4);
+            }
+            return meta1;
+        }
+        return meta;
+    }
+
+    static int littleEndianInteger(byte[] bytes, int offset, int length) {
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= (bytes[offset + i] & 0xFF) << (i << 3);
+        }
+        return result;
+    }
+
+    static long littleEndianLong(byte[] bytes, int offset, int length) {
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            result |= ((long) (bytes[offset + i] & 0xFF)) << (i << 3);
+        }
+        return result;
+    }
+
+    /**
+     * Visits the row image which starts at {@code offset} (see {@link RowVisitor} for details).
+     * @return offset of the first byte following the row image
+     * @throws EOFException if row image exceeds the end of the buffer
+     */
+    int visitRow(TableMapEventData tableMapEvent, BitSet includedColumns, byte[] buffer, int offset,
+            RowVisitor visitor) throws IOException {
+        byte[] types = tableMapEvent.getColumnTypes();
+        int[] metadata = tableMapEvent.getColumnMetadata();
+        int nullBitmapOffset = offset;
+        offset += checkBounds(buffer, offset, (includedColumns.cardinality() + 7) >> 3);
+        for (int i = 0, index = 0; i < types.length; i++) {
+            if (!includedColumns.get(i)) {
+                continue;
+            }
+            if ((buffer[nullBitmapOffset + (index >> 3)] & (1 << (index & 7))) != 0) {
+                visitor.onNull(index++);
+                continue;
+            }
+            int typeCode = types[i] & 0xFF, meta = metadata[i];
+            int length = realLength(typeCode, meta);
+            typeCode = realTypeCode(typeCode, meta);
+            int cellLength = checkBounds(buffer, offset, cellLength(typeCode, meta, length, buffer, offset));
+            ColumnType type = ColumnType.byCode(typeCode);
+            switch (type) {
+                case TINY:
+                    visitor.onInt(index, buffer[offset]);
+                    break;
+                case SHORT:
+                    visitor.onInt(index, (short) littleEndianInteger(buffer, offset, 2));
+                    break;
+                case INT24:
+                    visitor.onInt(index, (littleEndianInteger(buffer, offset, 3) << 8) >> 8);
+                    break;
+                case LONG:
+                    visitor.onInt(index, littleEndianInteger(buffer, offset, 4));
+                    break;
+                case YEAR:
+                    visitor.onInt(index, 1900 + (buffer[offset] & 0xFF));
+                    break;
+                case ENUM:
+                    visitor.onInt(index, littleEndianInteger(buffer, offset, length));
+                    break;
+                case LONGLONG:
+                    visitor.onLong(index, littleEndianLong(buffer, offset, 8));
+                    break;
+                case SET:
+                    visitor.onLong(index, littleEndianLong(buffer, offset, length));
+                    break;
+                case FLOAT:
+                    visitor.onDouble(index, Float.intBitsToFloat(littleEndianInteger(buffer, offset, 4)));
+                    break;
+                case DOUBLE:
+                    visitor.onDouble(index, Double.longBitsToDouble(littleEndianLong(buffer, offset, 8)));
+                    break;
+                case STRING:
+                case VARCHAR:
+                case VAR_STRING:
+                case BLOB:
+                case GEOMETRY:
+                case JSON:
+                    int prefixLength = lengthPrefixSize(typeCode, meta, length);
+                    visitor.onBytes(index, buffer, offset + prefixLength, cellLength - prefixLength);
+                    break;
+                default:
+                    visitor.onValue(index, deserializeCell(type, meta, length,
+                        new ByteArrayInputStream(buffer, offset, cellLength)));
+            }
+            offset += cellLength;
+            index++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return collation of each column of the table (0 if column is not a character one or its collation is unknown),
+     * null if {@link EventDeserializer.CompatibilityMode#CHAR_USING_COLUMN_CHARSET} is off or TABLE_MAP has no
+     * charset metadata
+     */
+    int[] getColumnCollations(TableMapEventData tableMapEvent) {
+        if (!deserializeCharUsingColumnCharset) {
+            return null;
+        }
+        if (tableMapEvent instanceof InternedTableMapEventData) {
+            return ((InternedTableMapEventData) tableMapEvent).getCollations();
+        }
+        ColumnCollations columnCollations = columnCollationsByTableId.get(tableMapEvent.getTableId());
+        if (columnCollations == null || columnCollations.tableMapEvent != tableMapEvent) {
+            columnCollations = new ColumnCollations(tableMapEvent, resolveColumnCollations(tableMapEvent));
+            columnCollationsByTableId.put(tableMapEvent.getTableId(), columnCollations);
+        }
+        return columnCollations.collations;
+    }
+
+    /**
+     * @return columns of the table to deserialize (see {@link ColumnProjection}), null if all of them
+     */
+    BitSet getProjectedColumns(TableMapEventData tableMapEvent) {
+        ColumnProjection columnProjection = this.columnProjection;
+        if (columnProjection == null) {
+            return null;
+        }
+        ProjectedColumns projectedColumns = projectedColumnsByTableId.get(tableMapEvent.getTableId());
+        if (projectedColumns == null || projectedColumns.tableMapEvent != tableMapEvent) {
+            projectedColumns = new ProjectedColumns(tableMapEvent,
+                columnProjection.getProjectedColumns(tableMapEvent));
+            projectedColumnsByTableId.put(tableMapEvent.getTableId(), projectedColumns);
+        }
+        return projectedColumns.columns;
+    }
+
+    // mysql-8.0 sql/log_event.cc Table_map_log_event::init_charset_field
+    static int[] resolveColumnCollations(TableMapEventData tableMapEvent) {
+        TableMapEventMetadata eventMetadata = tableMapEvent.getEventMetadata();
+        if (eventMetadata == null) {
+            return null;
+        }
+        List<Integer> columnCharsets = eventMetadata.getColumnCharsets();
+        TableMapEventMetadata.DefaultCharset defaultCharset = eventMetadata.getDefaultCharset();
+        if (columnCharsets == null && defaultCharset == null) {
+            return null;
+        }
         byte[] types = tableMapEvent.getColumnTypes();
         int[] metadata = tableMapEvent.getColumnMetadata();
+        int[] result = new int[types.length];
+        for (int i = 0, characterColumnIndex = 0; i < types.length; i++) {
+            ColumnType type = ColumnType.byCode(realTypeCode(types[i] & 0xFF, metadata[i]));
+            if (type != ColumnType.STRING && type != ColumnType.VARCHAR && type != ColumnType.VAR_STRING &&
+                type != ColumnType.BLOB) {
+                continue;
+            }
+            if (columnCharsets != null) {
+                if (characterColumnIndex < columnCharsets.size()) {
+                    result[i] = columnCharsets.get(characterColumnIndex);
+                }
+            } else {
+                Map<Integer, Integer> charsetCollations = defaultCharset.getCharsetCollations();
+                Integer collation = charsetCollations != null ? charsetCollations.get(characterColumnIndex) : null;
+                result[i] = collation != null ? collation : defaultCharset.getDefaultCharsetCollation();
+            }
+            characterColumnIndex++;
+        }
+        return result;
+    }
+
+    protected Serializable[] deserializeRow(long tableId, BitSet includedColumns, ByteArrayInputStream inputStream)
+            throws IOException {
+        return deserializeRow(getTableMapEvent(tableId), includedColumns, inputStream);
+    }
+
+    protected Serializable[] deserializeRow(TableMapEventData tableMapEvent, BitSet includedColumns,
+            ByteArrayInputStream inputStream) throws IOException {
+        byte[] types = tableMapEvent.getColumnTypes();
+        int[] metadata = tableMapEvent.getColumnMetadata();
+        int[] collations = getColumnCollations(tableMapEvent);
+        BitSet projectedColumns = getProjectedColumns(tableMapEvent);
         Serializable[] result = new Serializable[numberOfBitsSet(includedColumns)];
         BitSet nullColumns = inputStream.readBitSet(result.length, true);
+        if (tableMapEvent instanceof InternedTableMapEventData) {
+            InternedTableMapEventData internedTableMapEvent = (InternedTableMapEventData) tableMapEvent;
+            ColumnType[] cellTypes = internedTableMapEvent.getCellTypes();
+            int[] cellLengths = internedTableMapEvent.getCellLengths();
+            for (int i = 0, index = 0; i < types.length; i++) {
+                if (!includedColumns.get(i)) {
+                    continue;
+                }
+                if (!nullColumns.get(index)) {
+                    if (projectedColumns != null && !projectedColumns.get(i)) {
+                        skipCell(cellTypes[i].getCode(), metadata[i], cellLengths[i], inputStream);
+                    } else {
+                        result[index] = collations == null ?
+                            deserializeCell(cellTypes[i], metadata[i], cellLengths[i], inputStream) :
+                            deserializeCell(cellTypes[i], metadata[i], cellLengths[i], collations[i], inputStream);
+                    }
+                }
+                index++;
+            }
+            return result;
+        }
         for (int i = 0, numberOfSkippedColumns = 0; i < types.length; i++) {
             if (!includedColumns.get(i)) {
                 numberOfSkippedColumns++;
@@ -124,31 +667,40 @@ public abstract class AbstractRowsEventDataDeserializer<T extends EventData> imp
             }
             int index = i - numberOfSkippedColumns;
             if (!nullColumns.get(index)) {
-                // mysql-5.6.24 sql/log_event.cc log_event_print_value (line 1980)
-                int typeCode = types[i] & 0xFF, meta = metadata[i], length = 0;
-                if (typeCode == ColumnType.STRING.getCode()) {
-                    if (meta >= 256) {
-                        int meta0 = meta >> 8, meta1 = meta & 0xFF;
-                        if ((meta0 & 0x30) != 0x30) {
-                            typeCode = meta0 | 0x30;
-                            length = meta1 | (((meta0 & 0x30) ^ 0x30) << 4);
-                        } else {
-                            // mysql-5.6.24 sql/rpl_utility.h enum_field_types (line 278)
-                            if (meta0 == ColumnType.ENUM.getCode() || meta0 == ColumnType.SET.getCode()) {
-                                typeCode = meta0;
-                            }
-                            length = meta1;
-                        }
-                    } else {
-                        length = meta;
-                    }
+                int typeCode = types[i] & 0xFF, meta = metadata[i];
+                int length = realLength(typeCode, meta);
+                typeCode = realTypeCode(typeCode, meta);
+                if (projectedColumns != null && !projectedColumns.get(i)) {
+                    skipCell(typeCode, meta, length, inputStream);
+                    continue;
                 }
-                result[index] = deserializeCell(ColumnType.byCode(typeCode), meta, length, inputStream);
+                result[index] = collations == null ?
+                    deserializeCell(ColumnType.byCode(typeCode), meta, length, inputStream) :
+                    deserializeCell(ColumnType.byCode(typeCode), meta, length, collations[i], inputStream);
             }
         }
         return result;
     }
 
+    /**
+     * Same as {@link #deserializeCell(ColumnType, int, int, ByteArrayInputStream)} but with
+     * CHAR/VARCHAR/BINARY/VARBINARY values deserialized according to the collation of the column (0 meaning unknown).
+     */
+    protected Serializable deserializeCell(ColumnType type, int meta, int length, int collation,
+            ByteArrayInputStream inputStream) throws IOException {
+        if (collation != 0) {
+            switch (type) {
+                case STRING:
+                    return deserializeString(length, collation, inputStream);
+                case VARCHAR:
+                case VAR_STRING:
+                    return deserializeVarString(meta, collation, inputStream);
+                default:
+            }
+        }
+        return deserializeCell(type, meta, length, inputStream);
+    }
+
     protected Serializable deserializeCell(ColumnType type, int meta, int length, ByteArrayInputStream inputStream)
             throws IOException {
         switch (type) {
@@ -503,6 +1055,29 @@ public abstract class AbstractRowsEventDataDeserializer<T extends EventData> imp
         return inputStream.readString(varcharLength);
     }
 
+    protected Serializable deserializeString(int length, int collation, ByteArrayInputStream inputStream)
+            throws IOException {
+        int stringLength = length < 256 ? inputStream.readInteger(1) : inputStream.readInteger(2);
+        return readString(stringLength, collation, inputStream);
+    }
+
+    protected Serializable deserializeVarString(int meta, int collation, ByteArrayInputStream inputStream)
+            throws IOException {
+        int varcharLength = meta < 256 ? inputStream.readInteger(1) : inputStream.readInteger(2);
+        return readString(varcharLength, collation, inputStream);
+    }
+
+    private Serializable readString(int length, int collation, ByteArrayInputStream inputStream) throws IOException {
+        Charset charset = CollationCharsets.getCharset(collation);
+        if (charset != null) {
+            return inputStream.readString(length, charset, CollationCharsets.isAsciiCompatible(collation));
+        }
+        if (CollationCharsets.isBinary(collation) || deserializeCharAndBinaryAsByteArray) {
+            return inputStream.read(length);
+        }
+        return inputStream.readString(length);
+    }
+
     protected Serializable deserializeBlob(int meta, ByteArrayInputStream inputStream) throws IOException {
         int blobLength = inputStream.readInteger(meta);
         return inputStream.read(blobLength);
@@ -724,4 +1299,57 @@ public abstract class AbstractRowsEventDataDeserializer<T extends EventData> imp
 
     }
 
+    private final class RowsDeserializationTask implements Callable<List<Serializable[]>> {
+
+        private final TableMapEventData tableMapEvent;
+        private final BitSet[] includedColumns;
+        private final byte[] rows;
+        private final int from;
+        private final int to;
+
+        private RowsDeserializationTask(TableMapEventData tableMapEvent, BitSet[] includedColumns, byte[] rows,
+                int from, int to) {
+            this.tableMapEvent = tableMapEvent;
+            this.includedColumns = includedColumns;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public List<Serializable[]> call() throws IOException {
+            List<Serializable[]> result = new ArrayList<Serializable[]>();
+            ByteArrayInputStream inputStream =
+                new ByteArrayInputStream(rows, from, to - from);
+            while (inputStream.available() > 0) {
+                for (BitSet columns : includedColumns) {
+                    result.add(deserializeRow(tableMapEvent, columns, inputStream));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class ProjectedColumns {
+
+        private final TableMapEventData tableMapEvent;
+        private final BitSet columns;
+
+        private ProjectedColumns(TableMapEventData tableMapEvent, BitSet columns) {
+            this.tableMapEvent = tableMapEvent;
+            this.columns = columns;
+        }
+    }
+
+    private static final class ColumnCollations {
+
+        private final TableMapEventData tableMapEvent;
+        private final int[] collations;
+
+        private ColumnCollations(TableMapEventData tableMapEvent, int[] collations) {
+            this.tableMapEvent = tableMapEvent;
+            this.collations = collations;
+        }
+    }
+
 }
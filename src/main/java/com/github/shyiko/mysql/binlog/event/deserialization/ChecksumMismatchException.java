@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.EventHeader;
+
+/**
+ * Thrown when checksum of the event doesn't match the one computed by the client (see
+ * {@link EventDeserializer#setVerifyChecksum(boolean)}).
+ */
+public class ChecksumMismatchException extends EventDataDeserializationException {
+
+    private final long expectedChecksum;
+    private final long actualChecksum;
+
+    public ChecksumMismatchException(EventHeader eventHeader, long expectedChecksum, long actualChecksum) {
+        super(eventHeader, String.format("checksum mismatch (expected %08x, got %08x)",
+            expectedChecksum, actualChecksum));
+        this.expectedChecksum = expectedChecksum;
+        this.actualChecksum = actualChecksum;
+    }
+
+    /**
+     * @return checksum found in the event
+     */
+    public long getExpectedChecksum() {
+        return expectedChecksum;
+    }
+
+    /**
+     * @return checksum computed by the client
+     */
+    public long getActualChecksum() {
+        return actualChecksum;
+    }
+}
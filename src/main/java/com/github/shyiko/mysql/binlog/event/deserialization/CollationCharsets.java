@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import java.nio.charset.Charset;
+
+/**
+ * MySQL collation id to {@link Charset} mapping (as in INFORMATION_SCHEMA.COLLATIONS of mysql-8.0).
+ * Character sets without Java counterpart (dec8, hp8, swe7, armscii8, keybcs2, geostd8) are not mapped.
+ */
+public final class CollationCharsets {
+
+    public static final int BINARY_COLLATION = 63;
+
+    private static final Charset[] CHARSETS = new Charset[324];
+    private static final boolean[] ASCII_COMPATIBLE = new boolean[CHARSETS.length];
+
+    static {
+        register("Big5", 1, 84);
+        register("IBM850", 4, 80);
+        register("KOI8-R", 7, 74);
+        register("windows-1252", 5, 8, 15, 31, 47, 48, 49, 94); // MySQL's latin1 is actually cp1252
+        register("ISO-8859-2", 2, 9, 21, 27, 77);
+        register("US-ASCII", 11, 65);
+        register("EUC-JP", 12, 91);
+        register("Shift_JIS", 13, 88);
+        register("windows-1251", 14, 23, 50, 51, 52);
+        register("ISO-8859-8", 16, 71);
+        register("TIS-620", 18, 89);
+        register("EUC-KR", 19, 85);
+        register("ISO-8859-13", 20, 41, 42, 79);
+        register("KOI8-U", 22, 75);
+        register("GB2312", 24, 86);
+        register("ISO-8859-7", 25, 70);
+        register("windows-1250", 26, 34, 44, 66, 99);
+        register("GBK", 28, 87);
+        register("windows-1257", 29, 58, 59);
+        register("ISO-8859-9", 30, 78);
+        register("UTF-8", 33, 76, 83, 223); // utf8mb3
+        registerRange("UTF-8", 192, 215);
+        register("UTF-16BE", 35, 90, 159); // ucs2
+        registerRange("UTF-16BE", 128, 151);
+        register("IBM866", 36, 68);
+        register("x-MacCentralEurope", 38, 43);
+        register("x-MacRoman", 39, 53);
+        register("IBM852", 40, 81);
+        register("UTF-8", 45, 46); // utf8mb4
+        registerRange("UTF-8", 224, 247);
+        registerRange("UTF-8", 255, 323);
+        register("UTF-16BE", 54, 55); // utf16
+        registerRange("UTF-16BE", 101, 124);
+        register("UTF-16LE", 56, 62);
+        register("windows-1256", 57, 67);
+        register("UTF-32BE", 60, 61);
+        registerRange("UTF-32BE", 160, 183);
+        register("windows-31j", 95, 96);
+        register("x-eucJP-Open", 97, 98);
+        register("GB18030", 248, 249, 250);
+    }
+
+    private CollationCharsets() {
+    }
+
+    private static void register(String charsetName, int... collationIds) {
+        if (!Charset.isSupported(charsetName)) {
+            return;
+        }
+        Charset charset = Charset.forName(charsetName);
+        boolean asciiCompatible = !charsetName.startsWith("UTF-16") && !charsetName.startsWith("UTF-32");
+        for (int collationId : collationIds) {
+            CHARSETS[collationId] = charset;
+            ASCII_COMPATIBLE[collationId] = asciiCompatible;
+        }
+    }
+
+    private static void registerRange(String charsetName, int fromCollationId, int toCollationId) {
+        int[] collationIds = new int[toCollationId - fromCollationId + 1];
+        for (int i = 0; i < collationIds.length; i++) {
+            collationIds[i] = fromCollationId + i;
+        }
+        register(charsetName, collationIds);
+    }
+
+    /**
+     * @return charset of the collation, null if collation is either binary (see {@link #isBinary(int)}) or unknown
+     */
+    public static Charset getCharset(int collationId) {
+        return collationId > 0 && collationId < CHARSETS.length ? CHARSETS[collationId] : null;
+    }
+
+    public static boolean isBinary(int collationId) {
+        return collationId == BINARY_COLLATION;
+    }
+
+    /**
+     * @return true if bytes 0x00-0x7F always stand for the corresponding ASCII characters
+     */
+    public static boolean isAsciiCompatible(int collationId) {
+        return collationId > 0 && collationId < ASCII_COMPATIBLE.length && ASCII_COMPATIBLE[collationId];
+    }
+
+}
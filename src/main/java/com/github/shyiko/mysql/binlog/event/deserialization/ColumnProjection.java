@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of columns to deserialize, per table (see {@link EventDeserializer#setColumnProjection(ColumnProjection)}).
+ * Cells of the columns which are not projected are skipped (by their encoded length) and returned as {@code null}
+ * (meaning that row images keep their size and the position of each cell is still defined by the included columns
+ * of the event). Tables without a projection are deserialized in full.
+ * <p>
+ * Projection by column name relies on TABLE_MAP metadata, which is present only when binlog_row_metadata=FULL
+ * (MySQL 8.0.1+). Without it, rows of such tables are deserialized in full.
+ */
+public class ColumnProjection {
+
+    private final Map<String, Projection> projectionByTable = new HashMap<String, Projection>();
+
+    /**
+     * @param columnNames names of the columns to deserialize (case-insensitive)
+     */
+    public void project(String database, String table, String... columnNames) {
+        Set<String> names = new HashSet<String>();
+        for (String columnName : columnNames) {
+            names.add(columnName.toLowerCase(Locale.ROOT));
+        }
+        projectionByTable.put(key(database, table), new Projection(names, null));
+    }
+
+    /**
+     * @param columnIndexes positions (0-based) of the columns to deserialize within the table
+     */
+    public void project(String database, String table, int... columnIndexes) {
+        BitSet indexes = new BitSet();
+        for (int columnIndex : columnIndexes) {
+            indexes.set(columnIndex);
+        }
+        projectionByTable.put(key(database, table), new Projection(null, indexes));
+    }
+
+    /**
+     * @return columns of the table to deserialize, null if all of them
+     */
+    public BitSet getProjectedColumns(TableMapEventData tableMapEvent) {
+        Projection projection = projectionByTable.get(key(tableMapEvent.getDatabase(), tableMapEvent.getTable()));
+        if (projection == null) {
+            return null;
+        }
+        if (projection.columnIndexes != null) {
+            return (BitSet) projection.columnIndexes.clone();
+        }
+        TableMapEventMetadata eventMetadata = tableMapEvent.getEventMetadata();
+        List<String> columnNames = eventMetadata != null ? eventMetadata.getColumnNames() : null;
+        if (columnNames == null) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (int i = 0; i < columnNames.size(); i++) {
+            String columnName = columnNames.get(i);
+            if (columnName != null && projection.columnNames.contains(columnName.toLowerCase(Locale.ROOT))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    private static String key(String database, String table) {
+        return database + "." + table;
+    }
+
+    private static final class Projection {
+
+        private final Set<String> columnNames;
+        private final BitSet columnIndexes;
+
+        private Projection(Set<String> columnNames, BitSet columnIndexes) {
+            this.columnNames = columnNames;
+            this.columnIndexes = columnIndexes;
+        }
+    }
+}
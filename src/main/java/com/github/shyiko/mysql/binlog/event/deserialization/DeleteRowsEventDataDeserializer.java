@@ -20,10 +20,7 @@ import com.github.shyiko.mysql.binlog.event.TableMapEventData;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.BitSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -44,6 +41,31 @@ public class DeleteRowsEventDataDeserializer extends AbstractRowsEventDataDeseri
 
     @Override
     public DeleteRowsEventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+        DeleteRowsEventData eventData = deserializeHeader(inputStream);
+        BitSet[] includedColumns = {eventData.getIncludedColumns()};
+        if (isDeserializeRowsLazily()) {
+            eventData.setLazyRows(deserializeLazyRowImages(eventData.getTableId(), includedColumns, inputStream));
+        } else {
+            eventData.setRows(deserializeRowImages(eventData.getTableId(), includedColumns, inputStream));
+        }
+        return eventData;
+    }
+
+    /**
+     * Same as {@link #deserialize(ByteArrayInputStream)} except that rows are passed to the visitor (cell by cell)
+     * instead of being materialized (eagerly or lazily).
+     * @param inputStream rows event body
+     * @param visitor visitor to walk row images with
+     * @return event data without rows
+     * @throws IOException in case of EOF or malformed row image
+     */
+    public DeleteRowsEventData visitRows(ByteArrayInputStream inputStream, RowsVisitor visitor) throws IOException {
+        DeleteRowsEventData eventData = deserializeHeader(inputStream);
+        visitRowImages(eventData.getTableId(), new BitSet[] {eventData.getIncludedColumns()}, inputStream, visitor);
+        return eventData;
+    }
+
+    private DeleteRowsEventData deserializeHeader(ByteArrayInputStream inputStream) throws IOException {
         DeleteRowsEventData eventData = new DeleteRowsEventData();
         eventData.setTableId(inputStream.readLong(6));
         inputStream.readInteger(2); // reserved
@@ -53,17 +75,7 @@ public class DeleteRowsEventDataDeserializer extends AbstractRowsEventDataDeseri
         }
         int numberOfColumns = inputStream.readPackedInteger();
         eventData.setIncludedColumns(inputStream.readBitSet(numberOfColumns, true));
-        eventData.setRows(deserializeRows(eventData.getTableId(), eventData.getIncludedColumns(), inputStream));
         return eventData;
     }
 
-    private List<Serializable[]> deserializeRows(long tableId, BitSet includedColumns, ByteArrayInputStream inputStream)
-            throws IOException {
-        List<Serializable[]> result = new LinkedList<Serializable[]>();
-        while (inputStream.available() > 0) {
-            result.add(deserializeRow(tableId, includedColumns, inputStream));
-        }
-        return result;
-    }
-
 }
@@ -31,6 +31,11 @@ public class EventDataDeserializationException extends IOException {
         this.eventHeader = eventHeader;
     }
 
+    protected EventDataDeserializationException(EventHeader eventHeader, String message) {
+        super("Failed to deserialize data of " + eventHeader + ": " + message);
+        this.eventHeader = eventHeader;
+    }
+
     public EventHeader getEventHeader() {
         return eventHeader;
     }
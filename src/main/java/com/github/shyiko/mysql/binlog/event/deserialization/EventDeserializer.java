@@ -20,22 +20,39 @@ import com.github.shyiko.mysql.binlog.event.EventData;
 import com.github.shyiko.mysql.binlog.event.EventHeader;
 import com.github.shyiko.mysql.binlog.event.EventType;
 import com.github.shyiko.mysql.binlog.event.FormatDescriptionEventData;
-import com.github.shyiko.mysql.binlog.event.LRUCache;
+import com.github.shyiko.mysql.binlog.event.TableMapCache;
 import com.github.shyiko.mysql.binlog.event.TableMapEventData;
 import com.github.shyiko.mysql.binlog.event.TransactionPayloadEventData;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
 public class EventDeserializer {
 
+    private static final EventDataDeserializer SKIPPING_EVENT_DATA_DESERIALIZER = new EventDataDeserializer() {
+
+        @Override
+        public EventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+            inputStream.fastSkip(inputStream.available());
+            return null;
+        }
+    };
+
+    // events BinaryLogClient relies on to keep track of binlog filename/position and GTID set
+    private static final EnumSet<EventType> TRACKING_EVENT_TYPES = EnumSet.of(EventType.ROTATE, EventType.GTID,
+        EventType.QUERY, EventType.XID, EventType.ANNOTATE_ROWS, EventType.MARIADB_GTID, EventType.MARIADB_GTID_LIST);
+
     private final EventHeaderDeserializer eventHeaderDeserializer;
     private final EventDataDeserializer defaultEventDataDeserializer;
     private final Map<EventType, EventDataDeserializer> eventDataDeserializers;
@@ -43,6 +60,19 @@ public class EventDeserializer {
     private EnumSet<CompatibilityMode> compatibilitySet = EnumSet.noneOf(CompatibilityMode.class);
     private int checksumLength;
 
+    private ExecutorService rowsDeserializationExecutor;
+    private int rowsPerTask;
+    private boolean deserializeRowsLazily;
+    private boolean streamTransactionPayloads;
+    private boolean internTableMapEvents;
+    private EventFilter eventFilter;
+    private ColumnProjection columnProjection;
+    // whether or not table passes the filter (computed once per TABLE_MAP event data, shared with the deserializers
+    // of TRANSACTION_PAYLOAD events (which might be used by other threads))
+    private Map<TableMapEventData, Boolean> tableInclusion =
+        Collections.synchronizedMap(new WeakHashMap<TableMapEventData, Boolean>());
+    private CRC32 checksum;
+
     private final Map<Long, TableMapEventData> tableMapEventByTableId;
 
     private EventDataDeserializer tableMapEventDataDeserializer;
@@ -63,11 +93,23 @@ public class EventDeserializer {
     public EventDeserializer(
             EventHeaderDeserializer eventHeaderDeserializer,
             EventDataDeserializer defaultEventDataDeserializer
+    ) {
+        this(eventHeaderDeserializer, defaultEventDataDeserializer, new TableMapCache(10000));
+    }
+
+    /**
+     * @param tableMapEventByTableId store of TABLE_MAP event data used while deserializing rows (e.g.
+     * {@link TableMapCache} of a size appropriate for the number of tables, which also keeps hit/miss/eviction counts)
+     */
+    public EventDeserializer(
+            EventHeaderDeserializer eventHeaderDeserializer,
+            EventDataDeserializer defaultEventDataDeserializer,
+            Map<Long, TableMapEventData> tableMapEventByTableId
     ) {
         this.eventHeaderDeserializer = eventHeaderDeserializer;
         this.defaultEventDataDeserializer = defaultEventDataDeserializer;
         this.eventDataDeserializers = new IdentityHashMap<EventType, EventDataDeserializer>();
-        this.tableMapEventByTableId = new LRUCache<>(100, 0.75f, 10000);
+        this.tableMapEventByTableId = tableMapEventByTableId;
         registerDefaultEventDataDeserializers();
         afterEventDataDeserializerSet(null);
     }
@@ -113,6 +155,8 @@ public class EventDeserializer {
         eventDataDeserializers.put(EventType.EXT_DELETE_ROWS,
                 new DeleteRowsEventDataDeserializer(tableMapEventByTableId).
                         setMayContainExtraInformation(true));
+        eventDataDeserializers.put(EventType.PARTIAL_UPDATE_ROWS_EVENT,
+                new PartialUpdateRowsEventDataDeserializer(tableMapEventByTableId));
         eventDataDeserializers.put(EventType.ROWS_QUERY,
                 new RowsQueryEventDataDeserializer());
         eventDataDeserializers.put(EventType.GTID,
@@ -129,8 +173,10 @@ public class EventDeserializer {
             new BinlogCheckpointEventDataDeserializer());
         eventDataDeserializers.put(EventType.MARIADB_GTID_LIST,
             new MariadbGtidListEventDataDeserializer());
-        eventDataDeserializers.put(EventType.TRANSACTION_PAYLOAD,
-                new TransactionPayloadEventDataDeserializer());
+        TransactionPayloadEventDataDeserializer transactionPayloadEventDataDeserializer =
+            new TransactionPayloadEventDataDeserializer();
+        transactionPayloadEventDataDeserializer.setParent(this);
+        eventDataDeserializers.put(EventType.TRANSACTION_PAYLOAD, transactionPayloadEventDataDeserializer);
     }
 
     public void setEventDataDeserializer(EventType eventType, EventDataDeserializer eventDataDeserializer) {
@@ -144,8 +190,9 @@ public class EventDeserializer {
             EventDataDeserializer eventDataDeserializer = getEventDataDeserializer(EventType.TABLE_MAP);
             if (eventDataDeserializer.getClass() != TableMapEventDataDeserializer.class &&
                 eventDataDeserializer.getClass() != EventDataWrapper.Deserializer.class) {
-                tableMapEventDataDeserializer = new EventDataWrapper.Deserializer(
-                    new TableMapEventDataDeserializer(), eventDataDeserializer);
+                TableMapEventDataDeserializer internal = new TableMapEventDataDeserializer();
+                internal.setInterning(internTableMapEvents);
+                tableMapEventDataDeserializer = new EventDataWrapper.Deserializer(internal, eventDataDeserializer);
             } else {
                 tableMapEventDataDeserializer = null;
             }
@@ -177,13 +224,130 @@ public class EventDeserializer {
 	 * @param rest many modes
      */
     public void setCompatibilityMode(CompatibilityMode first, CompatibilityMode... rest) {
-        this.compatibilitySet = EnumSet.of(first, rest);
+        EnumSet<CompatibilityMode> compatibilitySet = EnumSet.of(first, rest);
+        if (compatibilitySet.contains(CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY) &&
+            compatibilitySet.contains(CompatibilityMode.CHAR_USING_COLUMN_CHARSET)) {
+            throw new IllegalArgumentException("CHAR_AND_BINARY_AS_BYTE_ARRAY and CHAR_USING_COLUMN_CHARSET " +
+                "are mutually exclusive");
+        }
+        this.compatibilitySet = compatibilitySet;
+        for (EventDataDeserializer eventDataDeserializer : eventDataDeserializers.values()) {
+            ensureCompatibility(eventDataDeserializer);
+        }
+    }
+
+    /**
+     * @param verifyChecksum true if CRC32 checksum of each event (other than FORMAT_DESCRIPTION) should be compared
+     * against the one computed while event is being read, false otherwise (default). Has effect only if
+     * binlog_checksum is CRC32. In case of a mismatch {@link #nextEvent(ByteArrayInputStream)} throws
+     * {@link ChecksumMismatchException}.
+     */
+    public void setVerifyChecksum(boolean verifyChecksum) {
+        this.checksum = verifyChecksum ? new CRC32() : null;
+    }
+
+    /**
+     * Enables parallel deserialization of (EXT_)WRITE_ROWS/UPDATE_ROWS/DELETE_ROWS events. Rows of each event are
+     * split into ranges of {@code rowsPerTask} rows, which are deserialized concurrently (using given executor)
+     * and then put back together (in the original order) before event is returned from
+     * {@link #nextEvent(ByteArrayInputStream)}. Events themselves are still deserialized one at a time.
+     * Note that custom {@link AbstractRowsEventDataDeserializer}s must be thread-safe for this to work.
+     * @param executor executor to use (e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}),
+     * null to deserialize rows on the calling thread (default)
+     * @param rowsPerTask number of rows deserialized by a single task
+     */
+    public void setRowsDeserializationExecutor(ExecutorService executor, int rowsPerTask) {
+        if (executor != null && rowsPerTask < 1) {
+            throw new IllegalArgumentException("Number of rows per task must be greater than 0");
+        }
+        this.rowsDeserializationExecutor = executor;
+        this.rowsPerTask = rowsPerTask;
+        for (EventDataDeserializer eventDataDeserializer : eventDataDeserializers.values()) {
+            ensureCompatibility(eventDataDeserializer);
+        }
+    }
+
+    /**
+     * @param deserializeRowsLazily true if (EXT_)WRITE_ROWS/UPDATE_ROWS/DELETE_ROWS event data should keep rows in
+     * their binary form and deserialize cells only when they are accessed (through {@link LazyRow}s, e.g.
+     * {@link com.github.shyiko.mysql.binlog.event.WriteRowsEventData#row(int)}), false otherwise (default).
+     * {@code getRows()} is still available (rows get fully deserialized on first call). Takes precedence over
+     * {@link #setRowsDeserializationExecutor(ExecutorService, int)}.
+     */
+    public void setDeserializeRowsLazily(boolean deserializeRowsLazily) {
+        this.deserializeRowsLazily = deserializeRowsLazily;
+        for (EventDataDeserializer eventDataDeserializer : eventDataDeserializers.values()) {
+            ensureCompatibility(eventDataDeserializer);
+        }
+    }
+
+    /**
+     * @param streamTransactionPayloads true if TRANSACTION_PAYLOAD event data should keep only the compressed payload
+     * and decompress/deserialize inner events one at a time while being iterated over (see
+     * {@link TransactionPayloadEventData#iterator()}), false if all the inner events should be decompressed and
+     * deserialized upfront (default). Note that in streaming mode
+     * {@link TransactionPayloadEventData#getUncompressedEvents()} returns null.
+     */
+    public void setStreamTransactionPayloads(boolean streamTransactionPayloads) {
+        this.streamTransactionPayloads = streamTransactionPayloads;
+        for (EventDataDeserializer eventDataDeserializer : eventDataDeserializers.values()) {
+            ensureCompatibility(eventDataDeserializer);
+        }
+    }
+
+    /**
+     * @param internTableMapEvents true if TABLE_MAP events should be decoded only once per distinct binary
+     * representation (which stays the same for as long as table id and table definition do) and then shared
+     * (as an immutable {@link TableMapEventData} with type, length and charset of each column resolved upfront),
+     * false if every TABLE_MAP event should be decoded from scratch (default).
+     * Has no effect on custom TABLE_MAP deserializers (other than {@link TableMapEventDataDeserializer}).
+     */
+    public void setInternTableMapEvents(boolean internTableMapEvents) {
+        this.internTableMapEvents = internTableMapEvents;
+        for (EventDataDeserializer eventDataDeserializer : eventDataDeserializers.values()) {
+            ensureCompatibility(eventDataDeserializer);
+        }
+        afterEventDataDeserializerSet(EventType.TABLE_MAP);
+    }
+
+    /**
+     * @param eventFilter filter to apply to the incoming events (null to let everything through (default)).
+     * Events which don't pass the filter are returned with {@code null} data (except for ROTATE, GTID, QUERY, XID,
+     * ANNOTATE_ROWS, MARIADB_GTID and MARIADB_GTID_LIST, data of which is wrapped into {@link EventDataWrapper} with
+     * {@code null} external part, so that the client could still track position). Rows events of the excluded tables
+     * are skipped without being deserialized (provided input stream supports
+     * {@link ByteArrayInputStream#peekLong(int)}, which is the case for both
+     * {@link com.github.shyiko.mysql.binlog.BinaryLogClient} and
+     * {@link com.github.shyiko.mysql.binlog.BinaryLogFileReader}). Applies to the events inside TRANSACTION_PAYLOAD
+     * too.
+     */
+    public void setEventFilter(EventFilter eventFilter) {
+        this.eventFilter = eventFilter;
+        this.tableInclusion.clear();
+    }
+
+    /**
+     * @param columnProjection columns to deserialize (per table), null to deserialize all of them (default).
+     * Applies to (EXT_)WRITE_ROWS/UPDATE_ROWS/DELETE_ROWS (as well as PARTIAL_UPDATE_ROWS_EVENT) events.
+     * Has no effect when rows are deserialized lazily (see {@link #setDeserializeRowsLazily(boolean)}), as
+     * {@link LazyRow} deserializes only the cells that are accessed anyway. Projection is resolved once per
+     * TABLE_MAP, so it should not be modified after being set. Applies to the events inside TRANSACTION_PAYLOAD too.
+     */
+    public void setColumnProjection(ColumnProjection columnProjection) {
+        this.columnProjection = columnProjection;
         for (EventDataDeserializer eventDataDeserializer : eventDataDeserializers.values()) {
             ensureCompatibility(eventDataDeserializer);
         }
     }
 
     private void ensureCompatibility(EventDataDeserializer eventDataDeserializer) {
+        if (eventDataDeserializer instanceof TableMapEventDataDeserializer) {
+            ((TableMapEventDataDeserializer) eventDataDeserializer).setInterning(internTableMapEvents);
+        }
+        if (eventDataDeserializer instanceof TransactionPayloadEventDataDeserializer) {
+            ((TransactionPayloadEventDataDeserializer) eventDataDeserializer).setStreaming(streamTransactionPayloads);
+            ((TransactionPayloadEventDataDeserializer) eventDataDeserializer).setParent(this);
+        }
         if (eventDataDeserializer instanceof AbstractRowsEventDataDeserializer) {
             AbstractRowsEventDataDeserializer deserializer =
                 (AbstractRowsEventDataDeserializer) eventDataDeserializer;
@@ -214,9 +378,15 @@ public class EventDeserializer {
             deserializer.setDeserializeCharAndBinaryAsByteArray(
                 compatibilitySet.contains(CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY)
             );
+            deserializer.setDeserializeCharUsingColumnCharset(
+                compatibilitySet.contains(CompatibilityMode.CHAR_USING_COLUMN_CHARSET)
+            );
             deserializer.setDeserializeIntegerAsByteArray(
                 compatibilitySet.contains(CompatibilityMode.INTEGER_AS_BYTE_ARRAY)
             );
+            deserializer.setRowsDeserializationExecutor(rowsDeserializationExecutor, rowsPerTask);
+            deserializer.setDeserializeRowsLazily(deserializeRowsLazily);
+            deserializer.setColumnProjection(columnProjection);
         }
     }
 
@@ -229,25 +399,76 @@ public class EventDeserializer {
         if (inputStream.peek() == -1) {
             return null;
         }
+        if (checksum != null && checksumLength == ChecksumType.CRC32.getLength()) {
+            inputStream.startChecksum(checksum);
+        }
         EventHeader eventHeader = eventHeaderDeserializer.deserialize(inputStream);
         EventData eventData;
         switch (eventHeader.getEventType()) {
             case FORMAT_DESCRIPTION:
+                inputStream.stopChecksum();
                 eventData = deserializeFormatDescriptionEventData(inputStream, eventHeader);
                 break;
             case TABLE_MAP:
                 eventData = deserializeTableMapEventData(inputStream, eventHeader);
-                break;
-            case TRANSACTION_PAYLOAD:
-                eventData = deserializeTransactionPayloadEventData(inputStream, eventHeader);
+                if (eventFilter != null && !isIncluded(eventData)) {
+                    eventData = null;
+                }
                 break;
             default:
-                EventDataDeserializer eventDataDeserializer = getEventDataDeserializer(eventHeader.getEventType());
-                eventData = deserializeEventData(inputStream, eventHeader, eventDataDeserializer);
+                if (eventFilter != null && !isIncluded(eventHeader, inputStream)) {
+                    if (TRACKING_EVENT_TYPES.contains(eventHeader.getEventType())) {
+                        // hidden from the listeners but still available to the client (just like in case of
+                        // NullEventDataDeserializer wrapped by BinaryLogClient#ensureEventDataDeserializer)
+                        EventData internalEventData = deserializeEventData(inputStream, eventHeader,
+                            getEventDataDeserializer(eventHeader.getEventType()));
+                        eventData = new EventDataWrapper(EventDataWrapper.internal(internalEventData), null);
+                    } else {
+                        deserializeEventData(inputStream, eventHeader, SKIPPING_EVENT_DATA_DESERIALIZER);
+                        eventData = null;
+                    }
+                } else if (eventHeader.getEventType() == EventType.TRANSACTION_PAYLOAD) {
+                    eventData = deserializeTransactionPayloadEventData(inputStream, eventHeader);
+                } else {
+                    EventDataDeserializer eventDataDeserializer = getEventDataDeserializer(eventHeader.getEventType());
+                    eventData = deserializeEventData(inputStream, eventHeader, eventDataDeserializer);
+                }
         }
         return new Event(eventHeader, eventData);
     }
 
+    private boolean isIncluded(EventData tableMapEventData) {
+        if (!eventFilter.isIncluded(EventType.TABLE_MAP)) {
+            return false;
+        }
+        EventData eventData = EventDataWrapper.internal(tableMapEventData);
+        return !(eventData instanceof TableMapEventData) || isIncluded((TableMapEventData) eventData);
+    }
+
+    private boolean isIncluded(TableMapEventData tableMapEvent) {
+        Boolean included = tableInclusion.get(tableMapEvent);
+        if (included == null) {
+            included = eventFilter.isIncluded(tableMapEvent.getDatabase(), tableMapEvent.getTable());
+            tableInclusion.put(tableMapEvent, included);
+        }
+        return included;
+    }
+
+    private boolean isIncluded(EventHeader eventHeader, ByteArrayInputStream inputStream) throws IOException {
+        EventType eventType = eventHeader.getEventType();
+        if (!eventFilter.isIncluded(eventType)) {
+            return false;
+        }
+        if (EventType.isRowMutation(eventType) && eventFilter.hasTableRules() && inputStream.markSupported()) {
+            long tableId = inputStream.peekLong(6);
+            TableMapEventData tableMapEvent = tableMapEventByTableId instanceof TableMapCache ?
+                ((TableMapCache) tableMapEventByTableId).get(tableId) : tableMapEventByTableId.get(tableId);
+            // in case of unknown table id, rows event is deserialized (so that MissingTableMapEventException is raised)
+            return tableMapEvent == null || isIncluded(tableMapEvent);
+        }
+        return true;
+    }
+
     private EventData deserializeFormatDescriptionEventData(ByteArrayInputStream inputStream, EventHeader eventHeader)
             throws EventDataDeserializationException {
         EventDataDeserializer eventDataDeserializer =
@@ -286,6 +507,31 @@ public class EventDeserializer {
         return eventData;
     }
 
+    /**
+     * @param sameThread true if returned deserializer is going to be used by the same thread as this one (in which
+     * case TABLE_MAP deserializer (along with interned TABLE_MAP events) is shared)
+     * @return deserializer for the events inside TRANSACTION_PAYLOAD, configured the same way as this one
+     */
+    EventDeserializer newTransactionPayloadEventDeserializer(boolean sameThread) {
+        EventDeserializer result = new EventDeserializer();
+        result.compatibilitySet = EnumSet.copyOf(compatibilitySet);
+        result.rowsDeserializationExecutor = rowsDeserializationExecutor;
+        result.rowsPerTask = rowsPerTask;
+        result.deserializeRowsLazily = deserializeRowsLazily;
+        result.internTableMapEvents = internTableMapEvents;
+        result.eventFilter = eventFilter;
+        result.tableInclusion = tableInclusion;
+        result.columnProjection = columnProjection;
+        EventDataDeserializer tableMapEventDataDeserializer = getEventDataDeserializer(EventType.TABLE_MAP);
+        if (sameThread && tableMapEventDataDeserializer.getClass() == TableMapEventDataDeserializer.class) {
+            result.eventDataDeserializers.put(EventType.TABLE_MAP, tableMapEventDataDeserializer);
+        }
+        for (EventDataDeserializer eventDataDeserializer : result.eventDataDeserializers.values()) {
+            result.ensureCompatibility(eventDataDeserializer);
+        }
+        return result;
+    }
+
     public EventData deserializeTransactionPayloadEventData(ByteArrayInputStream inputStream, EventHeader eventHeader)
         throws IOException {
         EventDataDeserializer eventDataDeserializer = eventDataDeserializers.get(EventType.TRANSACTION_PAYLOAD);
@@ -297,6 +543,9 @@ public class EventDeserializer {
          * events within the transaction payload, the target table id and the event gets added to the
          * tableMapEventByTableId map. This is map is later used while deserializing rows.
          */
+        if (transactionPayloadEventData.getUncompressedEvents() == null) {
+            return eventData; // streamed
+        }
         for (Event event : transactionPayloadEventData.getUncompressedEvents()) {
             if (event.getHeader().getEventType() == EventType.TABLE_MAP && event.getData() != null) {
                 TableMapEventData tableMapEvent = (TableMapEventData) event.getData();
@@ -331,17 +580,22 @@ public class EventDeserializer {
             EventDataDeserializer eventDataDeserializer) throws EventDataDeserializationException {
         int eventBodyLength = (int) eventHeader.getDataLength() - checksumLength;
         EventData eventData;
+        long actualChecksum, expectedChecksum;
         try {
             inputStream.enterBlock(eventBodyLength);
             try {
                 eventData = eventDataDeserializer.deserialize(inputStream);
             } finally {
                 inputStream.skipToTheEndOfTheBlock();
-                inputStream.skip(checksumLength);
+                actualChecksum = inputStream.stopChecksum();
+                expectedChecksum = inputStream.readLong(checksumLength);
             }
         } catch (IOException e) {
             throw new EventDataDeserializationException(eventHeader, e);
         }
+        if (actualChecksum != -1 && actualChecksum != expectedChecksum) {
+            throw new ChecksumMismatchException(eventHeader, expectedChecksum, actualChecksum);
+        }
         return eventData;
     }
 
@@ -393,6 +647,13 @@ public class EventDeserializer {
          * <p>This option is going to be enabled by default starting from mysql-binlog-connector-java@1.0.0.
          */
         CHAR_AND_BINARY_AS_BYTE_ARRAY,
+        /**
+         * Decode CHAR/VARCHAR values using the charset of the column and return BINARY/VARBINARY values as byte[]|s.
+         * Charsets are taken from TABLE_MAP's optional metadata (mysql-8.0.1+, binlog_row_metadata), columns
+         * without known charset are deserialized as before. Cannot be combined with
+         * {@link #CHAR_AND_BINARY_AS_BYTE_ARRAY}.
+         */
+        CHAR_USING_COLUMN_CHARSET,
         /**
          * Return TINY/SHORT/INT24/LONG/LONGLONG values as byte[]|s (instead of int|s).
          */
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.EventType;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative filter applied by {@link EventDeserializer} (see {@link EventDeserializer#setEventFilter(EventFilter)})
+ * right after event header is read. Event which doesn't pass the filter is returned with {@code null} data
+ * (its body being skipped instead of deserialized).
+ * <p>
+ * Table rules apply to TABLE_MAP and (EXT_)WRITE_ROWS/UPDATE_ROWS/DELETE_ROWS (as well as PARTIAL_UPDATE_ROWS_EVENT)
+ * events. Table is included if it matches at least one of the {@link #includeTable(String, String)} rules (or there
+ * are none) and none of the {@link #excludeTable(String, String)} ones. Note that TABLE_MAP events are always
+ * deserialized (as they are needed to resolve table id of the subsequent rows events), it's only their data that
+ * gets hidden.
+ * <p>
+ * Excluding ROTATE, GTID, QUERY, XID, ANNOTATE_ROWS, MARIADB_GTID or MARIADB_GTID_LIST is safe: since
+ * {@link com.github.shyiko.mysql.binlog.BinaryLogClient} relies on them to keep track of the position, their data
+ * is still deserialized, only hidden from the listeners (see {@link EventDeserializer#setEventFilter(EventFilter)}).
+ */
+public class EventFilter {
+
+    private EnumSet<EventType> includedEventTypes; // null means all
+    private final EnumSet<EventType> excludedEventTypes = EnumSet.noneOf(EventType.class);
+    private final List<Pattern[]> includedTables = new ArrayList<Pattern[]>();
+    private final List<Pattern[]> excludedTables = new ArrayList<Pattern[]>();
+
+    /**
+     * @param first event type to include (any other event type is going to be excluded)
+     * @param rest many event types
+     */
+    public void setIncludedEventTypes(EventType first, EventType... rest) {
+        this.includedEventTypes = EnumSet.of(first, rest);
+    }
+
+    public void setExcludedEventTypes(EventType first, EventType... rest) {
+        this.excludedEventTypes.clear();
+        this.excludedEventTypes.addAll(EnumSet.of(first, rest));
+    }
+
+    /**
+     * @param databasePattern regular expression database name has to match (e.g. "inventory")
+     * @param tablePattern regular expression table name has to match (e.g. "orders|order_items", "tmp_.*")
+     */
+    public void includeTable(String databasePattern, String tablePattern) {
+        includedTables.add(new Pattern[]{Pattern.compile(databasePattern), Pattern.compile(tablePattern)});
+    }
+
+    /**
+     * @see #includeTable(String, String)
+     */
+    public void excludeTable(String databasePattern, String tablePattern) {
+        excludedTables.add(new Pattern[]{Pattern.compile(databasePattern), Pattern.compile(tablePattern)});
+    }
+
+    public boolean isIncluded(EventType eventType) {
+        return (includedEventTypes == null || includedEventTypes.contains(eventType)) &&
+            !excludedEventTypes.contains(eventType);
+    }
+
+    public boolean isIncluded(String database, String table) {
+        if (database == null) {
+            database = "";
+        }
+        if (table == null) {
+            table = "";
+        }
+        return (includedTables.isEmpty() || matches(includedTables, database, table)) &&
+            !matches(excludedTables, database, table);
+    }
+
+    boolean hasTableRules() {
+        return !includedTables.isEmpty() || !excludedTables.isEmpty();
+    }
+
+    private static boolean matches(List<Pattern[]> rules, String database, String table) {
+        for (Pattern[] rule : rules) {
+            if (rule[0].matcher(database).matches() && rule[1].matcher(table).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
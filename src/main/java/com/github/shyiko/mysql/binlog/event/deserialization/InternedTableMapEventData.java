@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+
+import java.util.BitSet;
+
+/**
+ * Decoded TABLE_MAP shared by all the events with the same binary representation
+ * (see {@link EventDeserializer#setInternTableMapEvents(boolean)}). Setters throw
+ * {@link UnsupportedOperationException}. Arrays, BitSet and metadata returned by getters are shared too and must not
+ * be modified.
+ * <p>
+ * Real type, length and collation of each column are resolved once (instead of on every row).
+ */
+final class InternedTableMapEventData extends TableMapEventData {
+
+    private final ColumnType[] cellTypes;
+    private final int[] cellLengths;
+    private final int[] collations;
+
+    InternedTableMapEventData(TableMapEventData tableMapEvent) {
+        super.setTableId(tableMapEvent.getTableId());
+        super.setDatabase(tableMapEvent.getDatabase());
+        super.setTable(tableMapEvent.getTable());
+        super.setColumnTypes(tableMapEvent.getColumnTypes());
+        super.setColumnMetadata(tableMapEvent.getColumnMetadata());
+        super.setColumnNullability(tableMapEvent.getColumnNullability());
+        super.setEventMetadata(tableMapEvent.getEventMetadata());
+        byte[] types = tableMapEvent.getColumnTypes();
+        int[] metadata = tableMapEvent.getColumnMetadata();
+        cellTypes = new ColumnType[types.length];
+        cellLengths = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            int typeCode = types[i] & 0xFF, meta = metadata[i];
+            cellTypes[i] = ColumnType.byCode(AbstractRowsEventDataDeserializer.realTypeCode(typeCode, meta));
+            cellLengths[i] = AbstractRowsEventDataDeserializer.realLength(typeCode, meta);
+        }
+        collations = AbstractRowsEventDataDeserializer.resolveColumnCollations(tableMapEvent);
+    }
+
+    /**
+     * @return {@link ColumnType} of each column, as passed to
+     * {@link AbstractRowsEventDataDeserializer#deserializeCell(ColumnType, int, int,
+     * com.github.shyiko.mysql.binlog.io.ByteArrayInputStream)}
+     */
+    ColumnType[] getCellTypes() {
+        return cellTypes;
+    }
+
+    int[] getCellLengths() {
+        return cellLengths;
+    }
+
+    /**
+     * @return collation of each column (0 if not a character one), null if TABLE_MAP has no charset metadata
+     */
+    int[] getCollations() {
+        return collations;
+    }
+
+    @Override
+    public void setTableId(long tableId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setDatabase(String database) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setTable(String table) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setColumnTypes(byte[] columnTypes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setColumnMetadata(int[] columnMetadata) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setColumnNullability(BitSet columnNullability) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setEventMetadata(TableMapEventMetadata eventMetadata) {
+        throw new UnsupportedOperationException();
+    }
+
+}
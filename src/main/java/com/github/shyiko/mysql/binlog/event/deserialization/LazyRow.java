@@ -0,0 +1,193 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Row image which keeps cells in their binary form, deserializing them only when (and if) they are requested
+ * (see {@link EventDeserializer#setDeserializeRowsLazily(boolean)}). {@code col} is an index among the included
+ * columns, exactly as in the eagerly deserialized rows (meaning that {@code row.get(i)} is equal to
+ * {@code row.toArray()[i]}).
+ *
+ * @see AbstractRowsEventDataDeserializer
+ */
+public class LazyRow {
+
+    private final AbstractRowsEventDataDeserializer<?> deserializer;
+    private final TableMapEventData tableMapEvent;
+    private final BitSet includedColumns;
+    private final int[] columns; // position within the table of each included column
+    private final byte[] buffer;
+    private final int rowOffset;
+    private int[] offsets; // -1 in case of NULL (computed on first access)
+
+    LazyRow(AbstractRowsEventDataDeserializer<?> deserializer, TableMapEventData tableMapEvent,
+            BitSet includedColumns, int[] columns, byte[] buffer, int rowOffset) {
+        this.deserializer = deserializer;
+        this.tableMapEvent = tableMapEvent;
+        this.includedColumns = includedColumns;
+        this.columns = columns;
+        this.buffer = buffer;
+        this.rowOffset = rowOffset;
+    }
+
+    private int offset(int col) {
+        if (offsets == null) {
+            int[] result = new int[columns.length];
+            try {
+                AbstractRowsEventDataDeserializer.skipRow(tableMapEvent, includedColumns, buffer, rowOffset, result);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // boundaries were already checked by the deserializer
+            }
+            offsets = result;
+        }
+        return offsets[col];
+    }
+
+    /**
+     * @return number of (included) columns
+     */
+    public int size() {
+        return columns.length;
+    }
+
+    public boolean isNull(int col) {
+        return offset(col) == -1;
+    }
+
+    /**
+     * @return cell value (see {@link AbstractRowsEventDataDeserializer} for type mapping)
+     */
+    public Serializable get(int col) {
+        int offset = offset(col);
+        if (offset == -1) {
+            return null;
+        }
+        int column = columns[col];
+        int typeCode = tableMapEvent.getColumnTypes()[column] & 0xFF, meta = tableMapEvent.getColumnMetadata()[column];
+        int length = AbstractRowsEventDataDeserializer.realLength(typeCode, meta);
+        typeCode = AbstractRowsEventDataDeserializer.realTypeCode(typeCode, meta);
+        try {
+            int cellLength = AbstractRowsEventDataDeserializer.cellLength(typeCode, meta, length, buffer, offset);
+            ByteArrayInputStream inputStream =
+                new ByteArrayInputStream(buffer, offset, cellLength);
+            ColumnType type = ColumnType.byCode(typeCode);
+            int[] collations = deserializer.getColumnCollations(tableMapEvent);
+            return collations == null ?
+                deserializer.deserializeCell(type, meta, length, inputStream) :
+                deserializer.deserializeCell(type, meta, length, collations[column], inputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to deserialize column " + column + " of " +
+                tableMapEvent.getDatabase() + "." + tableMapEvent.getTable(), e);
+        }
+    }
+
+    /**
+     * Integer types (TINYINT, SMALLINT, MEDIUMINT, INT, BIGINT, YEAR, ENUM and SET) are read straight from the
+     * binary representation, everything else goes through {@link #get(int)}.
+     * @return cell value as long (signed), 0 if cell is NULL
+     * @throws ClassCastException if column is not numeric
+     */
+    public long getLong(int col) {
+        int offset = offset(col);
+        if (offset == -1) {
+            return 0;
+        }
+        int column = columns[col];
+        int typeCode = tableMapEvent.getColumnTypes()[column] & 0xFF, meta = tableMapEvent.getColumnMetadata()[column];
+        ColumnType type = ColumnType.byCode(AbstractRowsEventDataDeserializer.realTypeCode(typeCode, meta));
+        if (type != null) {
+            switch (type) {
+                case TINY:
+                    return buffer[offset];
+                case SHORT:
+                    return (short) AbstractRowsEventDataDeserializer.littleEndianLong(buffer, offset, 2);
+                case INT24:
+                    return (AbstractRowsEventDataDeserializer.littleEndianLong(buffer, offset, 3) << 40) >> 40;
+                case LONG:
+                    return (int) AbstractRowsEventDataDeserializer.littleEndianLong(buffer, offset, 4);
+                case LONGLONG:
+                    return AbstractRowsEventDataDeserializer.littleEndianLong(buffer, offset, 8);
+                case YEAR:
+                    return 1900 + (buffer[offset] & 0xFF);
+                case ENUM:
+                case SET:
+                    return AbstractRowsEventDataDeserializer.littleEndianLong(buffer, offset,
+                        AbstractRowsEventDataDeserializer.realLength(typeCode, meta));
+                default:
+            }
+        }
+        return ((Number) get(col)).longValue();
+    }
+
+    /**
+     * @return binary representation of the cell (without length prefix, if any), null if cell is NULL
+     */
+    public byte[] getBytes(int col) {
+        int offset = offset(col);
+        if (offset == -1) {
+            return null;
+        }
+        int column = columns[col];
+        int typeCode = tableMapEvent.getColumnTypes()[column] & 0xFF, meta = tableMapEvent.getColumnMetadata()[column];
+        int length = AbstractRowsEventDataDeserializer.realLength(typeCode, meta);
+        typeCode = AbstractRowsEventDataDeserializer.realTypeCode(typeCode, meta);
+        int cellLength;
+        try {
+            cellLength = AbstractRowsEventDataDeserializer.cellLength(typeCode, meta, length, buffer, offset);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int prefixLength = AbstractRowsEventDataDeserializer.lengthPrefixSize(typeCode, meta, length);
+        return Arrays.copyOfRange(buffer, offset + prefixLength, offset + cellLength);
+    }
+
+    /**
+     * @return all the cells deserialized (same as what would've been produced by eager deserialization)
+     */
+    public Serializable[] toArray() {
+        Serializable[] result = new Serializable[columns.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Passes every cell of this row to the visitor (without materializing them as {@link Serializable}s whenever
+     * possible).
+     */
+    public void accept(RowVisitor visitor) {
+        try {
+            deserializer.visitRow(tableMapEvent, includedColumns, buffer, rowOffset, visitor);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to deserialize row of " +
+                tableMapEvent.getDatabase() + "." + tableMapEvent.getTable(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonDiff;
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonDiffVector;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PARTIAL_UPDATE_ROWS_EVENT (MySQL 8.0+, binlog_row_value_options=PARTIAL_JSON) deserializer. Produces regular
+ * {@link UpdateRowsEventData} except that JSON columns of the after image which MySQL logged as a list of
+ * modifications are represented by {@link JsonDiffVector}s (instead of byte[]|s). Rows are always deserialized
+ * eagerly (by the calling thread).
+ *
+ * <pre>
+ * after-image ::= value-options [partial-bits] null-bitmap cell*
+ * value-options ::= packed-integer // PARTIAL_JSON_UPDATES = 1
+ * partial-bits ::= one bit per JSON column of the table (set if column is logged as diff vector)
+ * diff-vector ::= length diff*
+ * diff ::= operation(1) path-length(packed) path [value-length(packed) value] // no value in case of REMOVE
+ * </pre>
+ *
+ * @see JsonDiffVector#apply(byte[], com.github.shyiko.mysql.binlog.event.deserialization.json.JsonFormatter)
+ */
+public class PartialUpdateRowsEventDataDeserializer extends AbstractRowsEventDataDeserializer<UpdateRowsEventData> {
+
+    private static final int PARTIAL_JSON_UPDATES = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public PartialUpdateRowsEventDataDeserializer(Map<Long, TableMapEventData> tableMapEventByTableId) {
+        super(tableMapEventByTableId);
+    }
+
+    @Override
+    public UpdateRowsEventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+        UpdateRowsEventData eventData = new UpdateRowsEventData();
+        eventData.setTableId(inputStream.readLong(6));
+        inputStream.skip(2); // reserved
+        int extraInfoLength = inputStream.readInteger(2);
+        inputStream.skip(extraInfoLength - 2);
+        int numberOfColumns = inputStream.readPackedInteger();
+        eventData.setIncludedColumnsBeforeUpdate(inputStream.readBitSet(numberOfColumns, true));
+        eventData.setIncludedColumns(inputStream.readBitSet(numberOfColumns, true));
+        TableMapEventData tableMapEvent = getTableMapEvent(eventData.getTableId());
+        List<Map.Entry<Serializable[], Serializable[]>> rows = new ArrayList<Map.Entry<Serializable[], Serializable[]>>();
+        while (inputStream.available() > 0) {
+            Serializable[] before = deserializeRow(tableMapEvent, eventData.getIncludedColumnsBeforeUpdate(),
+                inputStream);
+            Serializable[] after = deserializeAfterImage(tableMapEvent, eventData.getIncludedColumns(), inputStream);
+            rows.add(new AbstractMap.SimpleEntry<Serializable[], Serializable[]>(before, after));
+        }
+        eventData.setRows(rows);
+        return eventData;
+    }
+
+    private Serializable[] deserializeAfterImage(TableMapEventData tableMapEvent, BitSet includedColumns,
+            ByteArrayInputStream inputStream) throws IOException {
+        byte[] types = tableMapEvent.getColumnTypes();
+        int[] metadata = tableMapEvent.getColumnMetadata();
+        BitSet partialColumns = null;
+        if ((inputStream.readPackedInteger() & PARTIAL_JSON_UPDATES) != 0) {
+            int numberOfJsonColumns = 0;
+            for (byte type : types) {
+                if ((type & 0xFF) == ColumnType.JSON.getCode()) {
+                    numberOfJsonColumns++;
+                }
+            }
+            partialColumns = inputStream.readBitSet(numberOfJsonColumns, true);
+        }
+        int[] collations = getColumnCollations(tableMapEvent);
+        BitSet projectedColumns = getProjectedColumns(tableMapEvent);
+        Serializable[] result = new Serializable[includedColumns.cardinality()];
+        BitSet nullColumns = inputStream.readBitSet(result.length, true);
+        for (int i = 0, index = 0, jsonIndex = 0; i < types.length; i++) {
+            int typeCode = types[i] & 0xFF, meta = metadata[i];
+            boolean partial = false;
+            if (typeCode == ColumnType.JSON.getCode()) {
+                partial = partialColumns != null && partialColumns.get(jsonIndex);
+                jsonIndex++;
+            }
+            if (!includedColumns.get(i)) {
+                continue;
+            }
+            if (!nullColumns.get(index)) {
+                if (projectedColumns != null && !projectedColumns.get(i)) {
+                    // JSON diff vector is length-prefixed the same way JSON value is
+                    skipCell(realTypeCode(typeCode, meta), meta, realLength(typeCode, meta), inputStream);
+                } else
+                if (partial) {
+                    result[index] = deserializeJsonDiffVector(meta, inputStream);
+                } else {
+                    int length = realLength(typeCode, meta);
+                    ColumnType type = ColumnType.byCode(realTypeCode(typeCode, meta));
+                    result[index] = collations == null ?
+                        deserializeCell(type, meta, length, inputStream) :
+                        deserializeCell(type, meta, length, collations[i], inputStream);
+                }
+            }
+            index++;
+        }
+        return result;
+    }
+
+    protected JsonDiffVector deserializeJsonDiffVector(int meta, ByteArrayInputStream inputStream)
+            throws IOException {
+        int length = inputStream.readInteger(meta);
+        ByteArrayInputStream diffStream = new ByteArrayInputStream(inputStream.read(length));
+        List<JsonDiff> diffs = new ArrayList<JsonDiff>();
+        while (diffStream.available() > 0) {
+            int code = diffStream.read();
+            JsonDiff.Operation operation = JsonDiff.Operation.byCode(code);
+            if (operation == null) {
+                throw new IOException("Unknown JSON diff operation " + code);
+            }
+            String path = new String(diffStream.read(diffStream.readPackedInteger()), UTF_8);
+            byte[] value = null;
+            if (operation != JsonDiff.Operation.REMOVE) {
+                value = diffStream.read(diffStream.readPackedInteger());
+            }
+            diffs.add(new JsonDiff(operation, path, value));
+        }
+        return new JsonDiffVector(diffs);
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import java.io.Serializable;
+
+/**
+ * Callback-style alternative to {@link LazyRow#get(int)} (see {@link LazyRow#accept(RowVisitor)} and, for walking
+ * all the rows of an event without materializing them, {@link RowsVisitor}). Cells are visited in order, {@code col}
+ * being an index among the included columns. Integer, floating point and string/binary cells are passed without
+ * boxing / copying:
+ * <pre>
+ * {@link ColumnType#TINY}, {@link ColumnType#SHORT}, {@link ColumnType#INT24}, {@link ColumnType#LONG},
+ * {@link ColumnType#YEAR}, {@link ColumnType#ENUM}: onInt
+ * {@link ColumnType#LONGLONG}, {@link ColumnType#SET}: onLong
+ * {@link ColumnType#FLOAT}, {@link ColumnType#DOUBLE}: onDouble
+ * {@link ColumnType#STRING}, {@link ColumnType#VARCHAR}, {@link ColumnType#VAR_STRING}, {@link ColumnType#BLOB},
+ * {@link ColumnType#GEOMETRY}, {@link ColumnType#JSON}: onBytes (without length prefix)
+ * </pre>
+ * Everything else (DECIMAL, BIT, date and time types) is passed to {@link #onValue(int, Serializable)} the same way
+ * it would've been deserialized by {@link AbstractRowsEventDataDeserializer}.
+ */
+public interface RowVisitor {
+
+    void onNull(int col);
+
+    void onInt(int col, int value);
+
+    void onLong(int col, long value);
+
+    void onDouble(int col, double value);
+
+    /**
+     * Note that buffer is shared (by all the cells of the event) and must not be modified.
+     */
+    void onBytes(int col, byte[] buffer, int offset, int length);
+
+    void onValue(int col, Serializable value);
+
+}
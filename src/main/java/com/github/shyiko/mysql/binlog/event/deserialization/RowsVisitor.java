@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+/**
+ * {@link RowVisitor} driven over all the row images of a rows event (see
+ * {@link WriteRowsEventDataDeserializer#visitRows}, {@link UpdateRowsEventDataDeserializer#visitRows} and
+ * {@link DeleteRowsEventDataDeserializer#visitRows}).
+ */
+public interface RowsVisitor extends RowVisitor {
+
+    /**
+     * Called before the cells of each row image.
+     * @param image 0 for WRITE_ROWS/DELETE_ROWS, 0 (before update) or 1 (after update) for UPDATE_ROWS
+     */
+    void onRowImage(int image);
+
+}
@@ -15,23 +15,57 @@
  */
 package com.github.shyiko.mysql.binlog.event.deserialization;
 
+import com.github.shyiko.mysql.binlog.event.LRUCache;
 import com.github.shyiko.mysql.binlog.event.TableMapEventData;
 import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
 public class TableMapEventDataDeserializer implements EventDataDeserializer<TableMapEventData> {
 
+    private static final int MAX_INTERNED_TABLE_MAP_EVENTS = 10000;
+
     private final TableMapEventMetadataDeserializer metadataDeserializer = new TableMapEventMetadataDeserializer();
 
+    private Map<Body, TableMapEventData> internedTableMapEvents;
+
+    /**
+     * @param interning true if events with the same binary representation should be decoded once and then shared
+     * (as {@link InternedTableMapEventData}), false otherwise (default)
+     */
+    void setInterning(boolean interning) {
+        if (!interning) {
+            internedTableMapEvents = null;
+        } else if (internedTableMapEvents == null) {
+            internedTableMapEvents = new LRUCache<Body, TableMapEventData>(100, 0.75f, MAX_INTERNED_TABLE_MAP_EVENTS);
+        }
+    }
+
     @Override
     public TableMapEventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+        Map<Body, TableMapEventData> internedTableMapEvents = this.internedTableMapEvents;
+        if (internedTableMapEvents == null) {
+            return deserializeTableMapEventData(inputStream);
+        }
+        Body body = new Body(inputStream.read(inputStream.available()));
+        TableMapEventData eventData = internedTableMapEvents.get(body);
+        if (eventData == null) {
+            eventData = new InternedTableMapEventData(
+                deserializeTableMapEventData(new ByteArrayInputStream(body.bytes)));
+            internedTableMapEvents.put(body, eventData);
+        }
+        return eventData;
+    }
+
+    private TableMapEventData deserializeTableMapEventData(ByteArrayInputStream inputStream) throws IOException {
         TableMapEventData eventData = new TableMapEventData();
         eventData.setTableId(inputStream.readLong(6));
         inputStream.skip(3); // 2 bytes reserved for future use + 1 for the length of database name
@@ -142,4 +176,29 @@ public class TableMapEventDataDeserializer implements EventDataDeserializer<Tabl
         return result;
     }
 
+    /**
+     * Binary representation of TABLE_MAP event data (table id included).
+     */
+    private static final class Body {
+
+        private final byte[] bytes;
+        private final int hashCode;
+
+        private Body(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Body && hashCode == ((Body) o).hashCode &&
+                Arrays.equals(bytes, ((Body) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
 }
@@ -15,14 +15,21 @@
  */
 package com.github.shyiko.mysql.binlog.event.deserialization;
 
+import com.github.luben.zstd.RecyclingBufferPool;
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
 import com.github.shyiko.mysql.binlog.event.Event;
 import com.github.shyiko.mysql.binlog.event.TransactionPayloadEventData;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * @author <a href="mailto:somesh.malviya@booking.com">Somesh Malviya</a>
@@ -34,6 +41,31 @@ public class TransactionPayloadEventDataDeserializer implements EventDataDeseria
     public static final int OTW_PAYLOAD_COMPRESSION_TYPE_FIELD = 2;
     public static final int OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD = 3;
 
+    private static final int EVENT_HEADER_LENGTH = 19;
+
+    private boolean streaming;
+    private EventDeserializer parent;
+
+    /**
+     * @param streaming true if uncompressed events should not be materialized but rather decompressed and deserialized
+     * one at a time while iterating over {@link TransactionPayloadEventData}, false otherwise (default)
+     */
+    void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * @param parent deserializer whose configuration (compatibility modes, lazy/parallel rows, etc.) is to be applied
+     * to the events inside the payload
+     */
+    void setParent(EventDeserializer parent) {
+        this.parent = parent;
+    }
+
+    private EventDeserializer newEventDeserializer(boolean sameThread) {
+        return parent != null ? parent.newTransactionPayloadEventDeserializer(sameThread) : new EventDeserializer();
+    }
+
     @Override
     public TransactionPayloadEventData deserialize(ByteArrayInputStream inputStream) throws IOException {
         TransactionPayloadEventData eventData = new TransactionPayloadEventData();
@@ -79,6 +111,19 @@ public class TransactionPayloadEventDataDeserializer implements EventDataDeseria
         // set the payload to the rest of the input buffer
         eventData.setPayload(inputStream.read(eventData.getPayloadSize()));
 
+        if (streaming) {
+            final byte[] payload = eventData.getPayload();
+            eventData.setUncompressedEventStream(new Iterable<Event>() {
+
+                @Override
+                public Iterator<Event> iterator() {
+                    // iteration is not necessarily done by the thread that deserialized TRANSACTION_PAYLOAD
+                    return new UncompressedEventIterator(payload, newEventDeserializer(false));
+                }
+            });
+            return eventData;
+        }
+
         // Decompress the payload
         byte[] src = eventData.getPayload();
         byte[] dst = ByteBuffer.allocate(eventData.getUncompressedSize()).array();
@@ -86,7 +131,7 @@ public class TransactionPayloadEventDataDeserializer implements EventDataDeseria
 
         // Read and store events from decompressed byte array into input stream
         ArrayList<Event> decompressedEvents = new ArrayList<>();
-        EventDeserializer transactionPayloadEventDeserializer = new EventDeserializer();
+        EventDeserializer transactionPayloadEventDeserializer = newEventDeserializer(true);
         ByteArrayInputStream destinationInputStream = new ByteArrayInputStream(dst);
 
         Event internalEvent = transactionPayloadEventDeserializer.nextEvent(destinationInputStream);
@@ -99,4 +144,103 @@ public class TransactionPayloadEventDataDeserializer implements EventDataDeseria
 
         return eventData;
     }
+
+    /**
+     * Decompresses payload (using zstd's pooled buffers) just enough to deserialize the next event.
+     */
+    private static final class UncompressedEventIterator implements TransactionPayloadEventData.EventIterator {
+
+        private final EventDeserializer eventDeserializer;
+        private final byte[] header = new byte[EVENT_HEADER_LENGTH];
+        private final byte[] payload;
+        private InputStream inputStream;
+        private Event next;
+        private boolean exhausted;
+
+        private UncompressedEventIterator(byte[] payload, EventDeserializer eventDeserializer) {
+            this.payload = payload;
+            this.eventDeserializer = eventDeserializer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !exhausted) {
+                try {
+                    next = readEvent();
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException(e);
+                }
+                if (next == null) {
+                    close();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Event next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Event result = next;
+            next = null;
+            return result;
+        }
+
+        private Event readEvent() throws IOException {
+            if (inputStream == null) {
+                inputStream = new ZstdInputStreamNoFinalizer(new java.io.ByteArrayInputStream(payload),
+                    RecyclingBufferPool.INSTANCE);
+            }
+            int headerLength = fill(header, 0, header.length);
+            if (headerLength == 0) {
+                return null;
+            }
+            if (headerLength < header.length) {
+                throw new EOFException("Failed to read event header (" + headerLength + " bytes available)");
+            }
+            long eventLength = (header[9] & 0xFFL) | (header[10] & 0xFFL) << 8 | (header[11] & 0xFFL) << 16 |
+                (header[12] & 0xFFL) << 24;
+            if (eventLength < EVENT_HEADER_LENGTH || eventLength > Integer.MAX_VALUE) {
+                throw new IOException("Invalid event length " + eventLength);
+            }
+            byte[] event = new byte[(int) eventLength];
+            System.arraycopy(header, 0, event, 0, header.length);
+            if (fill(event, header.length, event.length - header.length) < event.length - header.length) {
+                throw new EOFException("Failed to read event of " + eventLength + " bytes");
+            }
+            return eventDeserializer.nextEvent(new ByteArrayInputStream(event));
+        }
+
+        private int fill(byte[] buffer, int offset, int length) throws IOException {
+            int read = 0;
+            while (read < length) {
+                int count = inputStream.read(buffer, offset + read, length - read);
+                if (count == -1) {
+                    break;
+                }
+                read += count;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            exhausted = true;
+            if (inputStream != null) {
+                try {
+                    inputStream.close(); // returns buffers to the pool
+                } catch (IOException e) {
+                    // ignore
+                }
+                inputStream = null;
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
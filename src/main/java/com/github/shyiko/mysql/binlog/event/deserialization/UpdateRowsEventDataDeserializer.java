@@ -45,6 +45,32 @@ public class UpdateRowsEventDataDeserializer extends AbstractRowsEventDataDeseri
 
     @Override
     public UpdateRowsEventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+        UpdateRowsEventData eventData = deserializeHeader(inputStream);
+        if (isDeserializeRowsLazily()) {
+            eventData.setLazyRows(deserializeLazyRows(eventData, inputStream));
+        } else {
+            eventData.setRows(deserializeRows(eventData, inputStream));
+        }
+        return eventData;
+    }
+
+    /**
+     * Same as {@link #deserialize(ByteArrayInputStream)} except that rows are passed to the visitor (cell by cell)
+     * instead of being materialized (eagerly or lazily).
+     * @param inputStream rows event body
+     * @param visitor visitor to walk row images with
+     * @return event data without rows
+     * @throws IOException in case of EOF or malformed row image
+     */
+    public UpdateRowsEventData visitRows(ByteArrayInputStream inputStream, RowsVisitor visitor) throws IOException {
+        UpdateRowsEventData eventData = deserializeHeader(inputStream);
+        visitRowImages(eventData.getTableId(),
+            new BitSet[] {eventData.getIncludedColumnsBeforeUpdate(), eventData.getIncludedColumns()}, inputStream,
+            visitor);
+        return eventData;
+    }
+
+    private UpdateRowsEventData deserializeHeader(ByteArrayInputStream inputStream) throws IOException {
         UpdateRowsEventData eventData = new UpdateRowsEventData();
         eventData.setTableId(inputStream.readLong(6));
         inputStream.skip(2); // reserved
@@ -55,22 +81,28 @@ public class UpdateRowsEventDataDeserializer extends AbstractRowsEventDataDeseri
         int numberOfColumns = inputStream.readPackedInteger();
         eventData.setIncludedColumnsBeforeUpdate(inputStream.readBitSet(numberOfColumns, true));
         eventData.setIncludedColumns(inputStream.readBitSet(numberOfColumns, true));
-        eventData.setRows(deserializeRows(eventData, inputStream));
         return eventData;
     }
 
     private List<Map.Entry<Serializable[], Serializable[]>> deserializeRows(UpdateRowsEventData eventData,
             ByteArrayInputStream inputStream) throws IOException {
-        long tableId = eventData.getTableId();
-        BitSet includedColumnsBeforeUpdate = eventData.getIncludedColumnsBeforeUpdate(),
-               includedColumns = eventData.getIncludedColumns();
+        List<Serializable[]> images = deserializeRowImages(eventData.getTableId(),
+            new BitSet[] {eventData.getIncludedColumnsBeforeUpdate(), eventData.getIncludedColumns()}, inputStream);
         List<Map.Entry<Serializable[], Serializable[]>> rows =
-                new ArrayList<Map.Entry<Serializable[], Serializable[]>>();
-        while (inputStream.available() > 0) {
-            rows.add(new AbstractMap.SimpleEntry<Serializable[], Serializable[]>(
-                    deserializeRow(tableId, includedColumnsBeforeUpdate, inputStream),
-                    deserializeRow(tableId, includedColumns, inputStream)
-            ));
+                new ArrayList<Map.Entry<Serializable[], Serializable[]>>(images.size() / 2);
+        for (int i = 0; i < images.size(); i += 2) {
+            rows.add(new AbstractMap.SimpleEntry<Serializable[], Serializable[]>(images.get(i), images.get(i + 1)));
+        }
+        return rows;
+    }
+
+    private List<Map.Entry<LazyRow, LazyRow>> deserializeLazyRows(UpdateRowsEventData eventData,
+            ByteArrayInputStream inputStream) throws IOException {
+        List<LazyRow> images = deserializeLazyRowImages(eventData.getTableId(),
+            new BitSet[] {eventData.getIncludedColumnsBeforeUpdate(), eventData.getIncludedColumns()}, inputStream);
+        List<Map.Entry<LazyRow, LazyRow>> rows = new ArrayList<Map.Entry<LazyRow, LazyRow>>(images.size() / 2);
+        for (int i = 0; i < images.size(); i += 2) {
+            rows.add(new AbstractMap.SimpleEntry<LazyRow, LazyRow>(images.get(i), images.get(i + 1)));
         }
         return rows;
     }
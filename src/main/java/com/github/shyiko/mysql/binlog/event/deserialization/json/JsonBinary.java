@@ -189,7 +189,42 @@ public class JsonBinary {
         new JsonBinary(bytes).parse(formatter);
     }
 
+    /**
+     * Parse the value found at the given path (without visiting anything else in the document) and return its JSON
+     * string representation.
+     *
+     * @param bytes the binary representation; may not be null
+     * @param path the path of the value
+     * @return the JSON string representation; null if there is no value at the given path
+     * @throws IOException if there is a problem reading or processing the binary representation
+     * @see #parse(byte[], JsonPath, JsonFormatter)
+     */
+    public static String parseAsString(byte[] bytes, JsonPath path) throws IOException {
+        JsonStringFormatter handler = new JsonStringFormatter();
+        return parse(bytes, path, handler) ? handler.getString() : null;
+    }
+
+    /**
+     * Parse the value found at the given path and call the supplied {@link JsonFormatter} for the various components
+     * of that value. Object members are looked up using binary search over the key entries (MySQL keeps them sorted
+     * by length and then by content) and array cells are read straight from the value entries, meaning that only the
+     * headers of the enclosing objects/arrays are read.
+     *
+     * @param bytes the binary representation; may not be null
+     * @param path the path of the value
+     * @param formatter the formatter that will be called as the value is parsed; may not be null
+     * @return true if value was found, false otherwise
+     * @throws IOException if there is a problem reading or processing the binary representation
+     */
+    public static boolean parse(byte[] bytes, JsonPath path, JsonFormatter formatter) throws IOException {
+        if (isJSONString(bytes)) {
+            throw new IOException("Path lookup is not supported for textual (MariaDB) JSON values");
+        }
+        return new JsonBinary(bytes).parse(path, formatter);
+    }
+
     private final ByteArrayInputStream reader;
+    private byte[] stringBuffer; // reused by parseString in case of JsonUtf8Formatter
 
     public JsonBinary(byte[] bytes) {
         this(new ByteArrayInputStream(bytes));
@@ -214,6 +249,107 @@ public class JsonBinary {
         parse(readValueType(), formatter);
     }
 
+    public boolean parse(JsonPath path, JsonFormatter formatter) throws IOException {
+        ValueType type = readValueType();
+        int position = reader.getPosition();
+        for (int leg = 0; leg < path.size(); leg++) {
+            boolean small;
+            switch (type) {
+                case SMALL_DOCUMENT:
+                case SMALL_ARRAY:
+                    small = true;
+                    break;
+                case LARGE_DOCUMENT:
+                case LARGE_ARRAY:
+                    small = false;
+                    break;
+                default:
+                    return false; // scalar
+            }
+            boolean object = type == ValueType.SMALL_DOCUMENT || type == ValueType.LARGE_DOCUMENT;
+            byte[] key = path.key(leg);
+            if (object != (key != null)) {
+                return false;
+            }
+            seek(position);
+            int numElements = readUnsignedIndex(Integer.MAX_VALUE, small, "number of elements in");
+            int numBytes = readUnsignedIndex(Integer.MAX_VALUE, small, "size of");
+            int indexSize = small ? 2 : 4;
+            int entries = position + 2 * indexSize;
+            int element = object ?
+                findKey(key, position, entries, numElements, numBytes, small) :
+                (path.index(leg) < numElements ? path.index(leg) : -1);
+            if (element == -1) {
+                return false;
+            }
+            int valueEntry = entries + (object ? numElements * (indexSize + 2) : 0) + element * (1 + indexSize);
+            seek(valueEntry);
+            type = readValueType();
+            if (isInlined(type, small)) {
+                position = valueEntry + 1;
+            } else {
+                int offset = readUnsignedIndex(Integer.MAX_VALUE, small, "value offset in");
+                if (offset >= numBytes) {
+                    throw new IOException("The offset for the value in the JSON binary document is " + offset +
+                        ", which is larger than the binary form of the JSON document (" + numBytes + " bytes)");
+                }
+                position += offset;
+            }
+        }
+        seek(position);
+        parse(type, formatter);
+        return true;
+    }
+
+    /**
+     * @return index of the member with the given name, -1 if there is none
+     */
+    private int findKey(byte[] key, int objectOffset, int keyEntries, int numElements, int numBytes, boolean small)
+            throws IOException {
+        int keyEntrySize = small ? 4 : 6;
+        int low = 0, high = numElements - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            seek(keyEntries + middle * keyEntrySize);
+            int keyOffset = readUnsignedIndex(numBytes, small, "key offset in");
+            int keyLength = readUInt16();
+            int cmp = keyLength - key.length;
+            if (cmp == 0) {
+                seek(objectOffset + keyOffset);
+                for (int i = 0; i < keyLength && cmp == 0; i++) {
+                    cmp = (reader.read() & 0xFF) - (key[i] & 0xFF);
+                }
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isInlined(ValueType type, boolean small) {
+        switch (type) {
+            case LITERAL:
+            case INT16:
+            case UINT16:
+                return true;
+            case INT32:
+            case UINT32:
+                return !small;
+            default:
+                return false;
+        }
+    }
+
+    private void seek(int position) throws IOException {
+        reader.reset();
+        reader.fastSkip(position);
+    }
+
     protected void parse(ValueType type, JsonFormatter formatter) throws IOException {
         switch (type) {
             case SMALL_DOCUMENT:
@@ -659,6 +795,14 @@ public class JsonBinary {
      */
     protected void parseString(JsonFormatter formatter) throws IOException {
         int length = readVariableInt();
+        if (formatter instanceof JsonUtf8Formatter) {
+            if (stringBuffer == null || stringBuffer.length < length) {
+                stringBuffer = new byte[Math.max(length, 64)];
+            }
+            reader.fill(stringBuffer, 0, length);
+            ((JsonUtf8Formatter) formatter).valueUtf8(stringBuffer, 0, length);
+            return;
+        }
         String value = new String(reader.read(length), UTF_8);
         formatter.value(value);
     }
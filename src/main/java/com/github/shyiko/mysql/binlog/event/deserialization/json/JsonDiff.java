@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization.json;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Single modification of a JSON document as logged by MySQL 8 when binlog_row_value_options=PARTIAL_JSON
+ * (mysql-8.0 sql/json_diff.h Json_diff).
+ *
+ * @see JsonDiffVector
+ */
+public class JsonDiff implements Serializable {
+
+    /**
+     * mysql-8.0 sql/json_diff.h enum_json_diff_operation
+     */
+    public enum Operation {
+        /**
+         * Value at the path is replaced.
+         */
+        REPLACE,
+        /**
+         * Member is added to the object / element is inserted into the array.
+         */
+        INSERT,
+        /**
+         * Member / element at the path is removed.
+         */
+        REMOVE;
+
+        public static Operation byCode(int code) {
+            Operation[] values = values();
+            return code >= 0 && code < values.length ? values[code] : null;
+        }
+    }
+
+    private final Operation operation;
+    private final String path;
+    private final byte[] value;
+
+    public JsonDiff(Operation operation, String path, byte[] value) {
+        this.operation = operation;
+        this.path = path;
+        this.value = value;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return path of the modified value, e.g. {@code $.order.status} (see {@link JsonPath#compile(String)})
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return new value in MySQL binary JSON format (see {@link JsonBinary}), null in case of
+     * {@link Operation#REMOVE}
+     */
+    public byte[] getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        String valueAsString;
+        try {
+            valueAsString = value == null ? null : JsonBinary.parseAsString(value);
+        } catch (IOException e) {
+            valueAsString = "<" + value.length + " bytes>";
+        }
+        return operation + " " + path + (value == null ? "" : " " + valueAsString);
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright 2016 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization.json;
+
+import com.github.shyiko.mysql.binlog.event.deserialization.ColumnType;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Value of a JSON column which MySQL logged as a list of modifications (instead of the complete document) in
+ * PARTIAL_UPDATE_ROWS_EVENT (mysql-8.0 sql/json_diff.h Json_diff_vector).
+ *
+ * @see com.github.shyiko.mysql.binlog.event.deserialization.PartialUpdateRowsEventDataDeserializer
+ */
+public class JsonDiffVector implements Serializable {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // mysql-8.0 sql/json_dom.cc Json_object::Json_object_key_comparator
+    private static final Comparator<String> KEY_ORDER = new Comparator<String>() {
+
+        @Override
+        public int compare(String o1, String o2) {
+            byte[] k1 = o1.getBytes(UTF_8), k2 = o2.getBytes(UTF_8);
+            if (k1.length != k2.length) {
+                return k1.length - k2.length;
+            }
+            for (int i = 0; i < k1.length; i++) {
+                if (k1[i] != k2[i]) {
+                    return (k1[i] & 0xFF) - (k2[i] & 0xFF);
+                }
+            }
+            return 0;
+        }
+    };
+
+    private final List<JsonDiff> diffs;
+
+    public JsonDiffVector(List<JsonDiff> diffs) {
+        this.diffs = diffs;
+    }
+
+    public List<JsonDiff> getDiffs() {
+        return diffs;
+    }
+
+    /**
+     * Applies modifications to the document (typically the before image of the column) and returns the JSON string
+     * representation of the result.
+     *
+     * @param document the binary representation of the original document; may not be null
+     * @throws IOException if there is a problem reading any of the binary representations or if modifications
+     * can't be applied to the document
+     */
+    public String applyAsString(byte[] document) throws IOException {
+        JsonStringFormatter formatter = new JsonStringFormatter();
+        apply(document, formatter);
+        return formatter.getString();
+    }
+
+    /**
+     * Applies modifications to the document (typically the before image of the column) and calls the supplied
+     * {@link JsonFormatter} for the various components of the result. Members of the objects are passed to the
+     * formatter in MySQL's order (by length and then by content).
+     *
+     * @param document the binary representation of the original document; may not be null
+     * @param formatter the formatter that will be called as the result is written; may not be null
+     * @throws IOException if there is a problem reading any of the binary representations or if modifications
+     * can't be applied to the document
+     */
+    public void apply(byte[] document, JsonFormatter formatter) throws IOException {
+        Object root = TreeBuilder.build(document);
+        for (JsonDiff diff : diffs) {
+            JsonPath path;
+            try {
+                path = JsonPath.compile(diff.getPath());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unsupported path " + diff.getPath(), e);
+            }
+            Object value = diff.getOperation() == JsonDiff.Operation.REMOVE ? null : TreeBuilder.build(diff.getValue());
+            if (path.size() == 0) {
+                if (diff.getOperation() != JsonDiff.Operation.REPLACE) {
+                    throw new IOException("Cannot apply " + diff);
+                }
+                root = value;
+                continue;
+            }
+            Object parent = root;
+            for (int leg = 0; leg < path.size() - 1 && parent != null; leg++) {
+                parent = get(parent, path, leg);
+            }
+            if (!apply(parent, path, path.size() - 1, diff.getOperation(), value)) {
+                throw new IOException("Cannot apply " + diff);
+            }
+        }
+        write(root, formatter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object get(Object container, JsonPath path, int leg) {
+        byte[] key = path.key(leg);
+        if (key != null) {
+            return container instanceof Map ? ((Map<String, Object>) container).get(new String(key, UTF_8)) : null;
+        }
+        if (container instanceof List) {
+            List<Object> list = (List<Object>) container;
+            return path.index(leg) < list.size() ? list.get(path.index(leg)) : null;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean apply(Object container, JsonPath path, int leg, JsonDiff.Operation operation,
+            Object value) {
+        byte[] key = path.key(leg);
+        if (key != null) {
+            if (!(container instanceof Map)) {
+                return false;
+            }
+            Map<String, Object> map = (Map<String, Object>) container;
+            String name = new String(key, UTF_8);
+            switch (operation) {
+                case REPLACE:
+                    if (!map.containsKey(name)) {
+                        return false;
+                    }
+                    map.put(name, value);
+                    return true;
+                case INSERT:
+                    map.put(name, value);
+                    return true;
+                default:
+                    return map.remove(name) != null;
+            }
+        }
+        if (!(container instanceof List)) {
+            return false;
+        }
+        List<Object> list = (List<Object>) container;
+        int index = path.index(leg);
+        switch (operation) {
+            case REPLACE:
+                if (index >= list.size()) {
+                    return false;
+                }
+                list.set(index, value);
+                return true;
+            case INSERT:
+                list.add(Math.min(index, list.size()), value);
+                return true;
+            default:
+                if (index >= list.size()) {
+                    return false;
+                }
+                list.remove(index);
+                return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void write(Object node, JsonFormatter formatter) {
+        if (node instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) node;
+            formatter.beginObject(map.size());
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                if (!first) {
+                    formatter.nextEntry();
+                }
+                formatter.name(entry.getKey());
+                write(entry.getValue(), formatter);
+                first = false;
+            }
+            formatter.endObject();
+        } else if (node instanceof List) {
+            List<Object> list = (List<Object>) node;
+            formatter.beginArray(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                if (i != 0) {
+                    formatter.nextEntry();
+                }
+                write(list.get(i), formatter);
+            }
+            formatter.endArray();
+        } else {
+            ((Scalar) node).write(formatter);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return diffs.toString();
+    }
+
+    /**
+     * Scalar value replayed into {@link JsonFormatter} as is.
+     */
+    private abstract static class Scalar {
+
+        abstract void write(JsonFormatter formatter);
+    }
+
+    /**
+     * Builds a tree of {@link TreeMap}s (objects), {@link ArrayList}s (arrays) and {@link Scalar}s.
+     */
+    private static final class TreeBuilder implements JsonFormatter {
+
+        private final Deque<Object> containers = new ArrayDeque<Object>();
+        private String name;
+        private Object root;
+
+        static Object build(byte[] document) throws IOException {
+            TreeBuilder builder = new TreeBuilder();
+            JsonBinary.parse(document, builder);
+            return builder.root;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(Object node) {
+            Object container = containers.peek();
+            if (container == null) {
+                root = node;
+            } else if (container instanceof Map) {
+                ((Map<String, Object>) container).put(name, node);
+            } else {
+                ((List<Object>) container).add(node);
+            }
+        }
+
+        @Override
+        public void beginObject(int numElements) {
+            Map<String, Object> node = new TreeMap<String, Object>(KEY_ORDER);
+            add(node);
+            containers.push(node);
+        }
+
+        @Override
+        public void beginArray(int numElements) {
+            List<Object> node = new ArrayList<Object>(numElements);
+            add(node);
+            containers.push(node);
+        }
+
+        @Override
+        public void endObject() {
+            containers.pop();
+        }
+
+        @Override
+        public void endArray() {
+            containers.pop();
+        }
+
+        @Override
+        public void name(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void value(final String value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void value(final int value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void value(final long value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void value(final double value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void value(final BigInteger value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void value(final BigDecimal value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void value(final boolean value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.value(value);
+                }
+            });
+        }
+
+        @Override
+        public void valueNull() {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueNull();
+                }
+            });
+        }
+
+        @Override
+        public void valueYear(final int year) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueYear(year);
+                }
+            });
+        }
+
+        @Override
+        public void valueDate(final int year, final int month, final int day) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueDate(year, month, day);
+                }
+            });
+        }
+
+        @Override
+        // checkstyle, please ignore ParameterNumber for the next line
+        public void valueDatetime(final int year, final int month, final int day, final int hour, final int min,
+                final int sec, final int microSeconds) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueDatetime(year, month, day, hour, min, sec, microSeconds);
+                }
+            });
+        }
+
+        @Override
+        public void valueTime(final int hour, final int min, final int sec, final int microSeconds) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueTime(hour, min, sec, microSeconds);
+                }
+            });
+        }
+
+        @Override
+        public void valueTimestamp(final long secondsPastEpoch, final int microSeconds) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueTimestamp(secondsPastEpoch, microSeconds);
+                }
+            });
+        }
+
+        @Override
+        public void valueOpaque(final ColumnType type, final byte[] value) {
+            add(new Scalar() {
+                @Override
+                void write(JsonFormatter formatter) {
+                    formatter.valueOpaque(type, value);
+                }
+            });
+        }
+
+        @Override
+        public void nextEntry() {
+        }
+    }
+}
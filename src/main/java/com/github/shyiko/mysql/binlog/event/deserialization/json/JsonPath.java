@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization.json;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled subset of MySQL's JSON path syntax: {@code $} optionally followed by any number of member
+ * ({@code .name} or {@code ."quoted name"}) and array cell ({@code [index]}) legs, e.g. {@code $.order.items[0].sku}.
+ * Wildcards and ranges are not supported.
+ *
+ * @see JsonBinary#parse(byte[], JsonPath, JsonFormatter)
+ */
+public final class JsonPath {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String path;
+    private final byte[][] keys; // null in case of array cell leg
+    private final int[] indexes;
+
+    private JsonPath(String path, byte[][] keys, int[] indexes) {
+        this.path = path;
+        this.keys = keys;
+        this.indexes = indexes;
+    }
+
+    /**
+     * @throws IllegalArgumentException if path is malformed
+     */
+    public static JsonPath compile(String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw new IllegalArgumentException("JSON path must start with '$' (" + path + ")");
+        }
+        List<byte[]> keys = new ArrayList<byte[]>();
+        List<Integer> indexes = new ArrayList<Integer>();
+        int i = 1, length = path.length();
+        while (i < length) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int start = ++i;
+                String key;
+                if (i < length && path.charAt(i) == '"') {
+                    StringBuilder sb = new StringBuilder();
+                    for (i++; i < length && path.charAt(i) != '"'; i++) {
+                        if (path.charAt(i) == '\\' && i + 1 < length) {
+                            i++;
+                        }
+                        sb.append(path.charAt(i));
+                    }
+                    if (i == length) {
+                        throw new IllegalArgumentException("Unterminated quoted member name in " + path);
+                    }
+                    i++;
+                    key = sb.toString();
+                } else {
+                    while (i < length && path.charAt(i) != '.' && path.charAt(i) != '[') {
+                        i++;
+                    }
+                    key = path.substring(start, i);
+                    if (key.isEmpty() || key.equals("*")) {
+                        throw new IllegalArgumentException("Unsupported member name at position " + start +
+                            " of " + path);
+                    }
+                }
+                keys.add(key.getBytes(UTF_8));
+                indexes.add(-1);
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end == -1) {
+                    throw new IllegalArgumentException("Unterminated array cell at position " + i + " of " + path);
+                }
+                int index;
+                try {
+                    index = Integer.parseInt(path.substring(i + 1, end).trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Unsupported array cell at position " + i + " of " + path);
+                }
+                if (index < 0) {
+                    throw new IllegalArgumentException("Negative array index at position " + i + " of " + path);
+                }
+                keys.add(null);
+                indexes.add(index);
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' at position " + i + " of " + path);
+            }
+        }
+        int[] indexArray = new int[indexes.size()];
+        for (int j = 0; j < indexArray.length; j++) {
+            indexArray[j] = indexes.get(j);
+        }
+        return new JsonPath(path, keys.toArray(new byte[keys.size()][]), indexArray);
+    }
+
+    /**
+     * @return number of legs
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return UTF-8 encoded member name, null if leg is an array cell
+     */
+    byte[] key(int leg) {
+        return keys[leg];
+    }
+
+    int index(int leg) {
+        return indexes[leg];
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
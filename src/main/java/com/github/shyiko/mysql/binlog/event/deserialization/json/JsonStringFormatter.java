@@ -32,21 +32,21 @@ public class JsonStringFormatter implements JsonFormatter {
      * Value used for lookup tables to indicate that matching characters
      * do not need to be escaped.
      */
-    private static final int ESCAPE_NONE = 0;
+    static final int ESCAPE_NONE = 0;
 
     /**
      * Value used for lookup tables to indicate that matching characters
      * are to be escaped using standard escaping; for JSON this means
      * (for example) using "backslash - u" escape method.
      */
-    private static final int ESCAPE_GENERIC = -1;
+    static final int ESCAPE_GENERIC = -1;
 
     /**
      * A lookup table that determines which of the first 128 Unicode code points (single-byte UTF-8 characters)
      * must be escaped. A value of '0' means no escaping is required; positive values must be escaped with a
      * preceding backslash; and negative values that generic escaping (e.g., {@code \\uXXXX}).
      */
-    private static final int[] ESCAPES;
+    static final int[] ESCAPES;
 
     static {
         int[] escape = new int[128];
@@ -66,7 +66,7 @@ public class JsonStringFormatter implements JsonFormatter {
         ESCAPES = escape;
     }
 
-    private static final char[] HEX_CODES = "0123456789ABCDEF".toCharArray();
+    static final char[] HEX_CODES = "0123456789ABCDEF".toCharArray();
 
     private final StringBuilder sb;
 
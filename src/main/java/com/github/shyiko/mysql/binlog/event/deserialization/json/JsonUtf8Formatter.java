@@ -0,0 +1,373 @@
+/*
+ * Copyright 2016 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization.json;
+
+import com.github.shyiko.mysql.binlog.event.deserialization.ColumnType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * A {@link JsonFormatter} implementation that writes UTF-8 encoded JSON straight into the supplied
+ * {@link OutputStream} or {@link ByteBuffer} (producing the same output as {@link JsonStringFormatter} would, only
+ * without intermediate {@link String}s). When used with {@link JsonBinary}, string values are copied from the binary
+ * representation as is (in bulk, up to the next character that needs to be escaped).
+ * <p>
+ * Output written into {@link OutputStream} is buffered, call {@link #flush()} once value is parsed.
+ */
+public class JsonUtf8Formatter implements JsonFormatter {
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final OutputStream outputStream;
+    private final ByteBuffer byteBuffer;
+    private final byte[] buffer;
+    private final byte[] digits = new byte[20];
+    private int count;
+
+    public JsonUtf8Formatter(OutputStream outputStream) {
+        this(outputStream, 8192);
+    }
+
+    public JsonUtf8Formatter(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        this.byteBuffer = null;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * @param byteBuffer buffer to write to (starting at its current position). Note that
+     * {@link java.nio.BufferOverflowException} is thrown if there is not enough space left.
+     */
+    public JsonUtf8Formatter(ByteBuffer byteBuffer) {
+        this.outputStream = null;
+        this.byteBuffer = byteBuffer;
+        this.buffer = null;
+    }
+
+    /**
+     * Writes buffered output to the underlying {@link OutputStream} (no-op in case of {@link ByteBuffer}).
+     * @throws UncheckedIOException if {@link OutputStream} fails
+     */
+    public void flush() {
+        if (outputStream != null && count > 0) {
+            try {
+                outputStream.write(buffer, 0, count);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count = 0;
+        }
+    }
+
+    @Override
+    public void beginObject(int numElements) {
+        write('{');
+    }
+
+    @Override
+    public void beginArray(int numElements) {
+        write('[');
+    }
+
+    @Override
+    public void endObject() {
+        write('}');
+    }
+
+    @Override
+    public void endArray() {
+        write(']');
+    }
+
+    @Override
+    public void name(String name) {
+        write('"');
+        writeString(name);
+        write('"');
+        write(':');
+    }
+
+    @Override
+    public void value(String value) {
+        write('"');
+        writeString(value);
+        write('"');
+    }
+
+    /**
+     * Same as {@link #value(String)} but with string given in its UTF-8 encoded form.
+     */
+    public void valueUtf8(byte[] value, int offset, int length) {
+        write('"');
+        int start = offset, end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int b = value[i];
+            if (b < 0 || JsonStringFormatter.ESCAPES[b] == JsonStringFormatter.ESCAPE_NONE) {
+                continue; // multi-byte sequences are copied as is
+            }
+            write(value, start, i - start);
+            writeEscaped(b);
+            start = i + 1;
+        }
+        write(value, start, end - start);
+        write('"');
+    }
+
+    @Override
+    public void value(int value) {
+        value((long) value);
+    }
+
+    @Override
+    public void value(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        int position = digits.length;
+        boolean negative = value < 0;
+        long remainder = negative ? -value : value;
+        do {
+            digits[--position] = (byte) ('0' + remainder % 10);
+            remainder /= 10;
+        } while (remainder != 0);
+        if (negative) {
+            digits[--position] = '-';
+        }
+        write(digits, position, digits.length - position);
+    }
+
+    @Override
+    public void value(double value) {
+        // Double's toString method will result in scientific notation and loss of precision
+        String str = Double.toString(value);
+        if (str.contains("E")) {
+            value(new BigDecimal(value));
+        } else {
+            writeAscii(str);
+        }
+    }
+
+    @Override
+    public void value(BigInteger value) {
+        value(new BigDecimal(value));
+    }
+
+    @Override
+    public void value(BigDecimal value) {
+        writeAscii(value.toPlainString());
+    }
+
+    @Override
+    public void value(boolean value) {
+        byte[] literal = value ? TRUE : FALSE;
+        write(literal, 0, literal.length);
+    }
+
+    @Override
+    public void valueNull() {
+        write(NULL, 0, NULL.length);
+    }
+
+    @Override
+    public void valueYear(int year) {
+        value(year);
+    }
+
+    @Override
+    public void valueDate(int year, int month, int day) {
+        write('"');
+        writeDate(year, month, day);
+        write('"');
+    }
+
+    @Override
+    // checkstyle, please ignore ParameterNumber for the next line
+    public void valueDatetime(int year, int month, int day, int hour, int min, int sec, int microSeconds) {
+        write('"');
+        writeDate(year, month, day);
+        write(' ');
+        writeTime(hour, min, sec, microSeconds);
+        write('"');
+    }
+
+    @Override
+    public void valueTime(int hour, int min, int sec, int microSeconds) {
+        write('"');
+        if (hour < 0) {
+            write('-');
+            hour = Math.abs(hour);
+        }
+        writeTime(hour, min, sec, microSeconds);
+        write('"');
+    }
+
+    @Override
+    public void valueTimestamp(long secondsPastEpoch, int microSeconds) {
+        value(secondsPastEpoch);
+        writeZeroPadding(microSeconds, 6); // padding only (digits omitted), same as JsonStringFormatter
+    }
+
+    @Override
+    public void valueOpaque(ColumnType type, byte[] value) {
+        write('"');
+        byte[] encoded = Base64.getEncoder().encode(value);
+        write(encoded, 0, encoded.length);
+        write('"');
+    }
+
+    @Override
+    public void nextEntry() {
+        write(',');
+    }
+
+    private void writeString(String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (JsonStringFormatter.ESCAPES[c] == JsonStringFormatter.ESCAPE_NONE) {
+                    write(c);
+                } else {
+                    writeEscaped(c);
+                }
+            } else if (c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length &&
+                    Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                write('?'); // unpaired surrogate (same as String.getBytes(UTF_8))
+            } else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeEscaped(int c) {
+        int escape = JsonStringFormatter.ESCAPES[c];
+        write('\\');
+        if (escape > 0) {
+            write(escape);
+        } else {
+            // generic escape (control characters only)
+            write('u');
+            write('0');
+            write('0');
+            write(JsonStringFormatter.HEX_CODES[c >> 4]);
+            write(JsonStringFormatter.HEX_CODES[c & 0xF]);
+        }
+    }
+
+    private void writeDate(int year, int month, int day) {
+        if (year < 0) {
+            write('-');
+            year = Math.abs(year);
+        }
+        writeZeroPadded(year, 4);
+        write('-');
+        writeZeroPadded(month, 2);
+        write('-');
+        writeZeroPadded(day, 2);
+    }
+
+    private void writeTime(int hour, int min, int sec, int microSeconds) {
+        writeZeroPadded(hour, 2);
+        write(':');
+        writeZeroPadded(min, 2);
+        write(':');
+        writeZeroPadded(sec, 2);
+        if (microSeconds != 0) {
+            write('.');
+            writeZeroPadding(microSeconds, 6);
+            for (int i = 0; i != 6; ++i) {
+                if (microSeconds % 10 == 0) {
+                    microSeconds /= 10;
+                }
+            }
+            value(microSeconds);
+        }
+    }
+
+    private void writeZeroPadded(int value, int width) {
+        writeZeroPadding(value, width);
+        value(value);
+    }
+
+    /**
+     * Writes as many zeros as needed to pad value to the given width (digits are written by the caller).
+     */
+    private void writeZeroPadding(int value, int width) {
+        int zeros = width - 1;
+        for (int limit = 10; zeros > 0 && value >= limit; limit *= 10) {
+            zeros--;
+        }
+        for (int i = 0; i < zeros; i++) {
+            write('0');
+        }
+    }
+
+    private void writeAscii(String value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            write(value.charAt(i));
+        }
+    }
+
+    private void write(int b) {
+        if (byteBuffer != null) {
+            byteBuffer.put((byte) b);
+            return;
+        }
+        if (count == buffer.length) {
+            flush();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        if (byteBuffer != null) {
+            byteBuffer.put(bytes, offset, length);
+            return;
+        }
+        if (length > buffer.length - count) {
+            flush();
+            if (length > buffer.length) {
+                try {
+                    outputStream.write(bytes, offset, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+}
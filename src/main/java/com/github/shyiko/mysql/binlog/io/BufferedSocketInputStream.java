@@ -15,6 +15,7 @@
  */
 package com.github.shyiko.mysql.binlog.io;
 
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -71,4 +72,43 @@ public class BufferedSocketInputStream extends FilterInputStream {
         return bytesRemainingInBuffer;
     }
 
+    /**
+     * Makes sure that next {@code length} bytes are in the buffer (moving unread bytes to the beginning of the buffer
+     * and reading from the underlying stream as needed), so that they could be accessed in place.
+     * @return false if {@code length} exceeds the capacity of the buffer (nothing is read in this case)
+     * @throws EOFException if stream ends before {@code length} bytes could be buffered
+     */
+    boolean ensureBuffered(int length) throws IOException {
+        int remaining = Math.max(0, limit - offset);
+        if (remaining >= length) {
+            return true;
+        }
+        if (length > buffer.length) {
+            return false;
+        }
+        System.arraycopy(buffer, offset, buffer, 0, remaining);
+        offset = 0;
+        limit = remaining;
+        while (limit < length) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                throw new EOFException(String.format("Failed to buffer %d bytes (only %d available)", length, limit));
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    void skipBuffered(int length) {
+        offset += length;
+    }
+
 }
@@ -18,9 +18,15 @@ package com.github.shyiko.mysql.binlog.io;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.zip.Checksum;
 
 /**
+ * Note that when constructed from byte[] all the reads are served straight from the array (instead of going through
+ * {@link java.io.ByteArrayInputStream} byte by byte).
+ *
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
 public class ByteArrayInputStream extends InputStream {
@@ -31,13 +37,32 @@ public class ByteArrayInputStream extends InputStream {
     private int blockLength = -1;
     private int initialBlockLength = -1;
 
+    // array-backed mode (inputStream == null)
+    private byte[] buffer;
+    private int origin, index, markIndex;
+    private int bufferLimit; // end of the buffer
+    private int limit; // end of the buffer or end of the block (whichever comes first)
+    private int blockEnd = -1;
+
+    private Checksum checksum;
+    private int checksumFrom; // (array-backed mode) index of the first byte not yet fed into the checksum
+
     public ByteArrayInputStream(InputStream inputStream) {
         this.inputStream = inputStream;
         this.pos = 0;
     }
 
     public ByteArrayInputStream(byte[] bytes) {
-        this(new java.io.ByteArrayInputStream(bytes));
+        this(bytes, 0, bytes.length);
+    }
+
+    public ByteArrayInputStream(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.buffer = bytes;
+        this.origin = this.index = this.markIndex = offset;
+        this.bufferLimit = this.limit = offset + length;
     }
 
     /**
@@ -48,6 +73,12 @@ public class ByteArrayInputStream extends InputStream {
      */
     public int readInteger(int length) throws IOException {
         int result = 0;
+        if (buffer != null && limit - index >= length) {
+            for (int i = 0; i < length; ++i) {
+                result |= (buffer[index++] & 0xFF) << (i << 3);
+            }
+            return result;
+        }
         for (int i = 0; i < length; ++i) {
             result |= (this.read() << (i << 3));
         }
@@ -62,12 +93,53 @@ public class ByteArrayInputStream extends InputStream {
      */
     public long readLong(int length) throws IOException {
         long result = 0;
+        if (buffer != null && limit - index >= length) {
+            for (int i = 0; i < length; ++i) {
+                result |= ((long) (buffer[index++] & 0xFF)) << (i << 3);
+            }
+            return result;
+        }
         for (int i = 0; i < length; ++i) {
             result |= (((long) this.read()) << (i << 3));
         }
         return result;
     }
 
+    /**
+     * Same as {@link #readLong(int)} but without consuming anything (block boundaries and checksum are not affected).
+     * @param length length of the long to read
+     * @throws IOException in case of EOF
+     * @throws UnsupportedOperationException if stream is not array-backed and underlying stream doesn't support
+     * mark/reset (see {@link #markSupported()})
+     * @return the long from the binlog
+     */
+    public long peekLong(int length) throws IOException {
+        if (buffer != null) {
+            int index = this.index;
+            try {
+                return readLong(length);
+            } finally {
+                this.index = index;
+            }
+        }
+        if (!inputStream.markSupported()) {
+            throw new UnsupportedOperationException();
+        }
+        int peek = this.peek, pos = this.pos, blockLength = this.blockLength;
+        Checksum checksum = this.checksum;
+        this.checksum = null;
+        inputStream.mark(length);
+        try {
+            return readLong(length);
+        } finally {
+            inputStream.reset();
+            this.peek = peek;
+            this.pos = pos;
+            this.blockLength = blockLength;
+            this.checksum = checksum;
+        }
+    }
+
     /**
      * Read fixed length string.
 	 * @param length length of string to read
@@ -78,6 +150,35 @@ public class ByteArrayInputStream extends InputStream {
         return new String(read(length));
     }
 
+    /**
+     * Read fixed length string encoded with the given charset. When array-backed, string is decoded straight from the
+     * array (with pure ASCII content of ASCII-compatible charsets being copied char by char).
+     * @param length length of string to read (in bytes)
+     * @param charset charset of the string
+     * @param asciiCompatible true if bytes 0x00-0x7F always stand for the corresponding ASCII characters in
+     * {@code charset} (e.g. UTF-8 or windows-1252, but not UTF-16)
+     * @throws IOException in case of EOF
+     * @return string
+     */
+    @SuppressWarnings("deprecation")
+    public String readString(int length, Charset charset, boolean asciiCompatible) throws IOException {
+        if (buffer != null && length >= 0 && limit - index >= length) {
+            int from = index;
+            index += length;
+            if (asciiCompatible) {
+                int i = from, to = from + length;
+                while (i < to && buffer[i] >= 0) {
+                    i++;
+                }
+                if (i == to) {
+                    return new String(buffer, 0, from, length);
+                }
+            }
+            return new String(buffer, from, length, charset);
+        }
+        return new String(read(length), charset);
+    }
+
     /**
      * Read variable-length string. Preceding packed integer indicates the length of the string.
 	 * @throws IOException in case of EOF
@@ -93,6 +194,15 @@ public class ByteArrayInputStream extends InputStream {
 	 * @return string
      */
     public String readZeroTerminatedString() throws IOException {
+        if (buffer != null) {
+            for (int i = index; i < limit; i++) {
+                if (buffer[i] == 0) {
+                    String result = new String(buffer, index, i - index);
+                    index = i + 1;
+                    return result;
+                }
+            }
+        }
         ByteArrayOutputStream s = new ByteArrayOutputStream();
         for (int b; (b = this.read()) != 0; ) {
             s.writeInteger(b, 1);
@@ -101,11 +211,49 @@ public class ByteArrayInputStream extends InputStream {
     }
 
     public byte[] read(int length) throws IOException {
+        if (buffer != null && length >= 0 && limit - index >= length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, index, index + length);
+            index += length;
+            return bytes;
+        }
         byte[] bytes = new byte[length];
         fill(bytes, 0, length);
         return bytes;
     }
 
+    /**
+     * @param length number of bytes
+     * @return stream over the next {@code length} bytes. Whenever possible bytes are not copied, meaning that
+     * returned stream shares memory with this one (in case of {@link BufferedSocketInputStream} that also means
+     * it is only valid until the next read from this stream).
+     * @throws IOException in case of EOF
+     */
+    public ByteArrayInputStream slice(int length) throws IOException {
+        if (checksum != null) {
+            return new ByteArrayInputStream(read(length));
+        }
+        if (buffer != null && length >= 0 && limit - index >= length) {
+            ByteArrayInputStream result = new ByteArrayInputStream(buffer, index, length);
+            index += length;
+            return result;
+        }
+        if (inputStream instanceof BufferedSocketInputStream && peek == -1 &&
+                (blockLength == -1 || blockLength >= length)) {
+            BufferedSocketInputStream socketInputStream = (BufferedSocketInputStream) inputStream;
+            if (socketInputStream.ensureBuffered(length)) {
+                ByteArrayInputStream result =
+                    new ByteArrayInputStream(socketInputStream.getBuffer(), socketInputStream.getOffset(), length);
+                socketInputStream.skipBuffered(length);
+                pos += length;
+                if (blockLength != -1) {
+                    blockLength -= length;
+                }
+                return result;
+            }
+        }
+        return new ByteArrayInputStream(read(length));
+    }
+
     public void fill(byte[] bytes, int offset, int length) throws IOException {
         int remaining = length;
         while (remaining != 0) {
@@ -113,7 +261,7 @@ public class ByteArrayInputStream extends InputStream {
             if (read == -1) {
                 throw new EOFException(
                     String.format("Failed to read remaining %d of %d bytes from position %d. Block length: %d. Initial block length: %d.",
-                        remaining, length, pos, blockLength, initialBlockLength)
+                        remaining, length, getPosition(), getBlockLength(), initialBlockLength)
                 );
             }
             remaining -= read;
@@ -122,27 +270,27 @@ public class ByteArrayInputStream extends InputStream {
 
     public BitSet readBitSet(int length, boolean bigEndian) throws IOException {
         // according to MySQL internals the amount of storage required for N columns is INT((N+7)/8) bytes
-        byte[] bytes = read((length + 7) >> 3);
-        bytes = bigEndian ? bytes : reverse(bytes);
+        int numberOfBytes = (length + 7) >> 3;
+        byte[] bytes;
+        int offset;
+        if (buffer != null && limit - index >= numberOfBytes) {
+            bytes = buffer;
+            offset = index;
+            index += numberOfBytes;
+        } else {
+            bytes = read(numberOfBytes);
+            offset = 0;
+        }
         BitSet result = new BitSet();
         for (int i = 0; i < length; i++) {
-            if ((bytes[i >> 3] & (1 << (i % 8))) != 0) {
+            int byteIndex = bigEndian ? offset + (i >> 3) : offset + numberOfBytes - 1 - (i >> 3);
+            if ((bytes[byteIndex] & (1 << (i % 8))) != 0) {
                 result.set(i);
             }
         }
         return result;
     }
 
-    private byte[] reverse(byte[] bytes) {
-        for (int i = 0, length = bytes.length >> 1; i < length; i++) {
-            int j = bytes.length - 1 - i;
-            byte t = bytes[i];
-            bytes[i] = bytes[j];
-            bytes[j] = t;
-        }
-        return bytes;
-    }
-
     /**
      * @see #readPackedNumber()
 	 * @throws IOException in case of malformed number, eof, null, or long
@@ -200,6 +348,9 @@ public class ByteArrayInputStream extends InputStream {
 
     @Override
     public int available() throws IOException {
+        if (buffer != null) {
+            return (blockEnd != -1 ? blockEnd : bufferLimit) - index;
+        }
         if (blockLength != -1) {
             return blockLength;
         }
@@ -207,6 +358,9 @@ public class ByteArrayInputStream extends InputStream {
     }
 
     public int peek() throws IOException {
+        if (buffer != null) {
+            return index < limit ? buffer[index] & 0xFF : -1;
+        }
         if (peek == -1) {
             peek = readWithinBlockBoundaries();
         }
@@ -215,6 +369,12 @@ public class ByteArrayInputStream extends InputStream {
 
     @Override
     public int read() throws IOException {
+        if (buffer != null) {
+            if (index >= limit) {
+                throw new EOFException(String.format("Failed to read next byte from position %d", getPosition()));
+            }
+            return buffer[index++] & 0xFF;
+        }
         int result;
         if (peek == -1) {
             result = readWithinBlockBoundaries();
@@ -226,6 +386,9 @@ public class ByteArrayInputStream extends InputStream {
             throw new EOFException(String.format("Failed to read next byte from position %d", this.pos));
         }
         this.pos += 1;
+        if (checksum != null) {
+            checksum.update(result);
+        }
         return result;
     }
 
@@ -249,6 +412,17 @@ public class ByteArrayInputStream extends InputStream {
             return 0;
         }
 
+        if (buffer != null) {
+            int read = Math.min(len, limit - index);
+            if (read <= 0) {
+                return -1;
+            }
+            System.arraycopy(buffer, index, b, off, read);
+            index += read;
+            return read;
+        }
+
+        int initialOffset = off;
         if (peek != -1) {
             b[off] = (byte) peek;
             off += 1;
@@ -266,6 +440,9 @@ public class ByteArrayInputStream extends InputStream {
             read = read <= 0 ? 1 : read + 1;
         }
 
+        if (checksum != null && read > 0) {
+            checksum.update(b, initialOffset, read);
+        }
         return read;
     }
 
@@ -283,44 +460,111 @@ public class ByteArrayInputStream extends InputStream {
         return read;
     }
 
+    @Override
+    public long skip(long n) throws IOException {
+        if (buffer != null) {
+            int skipped = (int) Math.max(0, Math.min(n, limit - index));
+            index += skipped;
+            return skipped;
+        }
+        return super.skip(n);
+    }
+
     @Override
     public void close() throws IOException {
-        inputStream.close();
+        if (inputStream != null) {
+            inputStream.close();
+        }
     }
 
     public void enterBlock(int length) {
-        this.blockLength = length < -1 ? -1 : length;
+        if (buffer != null) {
+            this.blockEnd = length < 0 ? -1 : index + length;
+            this.limit = blockEnd == -1 ? bufferLimit : Math.min(blockEnd, bufferLimit);
+        } else {
+            this.blockLength = length < -1 ? -1 : length;
+        }
         this.initialBlockLength = length;
     }
 
     public void skipToTheEndOfTheBlock() throws IOException {
+        if (buffer != null) {
+            if (blockEnd != -1) {
+                index = Math.max(index, limit);
+                blockEnd = -1;
+                limit = bufferLimit;
+            }
+            return;
+        }
         if (blockLength != -1) {
             skip(blockLength);
             blockLength = -1;
         }
     }
 
+    private int getBlockLength() {
+        if (buffer != null) {
+            return blockEnd != -1 ? blockEnd - index : -1;
+        }
+        return blockLength;
+    }
+
     public int getPosition() {
-        return pos;
+        return buffer != null ? index - origin : pos;
     }
 
     @Override
     public synchronized void mark(int readlimit) {
+        if (buffer != null) {
+            markIndex = index;
+            return;
+        }
         markPosition = pos;
         inputStream.mark(readlimit);
     }
 
     @Override
     public boolean markSupported() {
-        return inputStream.markSupported();
+        return buffer != null || inputStream.markSupported();
     }
 
     @Override
     public synchronized void reset() throws IOException {
+        if (buffer != null) {
+            index = markIndex;
+            return;
+        }
         pos = markPosition;
         inputStream.reset();
     }
 
+    /**
+     * Starts feeding every consumed byte (including skipped ones) into the given checksum (which is reset first).
+     * In case of array-backed stream the whole consumed range is fed at once, when checksum is stopped.
+     * Note that checksum doesn't account for {@link #reset()}s.
+     * @param checksum checksum to update
+     */
+    public void startChecksum(Checksum checksum) {
+        checksum.reset();
+        this.checksum = checksum;
+        this.checksumFrom = index;
+    }
+
+    /**
+     * @return value of the checksum started with {@link #startChecksum(Checksum)}, -1 if there is none
+     */
+    public long stopChecksum() {
+        if (checksum == null) {
+            return -1;
+        }
+        if (buffer != null && index > checksumFrom) {
+            checksum.update(buffer, checksumFrom, index - checksumFrom);
+        }
+        long result = checksum.getValue();
+        checksum = null;
+        return result;
+    }
+
     /**
      * This method implements fast-forward skipping in the stream.
      * It can be used if and only if the underlying stream is fully available till its end.
@@ -331,6 +575,22 @@ public class ByteArrayInputStream extends InputStream {
      * @throws IOException
      */
     public synchronized long fastSkip(long n) throws IOException {
+        if (buffer != null) {
+            long skipped = skip(n);
+            if (blockEnd != -1 && index >= blockEnd) {
+                blockEnd = -1;
+                limit = bufferLimit;
+            }
+            return skipped;
+        }
+        if (checksum != null) {
+            // skipped bytes have to go through the checksum
+            long skipped = skip(n);
+            if (blockLength == 0) {
+                blockLength = -1;
+            }
+            return skipped;
+        }
         long skipOf = n;
         if (blockLength != -1) {
             skipOf = Math.min(blockLength, skipOf);
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.io;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Stream over a sequence of byte arrays (e.g. chunks of a packet exceeding 16MB). Arrays are referenced as is (not
+ * copied), reads spanning several of them are served with {@link System#arraycopy} (chunk by chunk).
+ */
+public class ChunkedInputStream extends InputStream {
+
+    private final byte[][] chunks;
+    private int chunk, index;
+    private int markChunk, markIndex;
+    private long available;
+
+    public ChunkedInputStream(List<byte[]> chunks) {
+        this.chunks = chunks.toArray(new byte[chunks.size()][]);
+        for (byte[] bytes : this.chunks) {
+            available += bytes.length;
+        }
+    }
+
+    @Override
+    public int read() {
+        while (chunk < chunks.length) {
+            byte[] bytes = chunks[chunk];
+            if (index < bytes.length) {
+                available--;
+                return bytes[index++] & 0xFF;
+            }
+            chunk++;
+            index = 0;
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (available == 0) {
+            return -1;
+        }
+        int read = 0;
+        while (read < len && chunk < chunks.length) {
+            byte[] bytes = chunks[chunk];
+            int n = Math.min(len - read, bytes.length - index);
+            System.arraycopy(bytes, index, b, off + read, n);
+            read += n;
+            index += n;
+            if (index == bytes.length) {
+                chunk++;
+                index = 0;
+            }
+        }
+        available -= read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = 0;
+        while (skipped < n && chunk < chunks.length) {
+            int s = (int) Math.min(n - skipped, chunks[chunk].length - index);
+            skipped += s;
+            index += s;
+            if (index == chunks[chunk].length) {
+                chunk++;
+                index = 0;
+            }
+        }
+        available -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(available, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        markChunk = chunk;
+        markIndex = index;
+    }
+
+    @Override
+    public synchronized void reset() {
+        long consumed = 0;
+        for (int i = markChunk; i < chunk; i++) {
+            consumed += chunks[i].length;
+        }
+        available += consumed + index - markIndex;
+        chunk = markChunk;
+        index = markIndex;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.jmx;
+
+/**
+ * Queue of a single {@link com.github.shyiko.mysql.binlog.BinaryLogClient.AsyncEventListener}
+ * (see {@link com.github.shyiko.mysql.binlog.BinaryLogClient#getAsyncEventListenerStatistics}).
+ */
+public interface AsyncEventListenerStatisticsMXBean {
+
+    int getQueueCapacity();
+    /**
+     * @return number of events handed over to the listener which are not yet completed
+     */
+    int getQueueDepth();
+    /**
+     * @return age (in milliseconds) of the oldest event that is not yet completed, 0 if queue is empty
+     */
+    long getMillisecondsBehind();
+    long getTotalNumberOfEventsDelivered();
+    long getNumberOfFailures();
+
+}
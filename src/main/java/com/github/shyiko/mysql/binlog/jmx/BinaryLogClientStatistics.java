@@ -19,6 +19,7 @@ import com.github.shyiko.mysql.binlog.BinaryLogClient;
 import com.github.shyiko.mysql.binlog.event.Event;
 import com.github.shyiko.mysql.binlog.event.EventHeader;
 import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.deserialization.ChecksumMismatchException;
 
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -34,6 +35,7 @@ public class BinaryLogClientStatistics implements BinaryLogClientStatisticsMXBea
     private AtomicLong totalNumberOfEventsSeen = new AtomicLong();
     private AtomicLong totalBytesReceived = new AtomicLong();
     private AtomicLong numberOfSkippedEvents = new AtomicLong();
+    private AtomicLong numberOfChecksumMismatches = new AtomicLong();
     private AtomicLong numberOfDisconnects = new AtomicLong();
 
     public BinaryLogClientStatistics() {
@@ -87,6 +89,14 @@ public class BinaryLogClientStatistics implements BinaryLogClientStatisticsMXBea
         return numberOfSkippedEvents.get();
     }
 
+    /**
+     * @see com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer#setVerifyChecksum(boolean)
+     */
+    @Override
+    public long getNumberOfChecksumMismatches() {
+        return numberOfChecksumMismatches.get();
+    }
+
     @Override
     public long getNumberOfDisconnects() {
         return numberOfDisconnects.get();
@@ -99,6 +109,7 @@ public class BinaryLogClientStatistics implements BinaryLogClientStatisticsMXBea
         totalNumberOfEventsSeen.set(0);
         totalBytesReceived.set(0);
         numberOfSkippedEvents.set(0);
+        numberOfChecksumMismatches.set(0);
         numberOfDisconnects.set(0);
     }
 
@@ -114,6 +125,9 @@ public class BinaryLogClientStatistics implements BinaryLogClientStatisticsMXBea
     @Override
     public void onEventDeserializationFailure(BinaryLogClient client, Exception ex) {
         numberOfSkippedEvents.getAndIncrement();
+        if (ex instanceof ChecksumMismatchException) {
+            numberOfChecksumMismatches.getAndIncrement();
+        }
         lastEventHeader.set(null);
         timestampOfLastEvent.set(getCurrentTimeMillis());
         totalNumberOfEventsSeen.getAndIncrement();
@@ -26,6 +26,7 @@ public interface BinaryLogClientStatisticsMXBean {
     long getTotalNumberOfEventsSeen();
     long getTotalBytesReceived();
     long getNumberOfSkippedEvents();
+    long getNumberOfChecksumMismatches();
     long getNumberOfDisconnects();
     void reset();
 
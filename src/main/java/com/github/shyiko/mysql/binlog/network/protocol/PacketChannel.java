@@ -97,7 +97,7 @@ public class PacketChannel implements Channel {
         SSLSocket sslSocket = sslSocketFactory.createSocket(this.socket);
         sslSocket.startHandshake();
         socket = sslSocket;
-        inputStream = new ByteArrayInputStream(sslSocket.getInputStream());
+        inputStream = new ByteArrayInputStream(new BufferedSocketInputStream(sslSocket.getInputStream()));
         outputStream = new ByteArrayOutputStream(sslSocket.getOutputStream());
         if (hostnameVerifier != null && !hostnameVerifier.verify(sslSocket.getInetAddress().getHostName(),
             sslSocket.getSession())) {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AsyncEventListenerQueueTest {
+
+    @Test(timeOut = 15000)
+    public void testBackpressure() throws Exception {
+        final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        AsyncEventListenerQueue queue = new AsyncEventListenerQueue(new BinaryLogClient.AsyncEventListener() {
+
+            @Override
+            public CompletionStage<Void> onEvent(Event event) {
+                CompletableFuture<Void> future = new CompletableFuture<Void>();
+                futures.add(future);
+                return future;
+            }
+        }, 2);
+        assertTrue(queue.awaitCapacity(0, TimeUnit.MILLISECONDS));
+        assertEquals(queue.getMillisecondsBehind(), 0);
+        queue.dispatch(event());
+        queue.dispatch(event());
+        assertEquals(queue.getQueueDepth(), 2);
+        assertFalse(queue.awaitCapacity(10, TimeUnit.MILLISECONDS));
+        Thread.sleep(20);
+        assertTrue(queue.getMillisecondsBehind() >= 20);
+        futures.get(1).complete(null);
+        assertEquals(queue.getQueueDepth(), 1);
+        assertTrue(queue.getMillisecondsBehind() >= 20); // first event is still in flight
+        assertTrue(queue.awaitCapacity(0, TimeUnit.MILLISECONDS));
+        queue.dispatch(event());
+        Thread completer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                futures.get(0).completeExceptionally(new IllegalStateException());
+            }
+        });
+        completer.start();
+        assertTrue(queue.awaitCapacity(10, TimeUnit.SECONDS));
+        completer.join();
+        assertEquals(queue.getQueueDepth(), 1);
+        assertEquals(queue.getTotalNumberOfEventsDelivered(), 3);
+        assertEquals(queue.getNumberOfFailures(), 1);
+        futures.get(2).complete(null);
+        assertEquals(queue.getQueueDepth(), 0);
+        assertEquals(queue.getMillisecondsBehind(), 0);
+    }
+
+    @Test
+    public void testSynchronousCompletion() throws Exception {
+        AsyncEventListenerQueue queue = new AsyncEventListenerQueue(new BinaryLogClient.AsyncEventListener() {
+
+            @Override
+            public CompletionStage<Void> onEvent(Event event) {
+                if (event.getHeader().getEventType() == EventType.XID) {
+                    throw new IllegalStateException();
+                }
+                return null;
+            }
+        }, 1);
+        queue.dispatch(event());
+        assertTrue(queue.awaitCapacity(0, TimeUnit.MILLISECONDS));
+        EventHeaderV4 eventHeader = new EventHeaderV4();
+        eventHeader.setEventType(EventType.XID);
+        queue.dispatch(new Event(eventHeader, null));
+        assertTrue(queue.awaitCapacity(0, TimeUnit.MILLISECONDS));
+        assertEquals(queue.getNumberOfFailures(), 1);
+    }
+
+    @Test(timeOut = 15000)
+    public void testInterruptWhileAwaitingCapacity() throws Exception {
+        AsyncEventListenerQueue queue = new AsyncEventListenerQueue(new BinaryLogClient.AsyncEventListener() {
+
+            @Override
+            public CompletionStage<Void> onEvent(Event event) {
+                return new CompletableFuture<Void>(); // never completes
+            }
+        }, 1);
+        queue.dispatch(event());
+        Thread.currentThread().interrupt();
+        try {
+            queue.awaitCapacity(10, TimeUnit.SECONDS);
+            fail();
+        } catch (InterruptedException e) {
+            assertFalse(Thread.interrupted());
+        }
+        assertFalse(queue.awaitCapacity(10, TimeUnit.MILLISECONDS));
+    }
+
+    private static Event event() {
+        EventHeaderV4 eventHeader = new EventHeaderV4();
+        eventHeader.setEventType(EventType.QUERY);
+        return new Event(eventHeader, null);
+    }
+}
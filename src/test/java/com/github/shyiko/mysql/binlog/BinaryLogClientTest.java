@@ -15,29 +15,68 @@
  */
 package com.github.shyiko.mysql.binlog;
 
+import com.github.luben.zstd.Zstd;
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.MariadbGtidEventData;
+import com.github.shyiko.mysql.binlog.event.XidEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDataDeserializationException;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDataDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventFilter;
+import com.github.shyiko.mysql.binlog.event.deserialization.TransactionPayloadEventDataDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.XidEventDataDeserializer;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import com.github.shyiko.mysql.binlog.io.ByteArrayOutputStream;
 import com.github.shyiko.mysql.binlog.jmx.BinaryLogClientStatistics;
 import com.github.shyiko.mysql.binlog.network.SocketFactory;
 import org.testng.annotations.Test;
 
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
 public class BinaryLogClientTest {
 
+    private static final int QUERY = 2;
+    private static final int ROTATE = 4;
+    private static final int INTVAR = 5;
+    private static final int XID = 16;
+    private static final int XA_PREPARE = 38;
+    private static final int TRANSACTION_PAYLOAD = 40;
+    private static final int MARIADB_GTID = 162;
+
     @Test
     public void testEventListenersManagement() {
         BinaryLogClient binaryLogClient = new BinaryLogClient("localhost", 3306, "root", "mysql");
@@ -53,6 +92,41 @@ public class BinaryLogClientTest {
         assertEquals(binaryLogClient.getEventListeners().size(), 1);
     }
 
+    @Test
+    public void testAsyncEventListenersManagement() {
+        BinaryLogClient binaryLogClient = new BinaryLogClient("localhost", 3306, "root", "mysql");
+        assertTrue(binaryLogClient.getAsyncEventListeners().isEmpty());
+        BinaryLogClient.AsyncEventListener eventListener = new BinaryLogClient.AsyncEventListener() {
+
+            @Override
+            public CompletionStage<Void> onEvent(Event event) {
+                return null;
+            }
+        };
+        binaryLogClient.registerAsyncEventListener(eventListener, 16);
+        assertEquals(binaryLogClient.getAsyncEventListeners().size(), 1);
+        assertEquals(binaryLogClient.getAsyncEventListenerStatistics(eventListener).getQueueCapacity(), 16);
+        binaryLogClient.unregisterAsyncEventListener(eventListener);
+        assertTrue(binaryLogClient.getAsyncEventListeners().isEmpty());
+        assertNull(binaryLogClient.getAsyncEventListenerStatistics(eventListener));
+    }
+
+    @Test
+    public void testBatchEventListenersManagement() {
+        BinaryLogClient binaryLogClient = new BinaryLogClient("localhost", 3306, "root", "mysql");
+        assertTrue(binaryLogClient.getBatchEventListeners().isEmpty());
+        BinaryLogClient.BatchEventListener eventListener = new BinaryLogClient.BatchEventListener() {
+
+            @Override
+            public void onEvents(List<Event> events) {
+            }
+        };
+        binaryLogClient.registerBatchEventListener(eventListener, 1000, 1 << 20, 100);
+        assertEquals(binaryLogClient.getBatchEventListeners().size(), 1);
+        binaryLogClient.unregisterBatchEventListener(eventListener);
+        assertTrue(binaryLogClient.getBatchEventListeners().isEmpty());
+    }
+
     @Test
     public void testLifecycleListenersManagement() {
         BinaryLogClient binaryLogClient = new BinaryLogClient("localhost", 3306, "root", "mysql");
@@ -108,6 +182,22 @@ public class BinaryLogClientTest {
         }
     }
 
+    @Test
+    public void testPosition() throws Exception {
+        BinaryLogClient binaryLogClient = new BinaryLogClient("localhost", 3306, "root", "mysql");
+        binaryLogClient.setBinlogFilename("mysql-bin.000001");
+        binaryLogClient.setBinlogPosition(154);
+        BinaryLogPosition position = binaryLogClient.getPosition();
+        assertEquals(position.getBinlogFilename(), "mysql-bin.000001");
+        assertEquals(position.getBinlogPosition(), 154);
+        assertNull(position.getGtidSet());
+        assertSame(binaryLogClient.getPosition(), position);
+        binaryLogClient.setGtidSet("24bc7850-2c16-11e6-a073-0242ac110002:1-10");
+        position = binaryLogClient.getPosition();
+        assertEquals(position.getGtidSet().toString(), "24bc7850-2c16-11e6-a073-0242ac110002:1-10");
+        assertNull(position.getLastCommittedGtid());
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testNullEventDeserializerIsNotAllowed() throws Exception {
         new BinaryLogClient("localhost", 3306, "root", "mysql").setEventDeserializer(null);
@@ -178,6 +268,397 @@ public class BinaryLogClientTest {
         }
     }
 
+    @Test(timeOut = 15000)
+    public void testPipelinedDispatch() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, XID, 100, 8, new byte[8]);
+        writeEventPacket(stream, INTVAR, 200, 9, new byte[9]); // fails to deserialize (see below)
+        writeEventPacket(stream, XID, 300, 8, new byte[8]);
+        writeEventPacket(stream, XID, 400, 8, new byte[4]); // truncated
+        writeEventPacket(stream, XID, 500, 8, new byte[8]);
+        BinaryLogClient binaryLogClient = newScriptedClient(stream.toByteArray());
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setEventDataDeserializer(EventType.INTVAR, new EventDataDeserializer() {
+
+            @Override
+            public EventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+                throw new IOException("boom");
+            }
+        });
+        binaryLogClient.setEventDeserializer(eventDeserializer);
+        final List<Long> positions = new ArrayList<Long>();
+        binaryLogClient.registerEventListener(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                positions.add(((EventHeaderV4) event.getHeader()).getNextPosition());
+            }
+        });
+        final List<Exception> deserializationFailures = new ArrayList<Exception>();
+        final List<Exception> communicationFailures = new ArrayList<Exception>();
+        binaryLogClient.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+
+            @Override
+            public void onEventDeserializationFailure(BinaryLogClient client, Exception ex) {
+                deserializationFailures.add(ex);
+            }
+
+            @Override
+            public void onCommunicationFailure(BinaryLogClient client, Exception ex) {
+                communicationFailures.add(ex);
+            }
+        });
+        binaryLogClient.connect();
+        assertEquals(positions, Arrays.asList(100L, 300L));
+        assertEquals(deserializationFailures.size(), 1);
+        assertEquals(deserializationFailures.get(0).getCause().getMessage(), "boom");
+        assertEquals(communicationFailures.size(), 1);
+        assertTrue(communicationFailures.get(0) instanceof EventDataDeserializationException);
+        assertTrue(communicationFailures.get(0).getCause() instanceof EOFException);
+        assertEquals(binaryLogClient.getBinlogPosition(), 300);
+        assertEquals(binaryLogClient.getPosition().getBinlogPosition(), 300);
+        assertFalse(binaryLogClient.isConnected());
+    }
+
+    @Test(timeOut = 15000)
+    public void testPipelinedDispatchOfEmptyPacket() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, XID, 100, 8, new byte[8]);
+        stream.write(new byte[] {1, 0, 0, 0, 0}); // OK marker followed by nothing
+        writeEventPacket(stream, XID, 200, 8, new byte[8]);
+        BinaryLogClient binaryLogClient = newScriptedClient(stream.toByteArray());
+        final List<Long> positions = new ArrayList<Long>();
+        binaryLogClient.registerEventListener(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                positions.add(((EventHeaderV4) event.getHeader()).getNextPosition());
+            }
+        });
+        final List<Exception> communicationFailures = new ArrayList<Exception>();
+        binaryLogClient.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+
+            @Override
+            public void onEventDeserializationFailure(BinaryLogClient client, Exception ex) {
+                fail();
+            }
+
+            @Override
+            public void onCommunicationFailure(BinaryLogClient client, Exception ex) {
+                communicationFailures.add(ex);
+            }
+        });
+        binaryLogClient.connect();
+        assertEquals(positions, Collections.singletonList(100L));
+        assertEquals(communicationFailures.size(), 1);
+        assertTrue(communicationFailures.get(0) instanceof EOFException);
+    }
+
+    @Test(timeOut = 15000)
+    public void testIncludeOnlyEventFilter() throws Exception {
+        ByteArrayOutputStream rotate = new ByteArrayOutputStream();
+        rotate.writeLong(4, 8);
+        rotate.writeString("mysql-bin.000002");
+        byte[] rotateBody = rotate.toByteArray();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, ROTATE, 0, rotateBody.length, rotateBody);
+        writeEventPacket(stream, XID, 300, 8, new byte[8]);
+        BinaryLogClient binaryLogClient = newScriptedClient(stream.toByteArray());
+        EventFilter eventFilter = new EventFilter();
+        eventFilter.setIncludedEventTypes(EventType.EXT_WRITE_ROWS, EventType.EXT_UPDATE_ROWS,
+            EventType.EXT_DELETE_ROWS);
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setEventFilter(eventFilter);
+        binaryLogClient.setEventDeserializer(eventDeserializer);
+        final List<Event> events = new ArrayList<Event>();
+        binaryLogClient.registerEventListener(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        binaryLogClient.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+
+            @Override
+            public void onCommunicationFailure(BinaryLogClient client, Exception ex) {
+                fail(ex.toString());
+            }
+        });
+        binaryLogClient.connect();
+        assertEquals(events.size(), 2);
+        assertNull(events.get(0).getData());
+        assertNull(events.get(1).getData());
+        assertEquals(binaryLogClient.getBinlogFilename(), "mysql-bin.000002");
+        assertEquals(binaryLogClient.getBinlogPosition(), 300);
+        assertEquals(binaryLogClient.getPosition().getBinlogFilename(), "mysql-bin.000002");
+        assertEquals(binaryLogClient.getPosition().getBinlogPosition(), 300);
+    }
+
+    @Test(timeOut = 15000)
+    public void testPositionAtTransactionPayload() throws Exception {
+        java.io.ByteArrayOutputStream uncompressed = new java.io.ByteArrayOutputStream();
+        uncompressed.write(event(QUERY, 0, query("BEGIN")));
+        uncompressed.write(event(XID, 0, new byte[8]));
+        byte[] payload = Zstd.compress(uncompressed.toByteArray());
+        java.io.ByteArrayOutputStream transactionPayload = new java.io.ByteArrayOutputStream();
+        transactionPayload.write(new byte[]{
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_SIZE_FIELD, 1, (byte) payload.length,
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_COMPRESSION_TYPE_FIELD, 1, 0,
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD, 1, (byte) uncompressed.size(),
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_HEADER_END_MARK});
+        transactionPayload.write(payload);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, TRANSACTION_PAYLOAD, 300, transactionPayload.toByteArray());
+        writeEventPacket(stream, XID, 400, new byte[8]);
+        assertEquals(publishedPositions(stream.toByteArray()), Arrays.asList(4L, 300L, 400L));
+    }
+
+    @Test(timeOut = 15000)
+    public void testPositionWithinMariadbTransaction() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, MARIADB_GTID, 100, new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        writeEventPacket(stream, QUERY, 200, query("INSERT INTO t VALUES (1)")); // statement-based, no BEGIN
+        writeEventPacket(stream, XID, 300, new byte[8]);
+        writeEventPacket(stream, MARIADB_GTID, 400, new byte[]{2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            (byte) MariadbGtidEventData.FL_STANDALONE});
+        writeEventPacket(stream, QUERY, 500, query("CREATE TABLE t2 (id INT)"));
+        assertEquals(publishedPositions(stream.toByteArray()), Arrays.asList(4L, 4L, 4L, 300L, 300L, 500L));
+    }
+
+    @Test(timeOut = 15000)
+    public void testPositionAtXaPrepare() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, QUERY, 100, query("XA START X'01',X'',1"));
+        writeEventPacket(stream, QUERY, 200, query("XA END X'01',X'',1"));
+        writeEventPacket(stream, XA_PREPARE, 300, new byte[]{0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1});
+        writeEventPacket(stream, QUERY, 400, query("XA COMMIT X'01',X'',1"));
+        assertEquals(publishedPositions(stream.toByteArray()), Arrays.asList(4L, 4L, 4L, 300L, 400L));
+    }
+
+    @Test(timeOut = 15000)
+    public void testPositionWaitsForAsyncEventListeners() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writeEventPacket(stream, QUERY, 100, query("BEGIN"));
+        writeEventPacket(stream, XID, 200, new byte[8]);
+        writeEventPacket(stream, QUERY, 300, query("BEGIN"));
+        writeEventPacket(stream, XID, 400, new byte[8]);
+        final BinaryLogClient binaryLogClient = newScriptedClient(stream.toByteArray());
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final List<Long> positions = Collections.synchronizedList(new ArrayList<Long>());
+        binaryLogClient.registerAsyncEventListener(new BinaryLogClient.AsyncEventListener() {
+
+            @Override
+            public CompletionStage<Void> onEvent(Event event) {
+                final CompletableFuture<Void> stage = new CompletableFuture<Void>();
+                executor.schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        positions.add(binaryLogClient.getPosition().getBinlogPosition());
+                        stage.complete(null);
+                    }
+                }, 50, TimeUnit.MILLISECONDS);
+                return stage;
+            }
+        }, 16);
+        try {
+            binaryLogClient.connect();
+        } finally {
+            executor.shutdown();
+        }
+        // position of the transaction is published only once all of its events are completed
+        assertEquals(positions, Arrays.asList(4L, 4L, 200L, 200L));
+        assertEquals(binaryLogClient.getPosition().getBinlogPosition(), 400);
+    }
+
+    /**
+     * @return position (see {@link BinaryLogClient#getPosition()}) as seen by the listener on each event, followed
+     * by the one client ended up with
+     */
+    private static List<Long> publishedPositions(byte[] binlogStream) throws IOException {
+        final BinaryLogClient binaryLogClient = newScriptedClient(binlogStream);
+        final List<Long> result = new ArrayList<Long>();
+        binaryLogClient.registerEventListener(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                result.add(binaryLogClient.getPosition().getBinlogPosition());
+            }
+        });
+        binaryLogClient.registerLifecycleListener(new BinaryLogClient.AbstractLifecycleListener() {
+
+            @Override
+            public void onEventDeserializationFailure(BinaryLogClient client, Exception ex) {
+                fail(ex.toString());
+            }
+        });
+        binaryLogClient.connect();
+        result.add(binaryLogClient.getPosition().getBinlogPosition());
+        return result;
+    }
+
+    private static byte[] query(String sql) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(new byte[13]); // thread id, execution time, database length, error code, status variables length
+        body.writeZeroTerminatedString(""); // database
+        body.writeString(sql);
+        return body.toByteArray();
+    }
+
+    private static byte[] event(int eventType, long nextPosition, byte[] body) throws IOException {
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        event.writeLong(0, 4); // timestamp
+        event.writeInteger(eventType, 1);
+        event.writeLong(1, 4); // server id
+        event.writeLong(19 + body.length, 4); // event length
+        event.writeLong(nextPosition, 4);
+        event.writeInteger(0, 2); // flags
+        event.write(body);
+        return event.toByteArray();
+    }
+
+    @Test(timeOut = 15000)
+    public void testPacketSplitInChunks() throws Exception {
+        int dataLength = (1 << 24) + 100;
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        event.writeInteger(0, 1); // OK
+        event.writeLong(0, 4); // timestamp
+        event.writeInteger(XID, 1);
+        event.writeLong(1, 4); // server id
+        event.writeLong(19 + dataLength, 4); // event length
+        event.writeLong(100, 4); // next position
+        event.writeInteger(0, 2); // flags
+        byte[] xid = new byte[dataLength];
+        xid[0] = 42;
+        event.write(xid);
+        byte[] packet = event.toByteArray();
+        int maxChunkLength = (1 << 24) - 1;
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.writeInteger(maxChunkLength, 3);
+        stream.writeInteger(1, 1);
+        stream.write(Arrays.copyOf(packet, maxChunkLength));
+        stream.writeInteger(packet.length - maxChunkLength, 3);
+        stream.writeInteger(2, 1);
+        stream.write(Arrays.copyOfRange(packet, maxChunkLength, packet.length));
+        writeEventPacket(stream, XID, 200, 8, new byte[8]);
+        BinaryLogClient binaryLogClient = newScriptedClient(stream.toByteArray());
+        final List<Boolean> contiguous = new ArrayList<Boolean>();
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setEventDataDeserializer(EventType.XID, new XidEventDataDeserializer() {
+
+            @Override
+            public XidEventData deserialize(ByteArrayInputStream inputStream) throws IOException {
+                try {
+                    Field buffer = ByteArrayInputStream.class.getDeclaredField("buffer");
+                    buffer.setAccessible(true);
+                    contiguous.add(buffer.get(inputStream) != null);
+                } catch (ReflectiveOperationException e) {
+                    throw new AssertionError(e);
+                }
+                return super.deserialize(inputStream);
+            }
+        });
+        binaryLogClient.setEventDeserializer(eventDeserializer);
+        final List<Event> events = new ArrayList<Event>();
+        binaryLogClient.registerEventListener(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                events.add(event);
+            }
+        });
+        binaryLogClient.connect();
+        assertEquals(events.size(), 2);
+        assertEquals(((XidEventData) events.get(0).getData()).getXid(), 42);
+        assertEquals(((EventHeaderV4) events.get(1).getHeader()).getNextPosition(), 200);
+        // event split in chunks must be served from the chunks themselves (not from a copy of the whole packet)
+        assertEquals(contiguous, Arrays.asList(false, true));
+    }
+
+    /**
+     * @return pipelined client which reads handshake (followed by the given binlog stream) from memory
+     */
+    private static BinaryLogClient newScriptedClient(byte[] binlogStream) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ByteArrayOutputStream greeting = new ByteArrayOutputStream();
+        greeting.writeInteger(10, 1); // protocol version
+        greeting.writeZeroTerminatedString("5.7.0");
+        greeting.writeInteger(1, 4); // thread id
+        greeting.writeZeroTerminatedString("12345678");
+        greeting.writeInteger(0, 2); // capabilities
+        greeting.writeInteger(33, 1); // collation
+        greeting.writeInteger(0, 2); // status
+        greeting.write(new byte[13]);
+        greeting.writeZeroTerminatedString("123456789012");
+        writePacket(stream, 0, greeting.toByteArray());
+        writePacket(stream, 2, new byte[] {0, 0, 0, 2, 0, 0, 0}); // authenticated
+        byte[] eof = {(byte) 0xFE, 0, 0, 2, 0};
+        // show global variables like 'binlog_checksum' (no rows)
+        writePacket(stream, 1, new byte[] {2});
+        writePacket(stream, 2, eof);
+        writePacket(stream, 3, eof);
+        // select @@server_id
+        writePacket(stream, 1, new byte[] {1});
+        writePacket(stream, 2, eof);
+        writePacket(stream, 3, new byte[] {1, '1'});
+        writePacket(stream, 4, eof);
+        stream.write(binlogStream);
+        final byte[] script = stream.toByteArray();
+        BinaryLogClient binaryLogClient = new BinaryLogClient("localhost", 3306, "root", "mysql");
+        binaryLogClient.setSocketFactory(new SocketFactory() {
+            @Override
+            public Socket createSocket() throws SocketException {
+                return new Socket() {
+
+                    @Override
+                    public void connect(SocketAddress endpoint, int timeout) {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() {
+                        return new java.io.ByteArrayInputStream(script);
+                    }
+
+                    @Override
+                    public OutputStream getOutputStream() {
+                        return new java.io.ByteArrayOutputStream();
+                    }
+                };
+            }
+        });
+        binaryLogClient.setBinlogFilename("mysql-bin.000001");
+        binaryLogClient.setBinlogPosition(4);
+        binaryLogClient.setKeepAlive(false);
+        binaryLogClient.setPipelined(true);
+        return binaryLogClient;
+    }
+
+    private static void writePacket(ByteArrayOutputStream stream, int sequence, byte[] body) throws IOException {
+        stream.writeInteger(body.length, 3);
+        stream.writeInteger(sequence, 1);
+        stream.write(body);
+    }
+
+    private static void writeEventPacket(ByteArrayOutputStream stream, int eventType, long nextPosition,
+            byte[] body) throws IOException {
+        writeEventPacket(stream, eventType, nextPosition, body.length, body);
+    }
+
+    private static void writeEventPacket(ByteArrayOutputStream stream, int eventType, long nextPosition,
+            int dataLength, byte[] body) throws IOException {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        packet.writeInteger(0, 1); // OK
+        packet.writeLong(0, 4); // timestamp
+        packet.writeInteger(eventType, 1);
+        packet.writeLong(1, 4); // server id
+        packet.writeLong(19 + dataLength, 4); // event length
+        packet.writeLong(nextPosition, 4);
+        packet.writeInteger(0, 2); // flags
+        packet.write(body);
+        writePacket(stream, 1, packet.toByteArray());
+    }
+
     /*
     @Test
     public void testDeadlockyCode() throws IOException, InterruptedException {
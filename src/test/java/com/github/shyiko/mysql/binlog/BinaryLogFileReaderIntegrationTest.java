@@ -18,21 +18,37 @@ package com.github.shyiko.mysql.binlog;
 import com.github.shyiko.mysql.binlog.event.ByteArrayEventData;
 import com.github.shyiko.mysql.binlog.event.Event;
 import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
 import com.github.shyiko.mysql.binlog.event.deserialization.ByteArrayEventDataDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.ChecksumMismatchException;
 import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.LazyRow;
+import com.github.shyiko.mysql.binlog.event.deserialization.RowVisitor;
 import com.github.shyiko.mysql.binlog.event.deserialization.NullEventDataDeserializer;
 import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPInputStream;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
@@ -69,6 +85,34 @@ public class BinaryLogFileReaderIntegrationTest {
         readAll(reader, 303);
     }
 
+    @Test
+    public void testChecksumCRC32Verification() throws Exception {
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setVerifyChecksum(true);
+        BinaryLogFileReader reader = new BinaryLogFileReader(
+                new FileInputStream("src/test/resources/mysql-bin.checksum-crc32"), eventDeserializer);
+        readAll(reader, 303);
+        byte[] bytes = Files.readAllBytes(Paths.get("src/test/resources/mysql-bin.checksum-crc32"));
+        bytes[bytes.length - 10] ^= 1; // corrupting last event
+        eventDeserializer = new EventDeserializer();
+        eventDeserializer.setVerifyChecksum(true);
+        reader = new BinaryLogFileReader(new java.io.ByteArrayInputStream(bytes), eventDeserializer);
+        try {
+            for (int i = 0; i < 302; i++) {
+                assertNotNull(reader.readEvent());
+            }
+            try {
+                reader.readEvent();
+                fail();
+            } catch (ChecksumMismatchException e) {
+                assertNotEquals(e.getActualChecksum(), e.getExpectedChecksum());
+            }
+            assertNull(reader.readEvent());
+        } finally {
+            reader.close();
+        }
+    }
+
     @Test
     public void testChecksumCRC32WithCustomEventDataDeserializer() throws Exception {
         EventDeserializer eventDeserializer = new EventDeserializer();
@@ -108,6 +152,124 @@ public class BinaryLogFileReaderIntegrationTest {
         }
     }
 
+    @Test
+    public void testParallelRowsDeserialization() throws Exception {
+        List<Serializable[]> expected = readAllRows(new EventDeserializer());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            EventDeserializer eventDeserializer = new EventDeserializer();
+            eventDeserializer.setRowsDeserializationExecutor(executor, 1);
+            List<Serializable[]> actual = readAllRows(eventDeserializer);
+            assertTrue(expected.size() > 1000);
+            assertEquals(actual.size(), expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertTrue(Arrays.deepEquals(actual.get(i), expected.get(i)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLazyRowsDeserialization() throws Exception {
+        List<Serializable[]> expected = readAllRows(new EventDeserializer());
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setDeserializeRowsLazily(true);
+        BinaryLogFileReader reader = new BinaryLogFileReader(new GZIPInputStream(
+            new FileInputStream("src/test/resources/mysql-bin.sakila.gz")), eventDeserializer);
+        int index = 0;
+        try {
+            for (Event event; (event = reader.readEvent()) != null; ) {
+                if (event.getData() instanceof WriteRowsEventData) {
+                    for (LazyRow row : ((WriteRowsEventData) event.getData()).getLazyRows()) {
+                        Serializable[] expectedRow = expected.get(index++);
+                        assertEquals(row.size(), expectedRow.length);
+                        for (int i = 0; i < expectedRow.length; i++) {
+                            assertEquals(row.isNull(i), expectedRow[i] == null);
+                            if (expectedRow[i] instanceof Integer || expectedRow[i] instanceof Long) {
+                                assertEquals(row.getLong(i), ((Number) expectedRow[i]).longValue());
+                            }
+                        }
+                        assertTrue(Arrays.deepEquals(row.toArray(), expectedRow));
+                        final Serializable[] visited = new Serializable[row.size()];
+                        row.accept(new RowVisitor() {
+
+                            @Override
+                            public void onNull(int col) {
+                                visited[col] = null;
+                            }
+
+                            @Override
+                            public void onInt(int col, int value) {
+                                visited[col] = value;
+                            }
+
+                            @Override
+                            public void onLong(int col, long value) {
+                                visited[col] = value;
+                            }
+
+                            @Override
+                            public void onDouble(int col, double value) {
+                                visited[col] = value;
+                            }
+
+                            @Override
+                            public void onBytes(int col, byte[] buffer, int offset, int length) {
+                                visited[col] = new String(buffer, offset, length);
+                            }
+
+                            @Override
+                            public void onValue(int col, Serializable value) {
+                                visited[col] = value;
+                            }
+                        });
+                        for (int i = 0; i < expectedRow.length; i++) {
+                            if (expectedRow[i] instanceof Float) {
+                                assertEquals(visited[i], ((Float) expectedRow[i]).doubleValue());
+                            } else
+                            if (expectedRow[i] instanceof byte[]) {
+                                assertEquals(visited[i], new String((byte[]) expectedRow[i]));
+                            } else {
+                                assertEquals(visited[i], expectedRow[i]);
+                            }
+                        }
+                    }
+                } else
+                if (event.getData() instanceof UpdateRowsEventData) {
+                    index += ((UpdateRowsEventData) event.getData()).getLazyRows().size() * 2;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        assertEquals(index, expected.size());
+        assertEquals(readAllRows(eventDeserializer).size(), expected.size());
+    }
+
+    private List<Serializable[]> readAllRows(EventDeserializer eventDeserializer) throws IOException {
+        BinaryLogFileReader reader = new BinaryLogFileReader(new GZIPInputStream(
+            new FileInputStream("src/test/resources/mysql-bin.sakila.gz")), eventDeserializer);
+        List<Serializable[]> result = new ArrayList<Serializable[]>();
+        try {
+            for (Event event; (event = reader.readEvent()) != null; ) {
+                if (event.getData() instanceof WriteRowsEventData) {
+                    result.addAll(((WriteRowsEventData) event.getData()).getRows());
+                } else
+                if (event.getData() instanceof UpdateRowsEventData) {
+                    for (Map.Entry<Serializable[], Serializable[]> row :
+                            ((UpdateRowsEventData) event.getData()).getRows()) {
+                        result.add(row.getKey());
+                        result.add(row.getValue());
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
     private void readAll(BinaryLogFileReader reader, int expect) throws IOException {
         try {
             int numberOfEvents = 0;
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class EventBatchTest {
+
+    @Test
+    public void testMaxEventsAndMaxBytes() throws Exception {
+        final List<Integer> batches = new ArrayList<Integer>();
+        final List<List<Event>> lists = new ArrayList<List<Event>>();
+        EventBatch batch = new EventBatch(new BinaryLogClient.BatchEventListener() {
+
+            @Override
+            public void onEvents(List<Event> events) {
+                batches.add(events.size());
+                lists.add(events);
+            }
+        }, 3, 100, 0, null);
+        for (int i = 0; i < 7; i++) {
+            batch.add(event(10));
+        }
+        assertEquals(batches, Arrays.asList(3, 3));
+        batch.add(event(50));
+        batch.add(event(50)); // 10 + 50 + 50 >= 100
+        assertEquals(batches.get(2), Integer.valueOf(3));
+        batch.add(event(10));
+        batch.flush();
+        batch.flush(); // no-op
+        assertEquals(batches.size(), 4);
+        assertEquals(batches.get(3), Integer.valueOf(1));
+        assertTrue(lists.get(0) == lists.get(3)); // list is reused
+        assertTrue(lists.get(0).isEmpty());
+    }
+
+    @Test(timeOut = 15000)
+    public void testMaxLinger() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        try {
+            EventBatch batch = new EventBatch(new BinaryLogClient.BatchEventListener() {
+
+                @Override
+                public void onEvents(List<Event> events) {
+                    batches.add(events.size());
+                    latch.countDown();
+                }
+            }, 2, 0, 50, scheduler);
+            batch.add(event(10));
+            batch.add(event(10)); // flushed right away, scheduled flush must not affect the next batch
+            batch.add(event(10));
+            long start = System.currentTimeMillis();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(batches, Arrays.asList(2, 1));
+            assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final List<Integer> batches = new ArrayList<Integer>();
+        EventBatch batch = new EventBatch(new BinaryLogClient.BatchEventListener() {
+
+            @Override
+            public void onEvents(List<Event> events) {
+                batches.add(events.size());
+                throw new IllegalStateException();
+            }
+        }, 2, 0, 0, null);
+        batch.add(event(10));
+        batch.add(event(10));
+        batch.add(event(10));
+        batch.flush();
+        assertEquals(batches, Arrays.asList(2, 1));
+    }
+
+    private static Event event(long eventLength) {
+        EventHeaderV4 eventHeader = new EventHeaderV4();
+        eventHeader.setEventType(EventType.QUERY);
+        eventHeader.setEventLength(eventLength);
+        return new Event(eventHeader, null);
+    }
+}
@@ -23,8 +23,11 @@ import org.testng.annotations.Test;
 import java.util.LinkedList;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
@@ -179,6 +182,70 @@ public class GtidSetTest {
         assertEquals("00000000-0000-0000-0000-000000000000:1-2", gtidSet.toString());
     }
 
+    @Test
+    public void testAddOutOfOrder() {
+        GtidSet gtidSet = new GtidSet(UUID + ":1-3:7-9");
+        assertTrue(gtidSet.add(UUID + ":5"));
+        assertEquals(gtidSet.toString(), UUID + ":1-3:5-5:7-9");
+        assertTrue(gtidSet.add(UUID + ":4"));
+        assertTrue(gtidSet.add(UUID + ":6"));
+        assertEquals(gtidSet.toString(), UUID + ":1-9");
+        assertFalse(gtidSet.add(UUID + ":6"));
+        assertTrue(gtidSet.add(UUID + ":12"));
+        assertTrue(gtidSet.add(UUID + ":13"));
+        UUIDSet uuidSet = gtidSet.getUUIDSet(UUID);
+        assertEquals(uuidSet.getIntervalCount(), 2);
+        assertEquals(uuidSet.getStart(1), 12);
+        assertEquals(uuidSet.getEnd(1), 13);
+        assertTrue(uuidSet.contains(13));
+        assertFalse(uuidSet.contains(10));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        String otherUUID = "00000000-0000-0000-0000-000000000001";
+        GtidSet a = new GtidSet(UUID + ":1-10:20-30," + otherUUID + ":1-5");
+        GtidSet b = new GtidSet(UUID + ":5-22:25-25:29-40");
+        assertEquals(a.union(b).toString(), UUID + ":1-40," + otherUUID + ":1-5");
+        assertEquals(a.intersect(b).toString(), UUID + ":5-10:20-22:25-25:29-30");
+        assertEquals(a.subtract(b).toString(), UUID + ":1-4:23-24:26-28," + otherUUID + ":1-5");
+        assertEquals(b.subtract(a).toString(), UUID + ":11-19:31-40");
+        assertEquals(a.subtract(a).toString(), "");
+        assertEquals(a.union(null), a);
+        assertTrue(a.intersect(b).isContainedWithin(b));
+    }
+
+    @Test
+    public void testSnapshot() {
+        GtidSet gtidSet = new GtidSet(UUID + ":1-3:7-9");
+        GtidSet snapshot = gtidSet.snapshot();
+        assertSame(gtidSet.snapshot(), snapshot);
+        gtidSet.add(UUID + ":10");
+        gtidSet.add(UUID + ":12");
+        GtidSet secondSnapshot = gtidSet.snapshot();
+        gtidSet.add(UUID + ":13");
+        gtidSet.add(UUID + ":5");
+        gtidSet.add(UUID + ":15");
+        assertEquals(snapshot.toString(), UUID + ":1-3:7-9");
+        assertEquals(secondSnapshot.toString(), UUID + ":1-3:7-10:12-12");
+        assertEquals(gtidSet.toString(), UUID + ":1-3:5-5:7-10:12-13:15-15");
+        assertTrue(snapshot.isContainedWithin(secondSnapshot));
+        try {
+            snapshot.add(UUID + ":4");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        // UUIDSet of the snapshot can still be modified as a part of another (mutable) set
+        GtidSet other = new GtidSet("");
+        other.putUUIDSet(secondSnapshot.getUUIDSet(UUID));
+        other.add(UUID + ":11");
+        other.add(UUID + ":14");
+        assertEquals(other.toString(), UUID + ":1-3:7-12:14-14");
+        assertEquals(secondSnapshot.toString(), UUID + ":1-3:7-10:12-12");
+        assertEquals(gtidSet.toString(), UUID + ":1-3:5-5:7-10:12-13:15-15");
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testAddAnotherObjectAsGtidFails() {
         GtidSet gtidSet = new GtidSet("");
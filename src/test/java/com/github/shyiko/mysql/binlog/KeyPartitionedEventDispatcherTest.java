@@ -0,0 +1,296 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.luben.zstd.Zstd;
+import com.github.shyiko.mysql.binlog.event.DeleteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.QueryEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer.EventDataWrapper;
+import com.github.shyiko.mysql.binlog.event.deserialization.TransactionPayloadEventDataDeserializer;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import com.github.shyiko.mysql.binlog.io.ByteArrayOutputStream;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class KeyPartitionedEventDispatcherTest {
+
+    @Test
+    public void testDispatch() throws Exception {
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+        final Map<String, List<String>> deliveredByThread = Collections.synchronizedMap(
+            new HashMap<String, List<String>>());
+        KeyPartitionedEventDispatcher dispatcher = new KeyPartitionedEventDispatcher(
+            new BinaryLogClient.EventListener() {
+
+                @Override
+                public void onEvent(Event event) {
+                    List<String> operations = new ArrayList<String>();
+                    EventData eventData = event.getData();
+                    if (eventData instanceof TableMapEventData) {
+                        operations.add("T");
+                    } else
+                    if (eventData instanceof WriteRowsEventData) {
+                        for (Serializable[] row : ((WriteRowsEventData) eventData).getRows()) {
+                            operations.add("W" + row[0]);
+                        }
+                    } else
+                    if (eventData instanceof UpdateRowsEventData) {
+                        for (Map.Entry<Serializable[], Serializable[]> row :
+                                ((UpdateRowsEventData) eventData).getRows()) {
+                            operations.add("U" + row.getKey()[0] + "-" + row.getValue()[0]);
+                        }
+                    } else
+                    if (eventData instanceof DeleteRowsEventData) {
+                        for (Serializable[] row : ((DeleteRowsEventData) eventData).getRows()) {
+                            operations.add("D" + row[0]);
+                        }
+                    } else {
+                        operations.add("Q");
+                    }
+                    String thread = Thread.currentThread().getName();
+                    synchronized (deliveredByThread) {
+                        if (!deliveredByThread.containsKey(thread)) {
+                            deliveredByThread.put(thread, new ArrayList<String>());
+                        }
+                        deliveredByThread.get(thread).addAll(operations);
+                    }
+                    delivered.addAll(operations);
+                }
+            }, 4);
+        dispatcher.onEvent(event(EventType.QUERY, query("BEGIN")));
+        dispatcher.onEvent(event(EventType.TABLE_MAP, tableMap()));
+        List<Serializable[]> rows = new ArrayList<Serializable[]>();
+        List<Map.Entry<Serializable[], Serializable[]>> updates = new ArrayList<Map.Entry<Serializable[],
+            Serializable[]>>();
+        List<Map.Entry<Serializable[], Serializable[]>> keyUpdates = new ArrayList<Map.Entry<Serializable[],
+            Serializable[]>>();
+        List<Serializable[]> deletes = new ArrayList<Serializable[]>();
+        for (int i = 1; i <= 50; i++) {
+            rows.add(new Serializable[]{i, "w"});
+            updates.add(new AbstractMap.SimpleEntry<Serializable[], Serializable[]>(
+                new Serializable[]{i, "w"}, new Serializable[]{i, "u"}));
+            keyUpdates.add(new AbstractMap.SimpleEntry<Serializable[], Serializable[]>(
+                new Serializable[]{i, "u"}, new Serializable[]{i + 1000, "u"}));
+            deletes.add(new Serializable[]{i + 1000, "u"});
+        }
+        WriteRowsEventData writeRowsEventData = new WriteRowsEventData();
+        writeRowsEventData.setTableId(1);
+        writeRowsEventData.setIncludedColumns(columns(0, 1));
+        writeRowsEventData.setRows(rows);
+        dispatcher.onEvent(event(EventType.EXT_WRITE_ROWS, writeRowsEventData));
+        dispatcher.onEvent(event(EventType.EXT_UPDATE_ROWS, updateRows(updates)));
+        dispatcher.onEvent(event(EventType.EXT_UPDATE_ROWS, updateRows(keyUpdates)));
+        DeleteRowsEventData deleteRowsEventData = new DeleteRowsEventData();
+        deleteRowsEventData.setTableId(1);
+        deleteRowsEventData.setIncludedColumns(columns(0, 1));
+        deleteRowsEventData.setRows(deletes);
+        dispatcher.onEvent(event(EventType.EXT_DELETE_ROWS, deleteRowsEventData));
+        dispatcher.onEvent(event(EventType.XID, null));
+        dispatcher.onEvent(event(EventType.QUERY, query("DROP TABLE t")));
+        dispatcher.close();
+
+        assertEquals(delivered.get(delivered.size() - 1), "Q");
+        assertEquals(delivered.size() - Collections.frequency(delivered, "T"), 50 * 4 + 1);
+        for (int i = 1; i <= 50; i++) {
+            int write = delivered.indexOf("W" + i), update = delivered.indexOf("U" + i + "-" + i),
+                keyUpdate = delivered.indexOf("U" + i + "-" + (i + 1000)), delete = delivered.indexOf("D" + (i + 1000));
+            assertTrue(write != -1 && write < update && update < keyUpdate && keyUpdate < delete,
+                Arrays.asList(write, update, keyUpdate, delete).toString());
+        }
+        Set<String> threads = new HashSet<String>();
+        for (Map.Entry<String, List<String>> entry : deliveredByThread.entrySet()) {
+            if (!entry.getValue().equals(Collections.singletonList("Q"))) {
+                assertEquals(entry.getValue().get(0), "T");
+                threads.add(entry.getKey());
+            }
+        }
+        assertEquals(threads.size(), 4);
+    }
+
+    @Test
+    public void testFlushAndWrappedEvents() throws Exception {
+        final Map<Serializable, Set<String>> threadsByKey = Collections.synchronizedMap(
+            new HashMap<Serializable, Set<String>>());
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+        KeyPartitionedEventDispatcher dispatcher = new KeyPartitionedEventDispatcher(
+            new BinaryLogClient.EventListener() {
+
+                @Override
+                public void onEvent(Event event) {
+                    EventData eventData = EventDataWrapper.internal(event.getData());
+                    if (eventData instanceof WriteRowsEventData) {
+                        for (Serializable[] row : ((WriteRowsEventData) eventData).getRows()) {
+                            synchronized (threadsByKey) {
+                                if (!threadsByKey.containsKey(row[1])) {
+                                    threadsByKey.put(row[1], new HashSet<String>());
+                                }
+                                threadsByKey.get(row[1]).add(Thread.currentThread().getName());
+                            }
+                            delivered.add("W" + row[0]);
+                        }
+                    } else
+                    if (eventData instanceof QueryEventData) {
+                        delivered.add("Q");
+                    }
+                }
+            }, 4);
+        TableMapEventData tableMap = tableMap();
+        TableMapEventMetadata eventMetadata = new TableMapEventMetadata();
+        eventMetadata.setSimplePrimaryKeys(Collections.singletonList(2));
+        tableMap.setEventMetadata(eventMetadata);
+        dispatcher.onEvent(event(EventType.TABLE_MAP, new EventDataWrapper(tableMap, tableMap)));
+        for (int i = 0; i < 20; i++) {
+            WriteRowsEventData writeRowsEventData = new WriteRowsEventData();
+            writeRowsEventData.setTableId(1);
+            writeRowsEventData.setIncludedColumns(columns(0, 2)); // key is the second cell
+            writeRowsEventData.setRows(Collections.singletonList(new Serializable[]{i, i % 5}));
+            dispatcher.onEvent(event(EventType.EXT_WRITE_ROWS, writeRowsEventData));
+        }
+        QueryEventData query = query("DROP TABLE t");
+        dispatcher.onEvent(event(EventType.QUERY, new EventDataWrapper(query, query)));
+        dispatcher.flush();
+        try {
+            assertEquals(delivered.size(), 21);
+            assertEquals(delivered.get(20), "Q");
+            assertEquals(threadsByKey.size(), 5);
+            for (Set<String> threads : threadsByKey.values()) {
+                assertEquals(threads.size(), 1);
+            }
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void testTransactionPayload() throws Exception {
+        java.io.ByteArrayOutputStream uncompressed = new java.io.ByteArrayOutputStream();
+        // db.t (INT, VARCHAR(20)), table id 1
+        writeEvent(uncompressed, 19, new byte[]{
+            1, 0, 0, 0, 0, 0, 0, 0, 2, 'd', 'b', 0, 1, 't', 0, 2, 3, 15, 2, 20, 0, 2});
+        for (int i = 0; i < 2; i++) {
+            writeEvent(uncompressed, 30, new byte[]{ // EXT_WRITE_ROWS
+                1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 0x03, 0, (byte) (42 + i), 0, 0, 0, 2, 'o', 'k'});
+        }
+        writeEvent(uncompressed, 16, new byte[8]); // XID
+        byte[] payload = Zstd.compress(uncompressed.toByteArray());
+        java.io.ByteArrayOutputStream body = new java.io.ByteArrayOutputStream();
+        body.write(new byte[]{
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_SIZE_FIELD, 1, (byte) payload.length,
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_COMPRESSION_TYPE_FIELD, 1, 0,
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_UNCOMPRESSED_SIZE_FIELD, 1, (byte) uncompressed.size(),
+            TransactionPayloadEventDataDeserializer.OTW_PAYLOAD_HEADER_END_MARK});
+        body.write(payload);
+        EventData transactionPayload = new EventDeserializer().getEventDataDeserializer(EventType.TRANSACTION_PAYLOAD)
+            .deserialize(new ByteArrayInputStream(body.toByteArray()));
+
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<String>());
+        KeyPartitionedEventDispatcher dispatcher = new KeyPartitionedEventDispatcher(
+            new BinaryLogClient.EventListener() {
+
+                @Override
+                public void onEvent(Event event) {
+                    EventData eventData = event.getData();
+                    if (eventData instanceof TableMapEventData) {
+                        delivered.add("T");
+                    } else
+                    if (eventData instanceof WriteRowsEventData) {
+                        for (Serializable[] row : ((WriteRowsEventData) eventData).getRows()) {
+                            delivered.add("W" + row[0]);
+                        }
+                    }
+                }
+            }, 2);
+        dispatcher.onEvent(event(EventType.TRANSACTION_PAYLOAD, transactionPayload));
+        dispatcher.close();
+        assertEquals(delivered, Arrays.asList("T", "W42", "W43")); // no primary key, routed by table
+    }
+
+    private static void writeEvent(java.io.ByteArrayOutputStream out, int eventType, byte[] body) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.writeLong(0, 4); // timestamp
+        header.writeInteger(eventType, 1);
+        header.writeLong(1, 4); // server id
+        header.writeLong(19 + body.length, 4); // event length
+        header.writeLong(0, 4); // next position
+        header.writeInteger(0, 2); // flags
+        out.write(header.toByteArray());
+        out.write(body);
+    }
+
+    private static UpdateRowsEventData updateRows(List<Map.Entry<Serializable[], Serializable[]>> rows) {
+        UpdateRowsEventData eventData = new UpdateRowsEventData();
+        eventData.setTableId(1);
+        eventData.setIncludedColumnsBeforeUpdate(columns(0, 1));
+        eventData.setIncludedColumns(columns(0, 1));
+        eventData.setRows(rows);
+        return eventData;
+    }
+
+    private static BitSet columns(int... indexes) {
+        BitSet result = new BitSet();
+        for (int index : indexes) {
+            result.set(index);
+        }
+        return result;
+    }
+
+    private static TableMapEventData tableMap() {
+        TableMapEventData eventData = new TableMapEventData();
+        eventData.setTableId(1);
+        eventData.setDatabase("db");
+        eventData.setTable("t");
+        TableMapEventMetadata eventMetadata = new TableMapEventMetadata();
+        eventMetadata.setSimplePrimaryKeys(Collections.singletonList(0));
+        eventData.setEventMetadata(eventMetadata);
+        return eventData;
+    }
+
+    private static QueryEventData query(String sql) {
+        QueryEventData eventData = new QueryEventData();
+        eventData.setSql(sql);
+        return eventData;
+    }
+
+    private static Event event(EventType eventType, EventData eventData) {
+        EventHeaderV4 eventHeader = new EventHeaderV4();
+        eventHeader.setEventType(eventType);
+        return new Event(eventHeader, eventData);
+    }
+}
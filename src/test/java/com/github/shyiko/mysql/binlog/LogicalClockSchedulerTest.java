@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class LogicalClockSchedulerTest {
+
+    private static final String UUID = "24bc7850-2c16-11e6-a073-0242ac110002";
+
+    @Test
+    public void testDependencies() throws Exception {
+        final CountDownLatch secondStarted = new CountDownLatch(1);
+        final List<Long> applied = Collections.synchronizedList(new ArrayList<Long>());
+        final List<String> violations = Collections.synchronizedList(new ArrayList<String>());
+        LogicalClockScheduler scheduler = new LogicalClockScheduler(new TransactionAssembler.TransactionListener() {
+
+            @Override
+            public void onTransaction(Transaction transaction) {
+                long sequenceNumber = transaction.getSequenceNumber();
+                if (sequenceNumber == 1) {
+                    // 1 and 2 are independent and so have to be applied concurrently
+                    try {
+                        if (!secondStarted.await(10, TimeUnit.SECONDS)) {
+                            violations.add("1 and 2 were not applied concurrently");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (sequenceNumber == 2) {
+                    secondStarted.countDown();
+                }
+                for (long i = 1; i <= transaction.getLastCommitted(); i++) {
+                    if (!applied.contains(i)) {
+                        violations.add(sequenceNumber + " started before " + i + " was applied");
+                    }
+                }
+                applied.add(sequenceNumber);
+            }
+        }, 4);
+        scheduler.setGtidSet(UUID + ":1-10");
+        scheduler.onTransaction(new Transaction(UUID + ":11", 0, 1));
+        scheduler.onTransaction(new Transaction(UUID + ":12", 0, 2));
+        scheduler.onTransaction(new Transaction(UUID + ":13", 2, 3));
+        scheduler.onTransaction(new Transaction(UUID + ":14", 2, 4));
+        scheduler.onTransaction(new Transaction(UUID + ":15", 4, 5));
+        scheduler.close();
+        assertEquals(violations, Collections.emptyList());
+        assertEquals(applied.size(), 5);
+        assertEquals(scheduler.getCheckpoint().toString(), UUID + ":1-15");
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        LogicalClockScheduler scheduler = new LogicalClockScheduler(new TransactionAssembler.TransactionListener() {
+
+            @Override
+            public void onTransaction(Transaction transaction) {
+                if (transaction.getSequenceNumber() == 2) {
+                    throw new RuntimeException();
+                }
+            }
+        }, 2);
+        scheduler.onTransaction(new Transaction(UUID + ":1", 0, 1));
+        scheduler.onTransaction(new Transaction(UUID + ":2", 1, 2));
+        try {
+            scheduler.onTransaction(new Transaction(UUID + ":3", 2, 3));
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof RuntimeException);
+        }
+        scheduler.close();
+        assertEquals(scheduler.getCheckpoint().toString(), UUID + ":1-1");
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ParallelBinaryLogFileReaderTest {
+
+    @Test
+    public void testSplit() throws Exception {
+        ParallelBinaryLogFileReader reader =
+            new ParallelBinaryLogFileReader(new File("src/test/resources/mysql-bin.checksum-crc32"), 4);
+        reader.setSegmentSize(1);
+        List<ParallelBinaryLogFileReader.Segment> segments = reader.split();
+        assertTrue(segments.size() > 10);
+        assertEquals(segments.get(0).getFrom(), 4);
+        for (int i = 1; i < segments.size(); i++) {
+            assertEquals(segments.get(i).getFrom(), segments.get(i - 1).getTo());
+        }
+        assertEquals(segments.get(segments.size() - 1).getTo(),
+            new File("src/test/resources/mysql-bin.checksum-crc32").length());
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        File file = File.createTempFile("mysql-bin", ".sakila");
+        try {
+            InputStream inputStream =
+                new GZIPInputStream(new FileInputStream("src/test/resources/mysql-bin.sakila.gz"));
+            try {
+                Files.copy(inputStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                inputStream.close();
+            }
+            assertRead(file);
+            assertRead(new File("src/test/resources/mysql-bin.checksum-crc32"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void assertRead(File file) throws Exception {
+        List<String> expected = new ArrayList<String>();
+        BinaryLogFileReader sequentialReader = new BinaryLogFileReader(file);
+        try {
+            for (Event event; (event = sequentialReader.readEvent()) != null; ) {
+                expected.add(asString(event));
+            }
+        } finally {
+            sequentialReader.close();
+        }
+        ParallelBinaryLogFileReader reader = new ParallelBinaryLogFileReader(file, 4);
+        reader.setSegmentSize(1024);
+        final List<String> actual = new ArrayList<String>();
+        reader.read(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                actual.add(asString(event));
+            }
+        });
+        assertEquals(actual, expected);
+        final List<Event> unordered = Collections.synchronizedList(new ArrayList<Event>());
+        reader.readUnordered(new BinaryLogClient.EventListener() {
+
+            @Override
+            public void onEvent(Event event) {
+                unordered.add(event);
+            }
+        });
+        Collections.sort(unordered, new Comparator<Event>() {
+
+            @Override
+            public int compare(Event o1, Event o2) {
+                long p1 = ((EventHeaderV4) o1.getHeader()).getPosition();
+                long p2 = ((EventHeaderV4) o2.getHeader()).getPosition();
+                return p1 < p2 ? -1 : p1 == p2 ? 0 : 1;
+            }
+        });
+        actual.clear();
+        for (Event event : unordered) {
+            actual.add(asString(event));
+        }
+        assertEquals(actual, expected);
+    }
+
+    private static String asString(Event event) {
+        return event.toString().replaceAll("\\[B@[0-9a-f]+", "[B"); // byte[]s are printed as [B@<identity hash>
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventData;
+import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.GtidEventData;
+import com.github.shyiko.mysql.binlog.event.MariadbGtidEventData;
+import com.github.shyiko.mysql.binlog.event.MySqlGtid;
+import com.github.shyiko.mysql.binlog.event.QueryEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TransactionPayloadEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.XidEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.EventDeserializer;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TransactionAssemblerTest {
+
+    private static final String UUID = "24bc7850-2c16-11e6-a073-0242ac110002";
+
+    @Test
+    public void testAssemble() throws Exception {
+        TransactionAssembler transactionAssembler = new TransactionAssembler();
+        CapturingTransactionListener listener = new CapturingTransactionListener();
+        transactionAssembler.registerTransactionListener(listener);
+        transactionAssembler.onEvent(event(1, EventType.ROTATE, null));
+        // joined in the middle of a transaction
+        transactionAssembler.onEvent(event(2, EventType.EXT_WRITE_ROWS, writeRows(1)));
+        transactionAssembler.onEvent(event(3, EventType.XID, new XidEventData()));
+        // DML
+        transactionAssembler.onEvent(event(4, EventType.GTID, gtid(1)));
+        transactionAssembler.onEvent(event(5, EventType.QUERY, query("BEGIN")));
+        transactionAssembler.onEvent(event(6, EventType.TABLE_MAP, tableMap(1)));
+        transactionAssembler.onEvent(event(7, EventType.EXT_WRITE_ROWS, writeRows(1)));
+        transactionAssembler.onEvent(event(8, EventType.XID, new XidEventData()));
+        // rolled back
+        transactionAssembler.onEvent(event(9, EventType.GTID, gtid(2)));
+        transactionAssembler.onEvent(event(10, EventType.QUERY, query("BEGIN")));
+        transactionAssembler.onEvent(event(11, EventType.QUERY, query("ROLLBACK")));
+        // DDL
+        transactionAssembler.onEvent(event(12, EventType.GTID, gtid(3)));
+        transactionAssembler.onEvent(event(13, EventType.QUERY, query("CREATE TABLE t (id INT)")));
+        assertEquals(listener.transactions.size(), 2);
+        Transaction dml = listener.transactions.get(0);
+        assertEquals(dml.getGtid(), UUID + ":1");
+        assertEquals(dml.getCommitTimestamp(), 8);
+        assertEquals(dml.getNumberOfEvents(), 5);
+        assertEquals(dml.getTableMaps().keySet().iterator().next(), Long.valueOf(1));
+        assertEquals(listener.timestamps.get(0), Arrays.asList(4L, 5L, 6L, 7L, 8L));
+        Transaction ddl = listener.transactions.get(1);
+        assertEquals(ddl.getGtid(), UUID + ":3");
+        assertEquals(ddl.getCommitTimestamp(), 13);
+        assertTrue(ddl.getTableMaps().isEmpty());
+        assertEquals(listener.timestamps.get(1), Arrays.asList(12L, 13L));
+    }
+
+    @Test
+    public void testAssembleMariadb() throws Exception {
+        TransactionAssembler transactionAssembler = new TransactionAssembler();
+        CapturingTransactionListener listener = new CapturingTransactionListener();
+        transactionAssembler.registerTransactionListener(listener);
+        // DML (no BEGIN)
+        transactionAssembler.onEvent(event(1, EventType.MARIADB_GTID, mariadbGtid(1, 0)));
+        transactionAssembler.onEvent(event(2, EventType.QUERY, query("INSERT INTO t VALUES (1)")));
+        transactionAssembler.onEvent(event(3, EventType.TABLE_MAP, tableMap(1)));
+        transactionAssembler.onEvent(event(4, EventType.EXT_WRITE_ROWS, writeRows(1)));
+        transactionAssembler.onEvent(event(5, EventType.XID, new XidEventData()));
+        // non-transactional DML
+        transactionAssembler.onEvent(event(6, EventType.MARIADB_GTID, mariadbGtid(2, 0)));
+        transactionAssembler.onEvent(event(7, EventType.QUERY, query("INSERT INTO m VALUES (1)")));
+        transactionAssembler.onEvent(event(8, EventType.QUERY, query("COMMIT")));
+        // DDL
+        transactionAssembler.onEvent(event(9, EventType.MARIADB_GTID,
+            mariadbGtid(3, MariadbGtidEventData.FL_STANDALONE | MariadbGtidEventData.FL_DDL)));
+        transactionAssembler.onEvent(event(10, EventType.QUERY, query("CREATE TABLE t2 (id INT)")));
+        assertEquals(listener.transactions.size(), 3);
+        assertEquals(listener.transactions.get(0).getGtid(), "0-0-1");
+        assertEquals(listener.timestamps.get(0), Arrays.asList(1L, 2L, 3L, 4L, 5L));
+        assertEquals(listener.transactions.get(1).getGtid(), "0-0-2");
+        assertEquals(listener.timestamps.get(1), Arrays.asList(6L, 7L, 8L));
+        assertEquals(listener.transactions.get(2).getGtid(), "0-0-3");
+        assertEquals(listener.timestamps.get(2), Arrays.asList(9L, 10L));
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        TransactionAssembler transactionAssembler = new TransactionAssembler();
+        transactionAssembler.setSpillThreshold(100);
+        CapturingTransactionListener listener = new CapturingTransactionListener();
+        transactionAssembler.registerTransactionListener(listener);
+        transactionAssembler.onEvent(event(1, EventType.QUERY, query("BEGIN")));
+        transactionAssembler.onEvent(event(2, EventType.TABLE_MAP, tableMap(7)));
+        for (int i = 0; i < 10; i++) {
+            transactionAssembler.onEvent(event(3 + i, EventType.EXT_WRITE_ROWS, writeRows(7)));
+        }
+        transactionAssembler.onEvent(event(13, EventType.XID, new XidEventData()));
+        assertEquals(listener.transactions.size(), 1);
+        Transaction transaction = listener.transactions.get(0);
+        assertTrue(listener.spilled.get(0));
+        assertNull(transaction.getGtid());
+        assertEquals(transaction.getNumberOfEvents(), 13);
+        assertEquals(transaction.getSize(), 13 * 50);
+        List<Long> expected = new ArrayList<Long>();
+        for (long i = 1; i <= 13; i++) {
+            expected.add(i);
+        }
+        assertEquals(listener.timestamps.get(0), expected);
+        assertEquals(listener.rows, 10);
+    }
+
+    @Test(expectedExceptions = StreamAbortedException.class)
+    public void testSpillFailure() throws Exception {
+        TransactionAssembler transactionAssembler = new TransactionAssembler();
+        transactionAssembler.setSpillThreshold(100);
+        transactionAssembler.setSpillDirectory(new File("target/non-existing-directory"));
+        transactionAssembler.onEvent(event(1, EventType.QUERY, query("BEGIN")));
+        transactionAssembler.onEvent(event(2, EventType.TABLE_MAP, tableMap(7)));
+        transactionAssembler.onEvent(event(3, EventType.EXT_WRITE_ROWS, writeRows(7)));
+    }
+
+    @Test
+    public void testTransactionPayloadSpillFailure() throws Exception {
+        TransactionAssembler transactionAssembler = new TransactionAssembler();
+        transactionAssembler.setSpillThreshold(100);
+        transactionAssembler.setSpillDirectory(new File("target/non-existing-directory"));
+        final List<Event> events = Arrays.asList(event(1, EventType.QUERY, query("BEGIN")),
+            event(2, EventType.TABLE_MAP, tableMap(7)), event(3, EventType.EXT_WRITE_ROWS, writeRows(7)),
+            event(4, EventType.XID, new XidEventData()));
+        final int[] closed = new int[1];
+        TransactionPayloadEventData transactionPayloadEventData = new TransactionPayloadEventData();
+        transactionPayloadEventData.setUncompressedEventStream(new Iterable<Event>() {
+
+            @Override
+            public Iterator<Event> iterator() {
+                final Iterator<Event> iterator = events.iterator();
+                return new TransactionPayloadEventData.EventIterator() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Event next() {
+                        return iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public void close() {
+                        closed[0]++;
+                    }
+                };
+            }
+        });
+        try {
+            transactionAssembler.onEvent(event(5, EventType.TRANSACTION_PAYLOAD, transactionPayloadEventData));
+            fail();
+        } catch (StreamAbortedException e) {
+            // expected
+        }
+        // iteration was abandoned midway (on EXT_WRITE_ROWS) and yet decompression resources got released
+        assertEquals(closed[0], 1);
+    }
+
+    @Test
+    public void testSpillLazyRows() throws Exception {
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setDeserializeRowsLazily(true);
+        BinaryLogFileReader reader = new BinaryLogFileReader(new GZIPInputStream(
+            new FileInputStream("src/test/resources/mysql-bin.sakila.gz")), eventDeserializer);
+        TransactionAssembler transactionAssembler = new TransactionAssembler();
+        transactionAssembler.setSpillThreshold(0);
+        CapturingTransactionListener listener = new CapturingTransactionListener();
+        transactionAssembler.registerTransactionListener(listener);
+        int rows = 0;
+        try {
+            for (Event event; (event = reader.readEvent()) != null; ) {
+                if (event.getData() instanceof WriteRowsEventData) {
+                    rows += ((WriteRowsEventData) event.getData()).getLazyRows().size();
+                }
+                transactionAssembler.onEvent(event);
+            }
+        } finally {
+            reader.close();
+        }
+        assertTrue(rows > 0);
+        assertEquals(listener.rows, rows);
+        assertTrue(listener.spilled.contains(true));
+    }
+
+    private static Event event(long timestamp, EventType eventType, EventData eventData) {
+        EventHeaderV4 eventHeader = new EventHeaderV4();
+        eventHeader.setTimestamp(timestamp);
+        eventHeader.setEventType(eventType);
+        eventHeader.setEventLength(50);
+        return new Event(eventHeader, eventData);
+    }
+
+    private static GtidEventData gtid(long transactionId) {
+        return new GtidEventData(MySqlGtid.fromString(UUID + ":" + transactionId), (byte) 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    private static MariadbGtidEventData mariadbGtid(long sequence, int flags) {
+        MariadbGtidEventData eventData = new MariadbGtidEventData();
+        eventData.setSequence(sequence);
+        eventData.setFlags(flags);
+        return eventData;
+    }
+
+    private static QueryEventData query(String sql) {
+        QueryEventData eventData = new QueryEventData();
+        eventData.setSql(sql);
+        return eventData;
+    }
+
+    private static TableMapEventData tableMap(long tableId) {
+        TableMapEventData eventData = new TableMapEventData();
+        eventData.setTableId(tableId);
+        eventData.setDatabase("db");
+        eventData.setTable("t");
+        return eventData;
+    }
+
+    private static WriteRowsEventData writeRows(long tableId) {
+        WriteRowsEventData eventData = new WriteRowsEventData();
+        eventData.setTableId(tableId);
+        eventData.setIncludedColumns(new BitSet());
+        eventData.setRows(new ArrayList<Serializable[]>(Arrays.<Serializable[]>asList(new Serializable[]{1})));
+        return eventData;
+    }
+
+    private static final class CapturingTransactionListener implements TransactionAssembler.TransactionListener {
+
+        private final List<Transaction> transactions = new ArrayList<Transaction>();
+        private final List<List<Long>> timestamps = new ArrayList<List<Long>>();
+        private final List<Boolean> spilled = new ArrayList<Boolean>();
+        private int rows;
+
+        @Override
+        public void onTransaction(Transaction transaction) {
+            transactions.add(transaction);
+            spilled.add(transaction.isSpilled());
+            // spilled events are available only for the duration of the call
+            List<Long> eventTimestamps = new ArrayList<Long>();
+            for (Event event : transaction.getEvents()) {
+                eventTimestamps.add(event.getHeader().getTimestamp());
+                if (event.getData() instanceof WriteRowsEventData) {
+                    rows += ((WriteRowsEventData) event.getData()).getRows().size();
+                }
+            }
+            timestamps.add(eventTimestamps);
+        }
+    }
+}
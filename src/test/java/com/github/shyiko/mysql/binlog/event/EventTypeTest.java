@@ -45,7 +45,8 @@ public class EventTypeTest {
     @Test
     public void testIsUpdate() throws Exception {
         List<EventType> writeEventTypes =
-            Arrays.asList(EventType.PRE_GA_UPDATE_ROWS, EventType.UPDATE_ROWS, EventType.EXT_UPDATE_ROWS);
+            Arrays.asList(EventType.PRE_GA_UPDATE_ROWS, EventType.UPDATE_ROWS, EventType.EXT_UPDATE_ROWS,
+                EventType.PARTIAL_UPDATE_ROWS_EVENT);
         for (EventType writeEventType : writeEventTypes) {
             assertTrue(EventType.isUpdate(writeEventType));
         }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class TableMapCacheTest {
+
+    @Test
+    public void testEviction() throws Exception {
+        TableMapCache cache = new TableMapCache(3);
+        TableMapEventData first = tableMapEvent(1), second = tableMapEvent(2), third = tableMapEvent(3);
+        cache.put(1L, first);
+        cache.put(2L, second);
+        cache.put(3L, third);
+        assertSame(cache.get(1L), first);
+        assertSame(cache.get(3L), third);
+        cache.put(4L, tableMapEvent(4)); // 2 is the only one which wasn't referenced
+        assertEquals(cache.size(), 3);
+        assertSame(cache.get(1L), first);
+        assertNull(cache.get(2L));
+        assertSame(cache.get(3L), third);
+        assertEquals(cache.getHitCount(), 4);
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testAgainstHashMap() throws Exception {
+        TableMapCache cache = new TableMapCache(1000);
+        Map<Long, TableMapEventData> expected = new HashMap<Long, TableMapEventData>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long tableId = random.nextInt(900);
+            if (random.nextInt(3) == 0) {
+                assertSame(cache.remove(tableId), expected.remove(tableId));
+            } else {
+                TableMapEventData tableMapEvent = tableMapEvent(tableId);
+                assertSame(cache.put(tableId, tableMapEvent), expected.put(tableId, tableMapEvent));
+            }
+            assertEquals(cache.size(), expected.size());
+        }
+        assertEquals(cache, expected);
+        for (long tableId = 0; tableId < 900; tableId++) {
+            assertSame(cache.get(tableId), expected.get(tableId));
+        }
+        assertEquals(cache.getEvictionCount(), 0);
+    }
+
+    @Test
+    public void testGrowth() throws Exception {
+        TableMapCache cache = new TableMapCache(100);
+        for (long tableId = 0; tableId < 200; tableId++) {
+            cache.put(tableId, tableMapEvent(tableId));
+            assertEquals(cache.get(tableId).getTableId(), tableId);
+        }
+        assertEquals(cache.size(), 100);
+        assertEquals(cache.getEvictionCount(), 100);
+        cache.clear();
+        assertEquals(cache.size(), 0);
+        assertNull(cache.get(199L));
+        cache.put(7L, tableMapEvent(7));
+        assertEquals(cache.get(7L).getTableId(), 7);
+    }
+
+    private static TableMapEventData tableMapEvent(long tableId) {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setTableId(tableId);
+        return tableMapEvent;
+    }
+
+}
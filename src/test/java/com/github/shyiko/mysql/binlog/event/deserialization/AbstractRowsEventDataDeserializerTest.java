@@ -15,13 +15,33 @@
  */
 package com.github.shyiko.mysql.binlog.event.deserialization;
 
+import com.github.shyiko.mysql.binlog.event.DeleteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
 import com.github.shyiko.mysql.binlog.event.deserialization.AbstractRowsEventDataDeserializer.UnixTime;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
@@ -45,6 +65,227 @@ public class AbstractRowsEventDataDeserializerTest {
             timestamp(1, 1, 1, 0, 0, 0, 0));
     }
 
+    @Test
+    public void testCharUsingColumnCharset() throws Exception {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setTableId(1);
+        // VARCHAR(20) utf8mb4, INT, BINARY(4), VARCHAR(20) latin1
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.VARCHAR.getCode(), (byte) ColumnType.LONG.getCode(),
+            (byte) ColumnType.STRING.getCode(), (byte) ColumnType.VARCHAR.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{80, 0, (ColumnType.STRING.getCode() << 8) | 4, 20});
+        TableMapEventMetadata.DefaultCharset defaultCharset = new TableMapEventMetadata.DefaultCharset();
+        defaultCharset.setDefaultCharsetCollation(255); // utf8mb4_0900_ai_ci
+        Map<Integer, Integer> charsetCollations = new HashMap<Integer, Integer>();
+        charsetCollations.put(1, 63); // binary
+        charsetCollations.put(2, 8); // latin1_swedish_ci
+        defaultCharset.setCharsetCollations(charsetCollations);
+        TableMapEventMetadata metadata = new TableMapEventMetadata();
+        metadata.setDefaultCharset(defaultCharset);
+        tableMapEvent.setEventMetadata(metadata);
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEvent);
+        WriteRowsEventDataDeserializer deserializer = new WriteRowsEventDataDeserializer(tableMapEventByTableId);
+        deserializer.setDeserializeCharUsingColumnCharset(true);
+
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        event.write(new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 4, 0x0F});
+        byte[] text = "\u017c\u00f3\u0142w".getBytes(Charset.forName("UTF-8"));
+        event.write(new byte[]{0, (byte) text.length});
+        event.write(text);
+        event.write(new byte[]{42, 0, 0, 0, 3, 1, 2, 3, 4, 'c', 'a', 'f', (byte) 0xE9});
+        event.write(new byte[]{0, 3, 'a', 'b', 'c', 7, 0, 0, 0, 0, 2, 'o', 'k'});
+        WriteRowsEventData eventData = deserializer.deserialize(new ByteArrayInputStream(event.toByteArray()));
+        assertEquals(eventData.getRows().size(), 2);
+        assertEquals(eventData.getRows().get(0),
+            new Serializable[]{"\u017c\u00f3\u0142w", 42, new byte[]{1, 2, 3}, "caf\u00e9"});
+        assertEquals(eventData.getRows().get(1), new Serializable[]{"abc", 7, new byte[0], "ok"});
+
+        deserializer.setDeserializeRowsLazily(true);
+        eventData = deserializer.deserialize(new ByteArrayInputStream(event.toByteArray()));
+        assertEquals(eventData.getLazyRows().get(0).get(0), "\u017c\u00f3\u0142w");
+        assertEquals(eventData.getLazyRows().get(0).get(3), "caf\u00e9");
+    }
+
+    @Test
+    public void testLazyRowsSerialization() throws Exception {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.LONG.getCode(), (byte) ColumnType.VARCHAR.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{0, 80});
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEvent);
+        byte[] header = {1, 0, 0, 0, 0, 0, 0, 0, 2, 0x03};
+        byte[] row = {0, 42, 0, 0, 0, 2, 'o', 'k'};
+
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        event.write(header);
+        event.write(row);
+        WriteRowsEventDataDeserializer writeRowsDeserializer =
+            new WriteRowsEventDataDeserializer(tableMapEventByTableId);
+        writeRowsDeserializer.setDeserializeRowsLazily(true);
+        WriteRowsEventData writeRowsEventData = roundTrip(
+            writeRowsDeserializer.deserialize(new ByteArrayInputStream(event.toByteArray())));
+        assertEquals(writeRowsEventData.getRows().get(0), new Serializable[]{42, "ok"});
+        DeleteRowsEventDataDeserializer deleteRowsDeserializer =
+            new DeleteRowsEventDataDeserializer(tableMapEventByTableId);
+        deleteRowsDeserializer.setDeserializeRowsLazily(true);
+        DeleteRowsEventData deleteRowsEventData = roundTrip(
+            deleteRowsDeserializer.deserialize(new ByteArrayInputStream(event.toByteArray())));
+        assertEquals(deleteRowsEventData.getRows().get(0), new Serializable[]{42, "ok"});
+
+        event = new ByteArrayOutputStream();
+        event.write(header);
+        event.write(0x03); // columns present in the after image
+        event.write(row);
+        event.write(new byte[]{0, 43, 0, 0, 0, 2, 'n', 'o'});
+        UpdateRowsEventDataDeserializer updateRowsDeserializer =
+            new UpdateRowsEventDataDeserializer(tableMapEventByTableId);
+        updateRowsDeserializer.setDeserializeRowsLazily(true);
+        UpdateRowsEventData updateRowsEventData = roundTrip(
+            updateRowsDeserializer.deserialize(new ByteArrayInputStream(event.toByteArray())));
+        assertEquals(updateRowsEventData.getRows().get(0).getKey(), new Serializable[]{42, "ok"});
+        assertEquals(updateRowsEventData.getRows().get(0).getValue(), new Serializable[]{43, "no"});
+    }
+
+    @Test
+    public void testRowRequiresLazyRows() throws Exception {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.LONG.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{0});
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEvent);
+        byte[] event = {1, 0, 0, 0, 0, 0, 0, 0, 1, 0x01, 0, 42, 0, 0, 0};
+        WriteRowsEventDataDeserializer deserializer = new WriteRowsEventDataDeserializer(tableMapEventByTableId);
+        deserializer.setDeserializeRowsLazily(true);
+        assertEquals(deserializer.deserialize(new ByteArrayInputStream(event)).row(0).getLong(0), 42);
+        deserializer.setDeserializeRowsLazily(false);
+        WriteRowsEventData eventData = deserializer.deserialize(new ByteArrayInputStream(event));
+        try {
+            eventData.row(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("setDeserializeRowsLazily"));
+        }
+    }
+
+    @Test
+    public void testTruncatedRowImage() throws Exception {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.LONG.getCode(),
+            (byte) ColumnType.VARCHAR.getCode(), (byte) ColumnType.BLOB.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{0, 80, 4});
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEvent);
+        byte[] header = {1, 0, 0, 0, 0, 0, 0, 0, 3, 0x07};
+        byte[][] rows = {
+            {0, 42, 0, 0, 0, 5, 'o', 'k'}, // VARCHAR shorter than its length prefix
+            {0x04, 42, 0, 0, 0}, // missing VARCHAR length prefix
+            {0, 42, 0, 0, 0, 0, 1, 0, 0}, // BLOB length prefix cut short
+            {0, 42, 0, 0, 0, 0, -1, -1, -1, -1}, // BLOB length overflowing int
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (byte[] row : rows) {
+                ByteArrayOutputStream event = new ByteArrayOutputStream();
+                event.write(header);
+                event.write(row);
+                WriteRowsEventDataDeserializer deserializer =
+                    new WriteRowsEventDataDeserializer(tableMapEventByTableId);
+                for (int mode = 0; mode < 3; mode++) {
+                    deserializer.setDeserializeRowsLazily(mode == 0);
+                    deserializer.setRowsDeserializationExecutor(mode == 1 ? executor : null, 1);
+                    String description = Arrays.toString(row) + " (" + (mode == 0 ? "lazy" : mode == 1 ? "parallel" :
+                        "visited") + ")";
+                    ByteArrayInputStream inputStream = new ByteArrayInputStream(event.toByteArray());
+                    try {
+                        if (mode == 2) {
+                            deserializer.visitRows(inputStream, new NoOpRowsVisitor());
+                        } else {
+                            deserializer.deserialize(inputStream);
+                        }
+                        fail(description);
+                    } catch (EOFException e) {
+                        assertEquals(e.getMessage(), "Row image exceeds the end of the event");
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testVisitRows() throws Exception {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.LONG.getCode(), (byte) ColumnType.VARCHAR.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{0, 80});
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEvent);
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        event.write(new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 2, 0x03, 0x03});
+        event.write(new byte[]{0, 42, 0, 0, 0, 2, 'o', 'k'});
+        event.write(new byte[]{0x02, 43, 0, 0, 0}); // NULL in the second column
+        event.write(new byte[]{0, 44, 0, 0, 0, 0});
+        event.write(new byte[]{0, 45, 0, 0, 0, 2, 'n', 'o'});
+        final StringBuilder trace = new StringBuilder();
+        UpdateRowsEventData eventData = new UpdateRowsEventDataDeserializer(tableMapEventByTableId).visitRows(
+            new ByteArrayInputStream(event.toByteArray()), new RowsVisitor() {
+
+                @Override
+                public void onRowImage(int image) {
+                    trace.append(image == 0 ? " before:" : " after:");
+                }
+
+                @Override
+                public void onNull(int col) {
+                    trace.append(' ').append(col).append("=null");
+                }
+
+                @Override
+                public void onInt(int col, int value) {
+                    trace.append(' ').append(col).append('=').append(value);
+                }
+
+                @Override
+                public void onLong(int col, long value) {
+                    throw new AssertionError();
+                }
+
+                @Override
+                public void onDouble(int col, double value) {
+                    throw new AssertionError();
+                }
+
+                @Override
+                public void onBytes(int col, byte[] buffer, int offset, int length) {
+                    trace.append(' ').append(col).append('=').append(new String(buffer, offset, length));
+                }
+
+                @Override
+                public void onValue(int col, Serializable value) {
+                    throw new AssertionError();
+                }
+            });
+        assertEquals(trace.toString(),
+            " before: 0=42 1=ok after: 0=43 1=null before: 0=44 1= after: 0=45 1=no");
+        assertEquals(eventData.getTableId(), 1);
+        assertNull(eventData.getRows());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T object) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream outputStream = new ObjectOutputStream(buffer);
+        outputStream.writeObject(object);
+        outputStream.close();
+        return (T) new ObjectInputStream(new java.io.ByteArrayInputStream(buffer.toByteArray())).readObject();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCharUsingColumnCharsetIsExclusiveOfCharAndBinaryAsByteArray() throws Exception {
+        new EventDeserializer().setCompatibilityMode(EventDeserializer.CompatibilityMode.CHAR_USING_COLUMN_CHARSET,
+            EventDeserializer.CompatibilityMode.CHAR_AND_BINARY_AS_BYTE_ARRAY);
+    }
+
     private void assetTimeEquals(long actual, long expected) {
         assertEquals(actual, expected, actual + " != " + expected +
             ", discrepancy: " + (actual - expected));
@@ -64,4 +305,35 @@ public class AbstractRowsEventDataDeserializerTest {
         return c.getTimeInMillis();
     }
 
+    private static final class NoOpRowsVisitor implements RowsVisitor {
+
+        @Override
+        public void onRowImage(int image) {
+        }
+
+        @Override
+        public void onNull(int col) {
+        }
+
+        @Override
+        public void onInt(int col, int value) {
+        }
+
+        @Override
+        public void onLong(int col, long value) {
+        }
+
+        @Override
+        public void onDouble(int col, double value) {
+        }
+
+        @Override
+        public void onBytes(int col, byte[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void onValue(int col, Serializable value) {
+        }
+    }
+
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.TableMapEventMetadata;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class ColumnProjectionTest {
+
+    // EXT_WRITE_ROWS (table id 1, 3 columns, all included), rows: (1, 'text', 3), (4, NULL, 6)
+    private static final byte[] WRITE_ROWS = {
+        1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 3, 0x07,
+        0, 1, 0, 0, 0, 4, 't', 'e', 'x', 't', 3, 0, 0, 0,
+        0x02, 4, 0, 0, 0, 6, 0, 0, 0
+    };
+
+    // EXT_UPDATE_ROWS (table id 1, 3 columns, all included), rows: (1, 'a', 3) -> (1, 'bc', 4)
+    private static final byte[] UPDATE_ROWS = {
+        1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 3, 0x07, 0x07,
+        0, 1, 0, 0, 0, 1, 'a', 3, 0, 0, 0,
+        0, 1, 0, 0, 0, 2, 'b', 'c', 4, 0, 0, 0
+    };
+
+    @Test
+    public void testProjectionByIndex() throws Exception {
+        ColumnProjection columnProjection = new ColumnProjection();
+        columnProjection.project("db", "t", 0, 2);
+        WriteRowsEventDataDeserializer deserializer = new WriteRowsEventDataDeserializer(tableMap(null))
+            .setMayContainExtraInformation(true);
+        deserializer.setColumnProjection(columnProjection);
+        WriteRowsEventData eventData = deserializer.deserialize(new ByteArrayInputStream(WRITE_ROWS));
+        assertEquals(eventData.getRows().size(), 2);
+        assertEquals(eventData.getRows().get(0), new Serializable[]{1, null, 3});
+        assertEquals(eventData.getRows().get(1), new Serializable[]{4, null, 6});
+    }
+
+    @Test
+    public void testProjectionByName() throws Exception {
+        ColumnProjection columnProjection = new ColumnProjection();
+        columnProjection.project("db", "t", "NAME");
+        UpdateRowsEventDataDeserializer deserializer =
+            new UpdateRowsEventDataDeserializer(tableMap(Arrays.asList("id", "name", "version")))
+                .setMayContainExtraInformation(true);
+        deserializer.setColumnProjection(columnProjection);
+        UpdateRowsEventData eventData = deserializer.deserialize(new ByteArrayInputStream(UPDATE_ROWS));
+        assertEquals(eventData.getRows().size(), 1);
+        assertEquals(eventData.getRows().get(0).getKey(), new Serializable[]{null, "a", null});
+        assertEquals(eventData.getRows().get(0).getValue(), new Serializable[]{null, "bc", null});
+    }
+
+    @Test
+    public void testProjectionByNameWithoutMetadata() throws Exception {
+        ColumnProjection columnProjection = new ColumnProjection();
+        columnProjection.project("db", "t", "name");
+        // binlog_row_metadata=MINIMAL
+        assertNull(columnProjection.getProjectedColumns(tableMap(null).get(1L)));
+        BitSet projectedColumns = columnProjection.getProjectedColumns(
+            tableMap(Arrays.asList("id", "name", "version")).get(1L));
+        assertEquals(projectedColumns.toString(), "{1}");
+    }
+
+    private static Map<Long, TableMapEventData> tableMap(List<String> columnNames) {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setTableId(1);
+        tableMapEvent.setDatabase("db");
+        tableMapEvent.setTable("t");
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.LONG.getCode(),
+            (byte) ColumnType.VARCHAR.getCode(), (byte) ColumnType.LONG.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{0, 20, 0});
+        if (columnNames != null) {
+            TableMapEventMetadata eventMetadata = new TableMapEventMetadata();
+            eventMetadata.setColumnNames(columnNames);
+            tableMapEvent.setEventMetadata(eventMetadata);
+        }
+        Map<Long, TableMapEventData> result = new HashMap<Long, TableMapEventData>();
+        result.put(1L, tableMapEvent);
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.Event;
+import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.event.XidEventData;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import org.testng.annotations.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class EventFilterTest {
+
+    @Test
+    public void testEventFilter() throws Exception {
+        ByteArrayOutputStream binlog = new ByteArrayOutputStream();
+        // db.t (INT, VARCHAR(20)), table id 1
+        writeEvent(binlog, EventType.TABLE_MAP,
+            new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 2, 'd', 'b', 0, 1, 't', 0, 2, 3, 15, 2, 20, 0, 2});
+        // other.t (INT, VARCHAR(20)), table id 2
+        writeEvent(binlog, EventType.TABLE_MAP,
+            new byte[]{2, 0, 0, 0, 0, 0, 0, 0, 5, 'o', 't', 'h', 'e', 'r', 0, 1, 't', 0, 2, 3, 15, 2, 20, 0, 2});
+        writeEvent(binlog, EventType.EXT_WRITE_ROWS,
+            new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 0x03, 0, 42, 0, 0, 0, 2, 'o', 'k'});
+        // rows are malformed, meaning that event fails to deserialize unless it's skipped
+        writeEvent(binlog, EventType.EXT_WRITE_ROWS,
+            new byte[]{2, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 0x03, 0, 42, 0, 0, 0, 100, 'o', 'k'});
+        writeEvent(binlog, EventType.XID, new byte[]{7, 0, 0, 0, 0, 0, 0, 0});
+        EventFilter eventFilter = new EventFilter();
+        eventFilter.includeTable("db|test", "t");
+        eventFilter.setExcludedEventTypes(EventType.XID);
+
+        assertFiltered(eventFilter, new ByteArrayInputStream(binlog.toByteArray()));
+        assertFiltered(eventFilter, new ByteArrayInputStream(new BufferedInputStream(
+            new java.io.ByteArrayInputStream(binlog.toByteArray()))));
+    }
+
+    private void assertFiltered(EventFilter eventFilter, ByteArrayInputStream inputStream) throws Exception {
+        EventDeserializer eventDeserializer = new EventDeserializer();
+        eventDeserializer.setEventFilter(eventFilter);
+        Event event = eventDeserializer.nextEvent(inputStream);
+        assertEquals(((TableMapEventData) event.getData()).getTable(), "t");
+        event = eventDeserializer.nextEvent(inputStream);
+        assertEquals(event.getHeader().getEventType(), EventType.TABLE_MAP);
+        assertNull(event.getData());
+        event = eventDeserializer.nextEvent(inputStream);
+        assertEquals(((WriteRowsEventData) event.getData()).getRows().get(0), new Serializable[]{42, "ok"});
+        event = eventDeserializer.nextEvent(inputStream);
+        assertEquals(event.getHeader().getEventType(), EventType.EXT_WRITE_ROWS);
+        assertNull(event.getData());
+        event = eventDeserializer.nextEvent(inputStream);
+        assertEquals(event.getHeader().getEventType(), EventType.XID);
+        // hidden from the listeners but still available to the client
+        assertNull(((EventDeserializer.EventDataWrapper) event.getData()).getExternal());
+        assertEquals(((XidEventData) EventDeserializer.EventDataWrapper.internal(event.getData())).getXid(), 7);
+        assertNull(eventDeserializer.nextEvent(inputStream));
+    }
+
+    @Test
+    public void testIsIncluded() throws Exception {
+        EventFilter eventFilter = new EventFilter();
+        assertTrue(eventFilter.isIncluded("db", "t"));
+        eventFilter.excludeTable("db", "tmp_.*");
+        assertTrue(eventFilter.isIncluded("db", "t"));
+        assertEquals(eventFilter.isIncluded("db", "tmp_1"), false);
+        eventFilter.setIncludedEventTypes(EventType.TABLE_MAP, EventType.EXT_WRITE_ROWS);
+        assertTrue(eventFilter.isIncluded(EventType.EXT_WRITE_ROWS));
+        assertEquals(eventFilter.isIncluded(EventType.QUERY), false);
+    }
+
+    private static void writeEvent(ByteArrayOutputStream out, EventType eventType, byte[] body) {
+        writeInt(out, 0, 4); // timestamp
+        out.write(eventTypeCode(eventType));
+        writeInt(out, 1, 4); // server id
+        writeInt(out, 19 + body.length, 4);
+        writeInt(out, 0, 4); // next position
+        writeInt(out, 0, 2); // flags
+        out.write(body, 0, body.length);
+    }
+
+    private static int eventTypeCode(EventType eventType) {
+        for (int code = 0; code < 256; code++) {
+            if (EventType.byEventNumber(code) == eventType) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException(eventType.toString());
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value, int length) {
+        for (int i = 0; i < length; i++) {
+            out.write(value >>> (8 * i));
+        }
+    }
+
+}
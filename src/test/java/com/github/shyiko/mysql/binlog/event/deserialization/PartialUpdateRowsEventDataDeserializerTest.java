@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonBinary;
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonDiff;
+import com.github.shyiko.mysql.binlog.event.deserialization.json.JsonDiffVector;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PartialUpdateRowsEventDataDeserializerTest {
+
+    // {"a": 1}
+    private static final byte[] DOCUMENT = {0x00, 1, 0, 12, 0, 11, 0, 1, 0, 0x05, 1, 0, 'a'};
+
+    @Test
+    public void testDeserialize() throws Exception {
+        TableMapEventData tableMapEvent = new TableMapEventData();
+        tableMapEvent.setTableId(1);
+        tableMapEvent.setColumnTypes(new byte[]{(byte) ColumnType.LONG.getCode(), (byte) ColumnType.JSON.getCode()});
+        tableMapEvent.setColumnMetadata(new int[]{0, 4});
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEvent);
+        PartialUpdateRowsEventDataDeserializer deserializer =
+            new PartialUpdateRowsEventDataDeserializer(tableMapEventByTableId);
+
+        ByteArrayOutputStream event = new ByteArrayOutputStream();
+        event.write(new byte[]{1, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 0x03, 0x03});
+        // before image
+        event.write(new byte[]{0, 7, 0, 0, 0});
+        writeInt(event, DOCUMENT.length);
+        event.write(DOCUMENT);
+        // after image (partial)
+        event.write(new byte[]{1, 0x01, 0, 8, 0, 0, 0});
+        ByteArrayOutputStream diffs = new ByteArrayOutputStream();
+        writeDiff(diffs, 0, "$.a", new byte[]{0x05, 2, 0});
+        writeDiff(diffs, 1, "$.b", new byte[]{0x0C, 1, 'x'});
+        writeDiff(diffs, 2, "$.c", null);
+        writeInt(event, diffs.size());
+        diffs.writeTo(event);
+        // before image (JSON column is NULL)
+        event.write(new byte[]{0x02, 8, 0, 0, 0});
+        // after image (full)
+        event.write(new byte[]{0, 0, 9, 0, 0, 0});
+        writeInt(event, DOCUMENT.length);
+        event.write(DOCUMENT);
+
+        UpdateRowsEventData eventData = deserializer.deserialize(new ByteArrayInputStream(event.toByteArray()));
+        List<Map.Entry<Serializable[], Serializable[]>> rows = eventData.getRows();
+        assertEquals(rows.size(), 2);
+        assertEquals(rows.get(0).getKey()[0], 7);
+        assertEquals((byte[]) rows.get(0).getKey()[1], DOCUMENT);
+        assertEquals(rows.get(0).getValue()[0], 8);
+        JsonDiffVector diffVector = (JsonDiffVector) rows.get(0).getValue()[1];
+        assertEquals(diffVector.getDiffs().size(), 3);
+        JsonDiff diff = diffVector.getDiffs().get(1);
+        assertEquals(diff.getOperation(), JsonDiff.Operation.INSERT);
+        assertEquals(diff.getPath(), "$.b");
+        assertEquals(JsonBinary.parseAsString(diff.getValue()), "\"x\"");
+        assertNull(diffVector.getDiffs().get(2).getValue());
+        assertNull(rows.get(1).getKey()[1]);
+        assertEquals(rows.get(1).getValue()[0], 9);
+        assertEquals((byte[]) rows.get(1).getValue()[1], DOCUMENT);
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        ByteArrayOutputStream diffs = new ByteArrayOutputStream();
+        writeDiff(diffs, 0, "$.a", new byte[]{0x05, 2, 0});
+        writeDiff(diffs, 1, "$.b", new byte[]{0x0C, 1, 'x'});
+        JsonDiffVector diffVector = new PartialUpdateRowsEventDataDeserializer(null)
+            .deserializeJsonDiffVector(4, new ByteArrayInputStream(withLength(diffs.toByteArray())));
+        assertEquals(diffVector.applyAsString(DOCUMENT), "{\"a\":2,\"b\":\"x\"}");
+
+        diffs.reset();
+        writeDiff(diffs, 0, "$.missing", new byte[]{0x05, 2, 0});
+        diffVector = new PartialUpdateRowsEventDataDeserializer(null)
+            .deserializeJsonDiffVector(4, new ByteArrayInputStream(withLength(diffs.toByteArray())));
+        try {
+            diffVector.applyAsString(DOCUMENT);
+            assertTrue(false);
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Cannot apply"));
+        }
+    }
+
+    private static void writeDiff(ByteArrayOutputStream out, int operation, String path, byte[] value)
+            throws IOException {
+        out.write(operation);
+        out.write(path.length());
+        out.write(path.getBytes("UTF-8"));
+        if (value != null) {
+            out.write(value.length);
+            out.write(value);
+        }
+    }
+
+    private static byte[] withLength(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeInt(out, bytes.length);
+        out.write(bytes);
+        return out.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        for (int i = 0; i < 4; i++) {
+            out.write(value >>> (8 * i));
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.event.deserialization;
+
+import com.github.shyiko.mysql.binlog.event.TableMapEventData;
+import com.github.shyiko.mysql.binlog.event.WriteRowsEventData;
+import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class TableMapEventDataDeserializerTest {
+
+    // db.t (INT, VARCHAR(20) latin1)
+    private static final byte[] TABLE_MAP = {1, 0, 0, 0, 0, 0, 0, 0, 2, 'd', 'b', 0, 1, 't', 0, 2, 3, 15, 2, 20, 0, 2};
+
+    @Test
+    public void testInterning() throws Exception {
+        TableMapEventDataDeserializer deserializer = new TableMapEventDataDeserializer();
+        TableMapEventData first = deserializer.deserialize(new ByteArrayInputStream(TABLE_MAP));
+        assertNotSame(deserializer.deserialize(new ByteArrayInputStream(TABLE_MAP)), first);
+
+        deserializer.setInterning(true);
+        first = deserializer.deserialize(new ByteArrayInputStream(TABLE_MAP));
+        assertEquals(first.getDatabase(), "db");
+        assertEquals(first.getTable(), "t");
+        assertEquals(first.getColumnMetadata(), new int[]{0, 20});
+        assertSame(deserializer.deserialize(new ByteArrayInputStream(TABLE_MAP.clone())), first);
+        byte[] otherTableId = TABLE_MAP.clone();
+        otherTableId[0] = 2;
+        TableMapEventData other = deserializer.deserialize(new ByteArrayInputStream(otherTableId));
+        assertNotSame(other, first);
+        assertEquals(other.getTableId(), 2);
+        try {
+            first.setTable("x");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRowsOfInternedTableMap() throws Exception {
+        TableMapEventDataDeserializer tableMapEventDataDeserializer = new TableMapEventDataDeserializer();
+        tableMapEventDataDeserializer.setInterning(true);
+        Map<Long, TableMapEventData> tableMapEventByTableId = new HashMap<Long, TableMapEventData>();
+        tableMapEventByTableId.put(1L, tableMapEventDataDeserializer.deserialize(new ByteArrayInputStream(TABLE_MAP)));
+        WriteRowsEventDataDeserializer deserializer = new WriteRowsEventDataDeserializer(tableMapEventByTableId);
+        byte[] event = {1, 0, 0, 0, 0, 0, 0, 0, 2, 0x03, 0, 42, 0, 0, 0, 2, 'o', 'k', 0x02, 7, 0, 0, 0};
+        WriteRowsEventData eventData = deserializer.deserialize(new ByteArrayInputStream(event));
+        assertEquals(eventData.getRows().get(0), new Serializable[]{42, "ok"});
+        assertEquals(eventData.getRows().get(1), new Serializable[]{7, null});
+    }
+
+}
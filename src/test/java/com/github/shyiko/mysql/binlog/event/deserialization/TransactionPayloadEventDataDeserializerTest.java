@@ -15,15 +15,23 @@
  */
 package com.github.shyiko.mysql.binlog.event.deserialization;
 
+import com.github.shyiko.mysql.binlog.event.Event;
 import com.github.shyiko.mysql.binlog.event.EventType;
 import com.github.shyiko.mysql.binlog.event.TransactionPayloadEventData;
+import com.github.shyiko.mysql.binlog.event.UpdateRowsEventData;
 import com.github.shyiko.mysql.binlog.event.XAPrepareEventData;
 import com.github.shyiko.mysql.binlog.io.ByteArrayInputStream;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
 /**
  * @author <a href="mailto:somesh.malviya@booking.com">Somesh Malviya</a>
@@ -97,4 +105,111 @@ public class TransactionPayloadEventDataDeserializerTest {
           assertEquals(EventType.XID, transactionPayloadEventData.getUncompressedEvents().get(3).getHeader().getEventType());
           assertEquals(UNCOMPRESSED_UPDATE_EVENT, transactionPayloadEventData.getUncompressedEvents().get(2).getData().toString());
     }
+
+    @Test
+    public void deserializeStreaming() throws IOException {
+        TransactionPayloadEventDataDeserializer deserializer = new TransactionPayloadEventDataDeserializer();
+        deserializer.setStreaming(true);
+        TransactionPayloadEventData transactionPayloadEventData =
+            deserializer.deserialize(new ByteArrayInputStream(DATA));
+        assertNull(transactionPayloadEventData.getUncompressedEvents());
+        for (int i = 0; i < 2; i++) {
+            List<Event> events = new ArrayList<Event>();
+            for (Event event : transactionPayloadEventData) {
+                events.add(event);
+            }
+            assertEquals(NUMBER_OF_UNCOMPRESSED_EVENTS, events.size());
+            assertEquals(EventType.QUERY, events.get(0).getHeader().getEventType());
+            assertEquals(EventType.TABLE_MAP, events.get(1).getHeader().getEventType());
+            assertEquals(EventType.EXT_UPDATE_ROWS, events.get(2).getHeader().getEventType());
+            assertEquals(EventType.XID, events.get(3).getHeader().getEventType());
+            assertEquals(UNCOMPRESSED_UPDATE_EVENT, events.get(2).getData().toString());
+        }
+    }
+
+    @Test
+    public void deserializeStreamingAbandoned() throws IOException {
+        TransactionPayloadEventDataDeserializer deserializer = new TransactionPayloadEventDataDeserializer();
+        deserializer.setStreaming(true);
+        TransactionPayloadEventData transactionPayloadEventData =
+            deserializer.deserialize(new ByteArrayInputStream(DATA));
+        TransactionPayloadEventData.EventIterator iterator = transactionPayloadEventData.iterator();
+        assertEquals(EventType.QUERY, iterator.next().getHeader().getEventType());
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        iterator.close();
+        // closing one iterator doesn't affect the others
+        iterator = transactionPayloadEventData.iterator();
+        assertEquals(EventType.QUERY, iterator.next().getHeader().getEventType());
+        assertEquals(EventType.TABLE_MAP, iterator.next().getHeader().getEventType());
+        iterator.close();
+    }
+
+    @Test
+    public void deserializeUsingParentConfiguration() throws IOException {
+        for (boolean streaming : new boolean[]{false, true}) {
+            EventDeserializer eventDeserializer = new EventDeserializer();
+            eventDeserializer.setDeserializeRowsLazily(true);
+            eventDeserializer.setStreamTransactionPayloads(streaming);
+            TransactionPayloadEventData transactionPayloadEventData = (TransactionPayloadEventData)
+                eventDeserializer.getEventDataDeserializer(EventType.TRANSACTION_PAYLOAD)
+                    .deserialize(new ByteArrayInputStream(DATA));
+            List<Event> events = new ArrayList<Event>();
+            for (Event event : transactionPayloadEventData) {
+                events.add(event);
+            }
+            UpdateRowsEventData updateRowsEventData = events.get(2).getData();
+            assertNotNull(updateRowsEventData.getLazyRows());
+            assertEquals(UNCOMPRESSED_UPDATE_EVENT, updateRowsEventData.toString());
+        }
+    }
+
+    @Test
+    public void deserializeFiltered() throws IOException {
+        for (boolean streaming : new boolean[]{false, true}) {
+            EventDeserializer eventDeserializer = new EventDeserializer();
+            EventFilter eventFilter = new EventFilter();
+            eventFilter.excludeTable("demo", "movies");
+            eventFilter.setExcludedEventTypes(EventType.QUERY);
+            eventDeserializer.setEventFilter(eventFilter);
+            eventDeserializer.setStreamTransactionPayloads(streaming);
+            TransactionPayloadEventData transactionPayloadEventData = (TransactionPayloadEventData)
+                eventDeserializer.getEventDataDeserializer(EventType.TRANSACTION_PAYLOAD)
+                    .deserialize(new ByteArrayInputStream(DATA));
+            List<Event> events = new ArrayList<Event>();
+            for (Event event : transactionPayloadEventData) {
+                events.add(event);
+            }
+            assertEquals(NUMBER_OF_UNCOMPRESSED_EVENTS, events.size());
+            // QUERY (hidden from the listeners but still available to the client)
+            assertNull(((EventDeserializer.EventDataWrapper) events.get(0).getData()).getExternal());
+            assertNull(events.get(1).getData()); // TABLE_MAP of excluded table
+            assertNull(events.get(2).getData()); // EXT_UPDATE_ROWS of excluded table
+            assertNotNull(events.get(3).getData()); // XID
+        }
+    }
+
+    @Test
+    public void deserializeProjected() throws IOException {
+        for (boolean streaming : new boolean[]{false, true}) {
+            EventDeserializer eventDeserializer = new EventDeserializer();
+            ColumnProjection columnProjection = new ColumnProjection();
+            columnProjection.project("demo", "movies", 0, 2);
+            eventDeserializer.setColumnProjection(columnProjection);
+            eventDeserializer.setStreamTransactionPayloads(streaming);
+            TransactionPayloadEventData transactionPayloadEventData = (TransactionPayloadEventData)
+                eventDeserializer.getEventDataDeserializer(EventType.TRANSACTION_PAYLOAD)
+                    .deserialize(new ByteArrayInputStream(DATA));
+            List<Event> events = new ArrayList<Event>();
+            for (Event event : transactionPayloadEventData) {
+                events.add(event);
+            }
+            UpdateRowsEventData updateRowsEventData = events.get(2).getData();
+            Serializable[] after = updateRowsEventData.getRows().get(0).getValue();
+            assertEquals(after[0], 1);
+            assertNull(after[1]);
+            assertEquals(after[2], 1968);
+            assertNull(after[4]);
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package com.github.shyiko.mysql.binlog.event.deserialization.json;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class JsonPathTest {
+
+    @Test
+    public void testParseAsString() throws Exception {
+        Map<String, Object> order = new LinkedHashMap<String, Object>();
+        order.put("status", "paid");
+        order.put("id", 70000);
+        Map<String, Object> doc = new LinkedHashMap<String, Object>();
+        doc.put("tags", Arrays.asList("x", null, true, Collections.singletonMap("k", "v")));
+        doc.put("order", order);
+        doc.put("a", 1);
+        doc.put("ünï", "u");
+        byte[] bytes = encode(doc);
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$")), JsonBinary.parseAsString(bytes));
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.order.status")), "\"paid\"");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.order.id")), "70000");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.a")), "1");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.tags[0]")), "\"x\"");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.tags[1]")), "null");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.tags[2]")), "true");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.tags[3].k")), "\"v\"");
+        assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.\"ünï\"")), "\"u\"");
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$.tags[4]")));
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$.missing")));
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$.a.b")));
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$.tags.x")));
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$[0]")));
+    }
+
+    @Test
+    public void testBinarySearch() throws Exception {
+        Map<String, Object> doc = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 300; i++) {
+            doc.put("k" + i, i);
+        }
+        byte[] bytes = encode(doc);
+        for (int i = 0; i < 300; i++) {
+            assertEquals(JsonBinary.parseAsString(bytes, JsonPath.compile("$.k" + i)), String.valueOf(i));
+        }
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$.k300")));
+        assertNull(JsonBinary.parseAsString(bytes, JsonPath.compile("$.k")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompileWithoutRoot() {
+        JsonPath.compile("order.status");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompileWildcard() {
+        JsonPath.compile("$.order[*]");
+    }
+
+    /**
+     * Encodes value the way MySQL does (small objects/arrays only).
+     */
+    private static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(typeOf(value));
+        out.write(encodeValue(value));
+        return out.toByteArray();
+    }
+
+    private static int typeOf(Object value) {
+        if (value instanceof Map) {
+            return 0x00;
+        }
+        if (value instanceof List) {
+            return 0x02;
+        }
+        if (value instanceof Integer) {
+            return (Integer) value == (short) (int) (Integer) value ? 0x05 : 0x07;
+        }
+        if (value instanceof String) {
+            return 0x0c;
+        }
+        return 0x04; // null/boolean
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] encodeValue(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (value instanceof Map || value instanceof List) {
+            List<byte[]> keys = new ArrayList<byte[]>();
+            List<Object> values = new ArrayList<Object>();
+            if (value instanceof Map) {
+                List<Map.Entry<String, Object>> entries =
+                    new ArrayList<Map.Entry<String, Object>>(((Map<String, Object>) value).entrySet());
+                Collections.sort(entries, new Comparator<Map.Entry<String, Object>>() {
+                    @Override
+                    public int compare(Map.Entry<String, Object> o1, Map.Entry<String, Object> o2) {
+                        byte[] k1 = o1.getKey().getBytes(StandardCharsets.UTF_8);
+                        byte[] k2 = o2.getKey().getBytes(StandardCharsets.UTF_8);
+                        if (k1.length != k2.length) {
+                            return k1.length - k2.length;
+                        }
+                        for (int i = 0; i < k1.length; i++) {
+                            if (k1[i] != k2[i]) {
+                                return (k1[i] & 0xFF) - (k2[i] & 0xFF);
+                            }
+                        }
+                        return 0;
+                    }
+                });
+                for (Map.Entry<String, Object> entry : entries) {
+                    keys.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                    values.add(entry.getValue());
+                }
+            } else {
+                values.addAll((List<Object>) value);
+            }
+            int n = values.size();
+            int offset = 4 + keys.size() * 4 + n * 3;
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            for (byte[] key : keys) {
+                writeUInt16(header, offset);
+                writeUInt16(header, key.length);
+                body.write(key);
+                offset += key.length;
+            }
+            for (Object v : values) {
+                int type = typeOf(v);
+                header.write(type);
+                if (type == 0x04 || type == 0x05) {
+                    header.write(encodeValue(v));
+                } else {
+                    writeUInt16(header, offset);
+                    byte[] encoded = encodeValue(v);
+                    body.write(encoded);
+                    offset += encoded.length;
+                }
+            }
+            writeUInt16(out, n);
+            writeUInt16(out, offset);
+            out.write(header.toByteArray());
+            out.write(body.toByteArray());
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.write(bytes.length); // < 128
+            out.write(bytes);
+        } else if (value instanceof Integer) {
+            int v = (Integer) value;
+            writeUInt16(out, v & 0xFFFF);
+            if (typeOf(value) == 0x07) {
+                writeUInt16(out, v >>> 16);
+            }
+        } else {
+            writeUInt16(out, value == null ? 0 : (Boolean) value ? 1 : 2);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeUInt16(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+}
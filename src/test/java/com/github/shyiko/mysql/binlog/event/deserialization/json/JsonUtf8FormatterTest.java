@@ -0,0 +1,95 @@
+package com.github.shyiko.mysql.binlog.event.deserialization.json;
+
+import com.github.shyiko.mysql.binlog.event.deserialization.ColumnType;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+
+public class JsonUtf8FormatterTest {
+
+    @Test
+    public void testSameOutputAsJsonStringFormatter() {
+        JsonStringFormatter expected = new JsonStringFormatter();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonUtf8Formatter actual = new JsonUtf8Formatter(outputStream, 16);
+        for (JsonFormatter formatter : new JsonFormatter[] {expected, actual}) {
+            formatter.beginObject(3);
+            formatter.name("kü\"");
+            formatter.beginArray(9);
+            formatter.value("tab\t, quote\", emoji 😀, \u0001 and €");
+            formatter.nextEntry();
+            formatter.value(Long.MIN_VALUE);
+            formatter.nextEntry();
+            formatter.value(-42);
+            formatter.nextEntry();
+            formatter.value(0L);
+            formatter.nextEntry();
+            formatter.value(1.5e300);
+            formatter.nextEntry();
+            formatter.value(new BigDecimal("3.14"));
+            formatter.nextEntry();
+            formatter.value(false);
+            formatter.nextEntry();
+            formatter.valueNull();
+            formatter.nextEntry();
+            formatter.valueDatetime(2020, 2, 29, 23, 59, 1, 120000);
+            formatter.endArray();
+            formatter.nextEntry();
+            formatter.name("opaque");
+            formatter.valueOpaque(ColumnType.BLOB, new byte[] {1, 2, 3});
+            formatter.nextEntry();
+            formatter.name("time");
+            formatter.valueTime(-5, 4, 3, 0);
+            formatter.endObject();
+        }
+        actual.flush();
+        assertEquals(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), expected.getString());
+    }
+
+    @Test
+    public void testSameTemporalOutputAsJsonStringFormatter() {
+        JsonStringFormatter expected = new JsonStringFormatter();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonUtf8Formatter actual = new JsonUtf8Formatter(outputStream, 16);
+        int[] microSeconds = {0, 1, 10, 999, 5000, 70000, 100000, 999999};
+        for (JsonFormatter formatter : new JsonFormatter[] {expected, actual}) {
+            formatter.beginArray(microSeconds.length * 5);
+            for (int i = 0; i < microSeconds.length; i++) {
+                formatter.valueDate(i == 0 ? -1 : 7 * (int) Math.pow(10, i % 4), i + 1, i + 20);
+                formatter.nextEntry();
+                formatter.valueDatetime(1970 + i, 12, 1, i, 10 + i, 59, microSeconds[i]);
+                formatter.nextEntry();
+                formatter.valueTime(i % 2 == 0 ? -i : 23, 0, i, microSeconds[i]);
+                formatter.nextEntry();
+                formatter.valueTimestamp(1600000000L + i, i == 0 ? 100000 : microSeconds[i]);
+                formatter.nextEntry();
+                formatter.valueYear(1901 + i);
+                formatter.nextEntry();
+            }
+            formatter.valueNull();
+            formatter.endArray();
+        }
+        actual.flush();
+        assertEquals(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), expected.getString());
+    }
+
+    @Test
+    public void testJsonBinary() throws Exception {
+        byte[] value = "a\"b\nü".getBytes(StandardCharsets.UTF_8);
+        byte[] document = new byte[1 + 12 + 1 + value.length];
+        byte[] header = {0x00, 1, 0, (byte) (document.length - 1), 0, 11, 0, 1, 0, 0x0c, 12, 0, 'k', (byte) value.length};
+        System.arraycopy(header, 0, document, 0, header.length);
+        System.arraycopy(value, 0, document, header.length, value.length);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(64);
+        JsonBinary.parse(document, new JsonUtf8Formatter(byteBuffer));
+        byte[] actual = Arrays.copyOf(byteBuffer.array(), byteBuffer.position());
+        assertEquals(new String(actual, StandardCharsets.UTF_8), JsonBinary.parseAsString(document));
+        assertEquals(new String(actual, StandardCharsets.UTF_8), "{\"k\":\"a\\\"b\\nü\"}");
+    }
+}
@@ -45,4 +45,22 @@ public class BufferedSocketInputStreamTest {
         assertEquals(in.read(), 16);
         assertEquals(in.read(), (byte) -1);
     }
+
+    @Test
+    public void testSlice() throws Exception {
+        com.github.shyiko.mysql.binlog.io.ByteArrayInputStream in =
+            new com.github.shyiko.mysql.binlog.io.ByteArrayInputStream(new BufferedSocketInputStream(
+                new ByteArrayInputStream(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}), 5));
+        assertEquals(in.read(), 0);
+        com.github.shyiko.mysql.binlog.io.ByteArrayInputStream slice = in.slice(4); // fits into the buffer
+        assertEquals(slice.readInteger(4), 0x04030201);
+        assertEquals(slice.available(), 0);
+        slice = in.slice(5); // requires compaction
+        assertEquals(slice.read(5), new byte[] {5, 6, 7, 8, 9});
+        slice = in.slice(6); // exceeds capacity of the buffer
+        assertEquals(slice.read(6), new byte[] {10, 11, 12, 13, 14, 15});
+        assertEquals(in.getPosition(), 16);
+        assertEquals(in.read(), 16);
+        assertEquals(in.peek(), -1);
+    }
 }
@@ -99,4 +99,40 @@ public class ByteArrayInputStreamTest {
         assertEquals(b[0], 5);
         assertEquals(b[2], 7);
     }
+
+    @Test
+    public void testArrayBackedAndStreamBackedReadsMatch() throws Exception {
+        byte[] bytes = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, (byte) 0xF0, (byte) 0x81, 'a', 'b', 0, 9, 10, 11};
+        ByteArrayInputStream[] streams = {
+            new ByteArrayInputStream(bytes),
+            new ByteArrayInputStream(new java.io.ByteArrayInputStream(bytes))
+        };
+        for (ByteArrayInputStream in : streams) {
+            in.mark(bytes.length);
+            assertEquals(in.readInteger(3), 0x030201);
+            assertEquals(in.readLong(5), 0x0807060504L);
+            assertEquals(in.readBitSet(12, false).toString(), "{0, 7}");
+            assertEquals(in.readZeroTerminatedString(), "ab");
+            assertEquals(in.getPosition(), 13);
+            in.enterBlock(2);
+            assertEquals(in.available(), 2);
+            assertEquals(in.read(), 9);
+            in.skipToTheEndOfTheBlock();
+            assertEquals(in.read(), 11);
+            assertEquals(in.peek(), -1);
+            in.reset();
+            assertEquals(in.getPosition(), 0);
+            assertEquals(in.readInteger(1), 1);
+        }
+    }
+
+    @Test
+    public void testArrayBackedSlice() throws Exception {
+        ByteArrayInputStream in = new ByteArrayInputStream(new byte[]{0, 1, 2, 3, 4}, 1, 3);
+        assertEquals(in.available(), 3);
+        assertEquals(in.readInteger(2), 0x0201);
+        assertEquals(in.getPosition(), 2);
+        assertEquals(in.read(1)[0], 3);
+        assertEquals(in.peek(), -1);
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mysql.binlog.io;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+
+public class ChunkedInputStreamTest {
+
+    @Test
+    public void testReadAcrossChunks() throws Exception {
+        byte[] first = {0, 1, 2}, second = {}, third = {3, 4, 5, 6};
+        ChunkedInputStream in = new ChunkedInputStream(Arrays.asList(first, second, third));
+        assertEquals(in.available(), 7);
+        assertEquals(in.read(), 0);
+        byte[] buf = new byte[4];
+        assertEquals(in.read(buf, 0, buf.length), 4);
+        assertEquals(buf, new byte[]{1, 2, 3, 4});
+        third[2] = 9; // chunks are not copied
+        assertEquals(in.read(buf, 0, buf.length), 2);
+        assertEquals(Arrays.copyOf(buf, 2), new byte[]{9, 6});
+        assertEquals(in.available(), 0);
+        assertEquals(in.read(), -1);
+        assertEquals(in.read(buf, 0, buf.length), -1);
+    }
+
+    @Test
+    public void testSkipAndMark() throws Exception {
+        ChunkedInputStream in = new ChunkedInputStream(Arrays.asList(new byte[]{0, 1}, new byte[]{2, 3, 4}));
+        assertEquals(in.skip(1), 1);
+        in.mark(4);
+        assertEquals(in.skip(3), 3);
+        assertEquals(in.available(), 1);
+        in.reset();
+        assertEquals(in.available(), 4);
+        ByteArrayInputStream stream = new ByteArrayInputStream(in);
+        assertEquals(stream.peekLong(2), 0x0201);
+        assertEquals(stream.readInteger(3), 0x030201);
+        assertEquals(stream.skip(5), 1);
+    }
+}
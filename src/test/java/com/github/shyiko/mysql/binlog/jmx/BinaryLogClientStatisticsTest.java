@@ -18,6 +18,7 @@ package com.github.shyiko.mysql.binlog.jmx;
 import com.github.shyiko.mysql.binlog.event.Event;
 import com.github.shyiko.mysql.binlog.event.EventHeaderV4;
 import com.github.shyiko.mysql.binlog.event.EventType;
+import com.github.shyiko.mysql.binlog.event.deserialization.ChecksumMismatchException;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
@@ -77,6 +78,11 @@ public class BinaryLogClientStatisticsTest {
         assertNull(statistics.getLastEvent());
         assertEquals(statistics.getTotalNumberOfEventsSeen(), 2L);
         assertEquals(statistics.getNumberOfSkippedEvents(), 1L);
+        assertEquals(statistics.getNumberOfChecksumMismatches(), 0L);
+        statistics.onEventDeserializationFailure(null, new ChecksumMismatchException(
+            new EventHeaderV4(), 0x01020304L, 0x04030201L));
+        assertEquals(statistics.getNumberOfSkippedEvents(), 2L);
+        assertEquals(statistics.getNumberOfChecksumMismatches(), 1L);
     }
 
     @Test